@@ -1,10 +1,13 @@
 package dtos;
 
-import components.executor.Context;
+import components.executor.ContextSnapshot;
+
+import java.util.List;
 
 public record DebugStepDetails(
-        Context context,             // The state of all variables after the step
-        int nextInstructionNumber,   // The 1-based number of the *next* instruction to be executed
-        boolean isFinished           // A flag indicating if the program has completed
+        ContextSnapshot snapshot,        // The variables after the step, later steps don't change it
+        List<VariableChange> changes,    // The variables the step changed, at the start the initialized inputs
+        int nextInstructionNumber,       // The 1-based number of the *next* instruction to be executed
+        boolean isFinished,              // A flag indicating if the program has completed
+        boolean isStart                  // The first step of a session, earlier changes belong to another session
 ) {}
-
@@ -0,0 +1,21 @@
+package dtos;
+
+import components.instruction.Instruction;
+import components.label.Label;
+import components.variable.Variable;
+
+//which instructions a program page holds. a null part matches every instruction: type is 'B' or 'S', variable and
+//label match the instructions that use them anywhere (a label also matches the jumps to it)
+public record InstructionFilter(Character type, Variable variable, Label label) {
+    public static final InstructionFilter ALL = new InstructionFilter(null, null, null);
+
+    public boolean matchesAll() {
+        return type == null && variable == null && label == null;
+    }
+
+    public boolean matches(Instruction instruction) {
+        return (type == null || instruction.getInstructionTypeChar() == type)
+                && (variable == null || instruction.getAllInvolvedVariables().contains(variable))
+                && (label == null || instruction.getAllInvolvedLabels().contains(label));
+    }
+}
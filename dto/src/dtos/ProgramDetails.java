@@ -6,4 +6,6 @@ import components.variable.Variable;
 
 import java.util.List;
 
-public record ProgramDetails(String name, List<Variable> inputVariables, List<Variable> workVariables, List<Label> labels, List<Instruction> instructions) {}
\ No newline at end of file
+//basicInstructionCount comes with the program's analysis, so showing the counts doesn't scan the instructions again
+public record ProgramDetails(String name, List<Variable> inputVariables, List<Variable> workVariables, List<Label> labels,
+                             List<Instruction> instructions, int basicInstructionCount) {}
\ No newline at end of file
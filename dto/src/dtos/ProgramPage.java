@@ -0,0 +1,12 @@
+package dtos;
+
+import components.instruction.Instruction;
+
+import java.util.List;
+
+//a window over a program's instructions: the ones the filter matched, from the offset-th match on and at most the
+//requested limit of them. totalInstructions counts the whole program, matchingInstructions what the filter matched
+public record ProgramPage(String name, int totalInstructions, int matchingInstructions, int offset, List<Entry> instructions) {
+    //number is the instruction's 1-based place in the whole program
+    public record Entry(int number, Instruction instruction) {}
+}
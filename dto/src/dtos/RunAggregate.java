@@ -0,0 +1,7 @@
+package dtos;
+
+//runs of one program at one degree. percentiles are within a few percent of the exact value, wall time only covers
+//runs that ran straight through (not stepped in the debugger)
+public record RunAggregate(String programName, int expansionDegree, long runsCount, long minCycles, long maxCycles,
+                           double meanCycles, long p50Cycles, long p95Cycles, long p99Cycles,
+                           long timedRunsCount, double meanWallMillis, double maxWallMillis) {}
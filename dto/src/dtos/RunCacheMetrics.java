@@ -0,0 +1,9 @@
+package dtos;
+
+//lookups in the run result cache since the engine started, weight is the estimated size of the entries in bytes
+public record RunCacheMetrics(long hits, long misses, long evictions, int entries, long weight, long maxWeight) {
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,4 @@
+package dtos;
+
+//a run's y and cycles without its program or variables, for callers that only need those
+public record RunResult(long y, long cycles) {}
@@ -0,0 +1,6 @@
+package dtos;
+
+import components.variable.Variable;
+
+//a variable a debug step changed, with its value before and after the step
+public record VariableChange(Variable variable, long oldValue, long newValue) {}
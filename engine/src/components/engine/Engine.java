@@ -2,22 +2,45 @@ package components.engine;
 
 import dtos.DebugStepDetails;
 import dtos.ExecutionDetails;
+import dtos.InstructionFilter;
 import dtos.ProgramDetails;
+import dtos.ProgramPage;
+import dtos.RunAggregate;
+import dtos.RunCacheMetrics;
 import dtos.RunHistoryDetails;
+import dtos.RunResult;
 
 import java.io.File;
-import java.io.Serializable;
+import java.io.IOException;
 import java.util.List;
 
-public interface Engine extends Serializable {
+public interface Engine {
     void loadProgramFromFile(File file);
     boolean isProgramLoaded();
     ProgramDetails getProgramDetails();
     int getProgramMaxDegree();
     ProgramDetails expandProgram(int expansionDegree);
+    //expands the named program without selecting it, safe to call from any thread while the engine is used
+    ProgramDetails expandProgram(String displayName, int expansionDegree);
+    //the selected program's instructions at a degree that match the filter, from offset on and at most limit of them
+    ProgramPage getProgramPage(int expansionDegree, InstructionFilter filter, int offset, int limit);
     ExecutionDetails runProgram(int expansionDegree, Long... input);
+    //runProgram returns a stored result when the same program ran with the same inputs, useCache false always runs
+    ExecutionDetails runProgram(int expansionDegree, boolean useCache, Long... input);
+    //runProgram for callers that only need y and the cycles, the program's details aren't made
+    RunResult runForResult(int expansionDegree, boolean useCache, Long... input);
+    //runs a program by the name its runs are recorded under without recording the run or changing the selection
+    ExecutionDetails evaluate(String programName, int expansionDegree, Long... input);
     List<RunHistoryDetails> getStatistics();
     boolean isRunning();
+    //the final variables of a past run without running it again, null when they weren't kept
+    ExecutionDetails getRunResult(int runNumber);
+    //the name of the program a past run ran, null when it isn't known
+    String getRunProgramName(int runNumber);
+    //count, cycles percentiles and wall time per program and degree
+    List<RunAggregate> getRunAggregates();
+    //hits, misses and size of the run result cache
+    RunCacheMetrics getRunCacheMetrics();
 
 
 
@@ -26,8 +49,15 @@ public interface Engine extends Serializable {
     DebugStepDetails stepOver();
     ExecutionDetails resume();
     void stop();
-    void addRunToHistory(RunHistoryDetails details);
+
+    //state files: the loaded program, the selected program and the run history
+    void saveState(File file) throws IOException;
+    void loadState(File file) throws IOException;
 
     List<String> getDisplayableProgramNames();
     void setContextProgram(String displayName);
+
+    //listeners are called on the thread that made the change, see EngineListener
+    void addListener(EngineListener listener);
+    void removeListener(EngineListener listener);
 }
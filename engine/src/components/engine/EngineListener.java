@@ -0,0 +1,27 @@
+package components.engine;
+
+import dtos.DebugStepDetails;
+import dtos.ProgramDetails;
+import dtos.RunHistoryDetails;
+
+import java.util.List;
+
+//what changed in the engine, so a view can update the part it shows instead of reading everything again.
+//events arrive on the thread that caused them, a UI hands them to its own thread (see CoalescingEngineListener)
+public interface EngineListener {
+    //a file or saved state was loaded or the program was reloaded, the details are of the selected program
+    default void programLoaded(ProgramDetails selectedProgram) {}
+
+    //a run was added to the engine's statistics
+    default void runAppended(RunHistoryDetails run) {}
+
+    //runs in the order they were added, for listeners that deliver events in batches
+    default void runsAppended(List<RunHistoryDetails> runs) {
+        runs.forEach(this::runAppended);
+    }
+
+    //a debug session started or took a step, see DebugStepDetails for what it carries
+    default void stepExecuted(DebugStepDetails step) {}
+
+    default void expansionReady(String programName, int degree, ProgramDetails expansion) {}
+}
@@ -0,0 +1,57 @@
+package components.engine;
+
+import dtos.DebugStepDetails;
+import dtos.ProgramDetails;
+import dtos.RunHistoryDetails;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+//the listeners of an engine as one listener. listeners are added and removed rarely and events are frequent,
+//so events go over a copy-on-write list without locking
+final class EngineListeners implements EngineListener {
+    private final List<EngineListener> listeners = new CopyOnWriteArrayList<>();
+
+    void add(EngineListener listener) {
+        listeners.add(listener);
+    }
+
+    void remove(EngineListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void programLoaded(ProgramDetails selectedProgram) {
+        for (EngineListener listener : listeners) {
+            listener.programLoaded(selectedProgram);
+        }
+    }
+
+    @Override
+    public void runAppended(RunHistoryDetails run) {
+        for (EngineListener listener : listeners) {
+            listener.runAppended(run);
+        }
+    }
+
+    @Override
+    public void runsAppended(List<RunHistoryDetails> runs) {
+        for (EngineListener listener : listeners) {
+            listener.runsAppended(runs);
+        }
+    }
+
+    @Override
+    public void stepExecuted(DebugStepDetails step) {
+        for (EngineListener listener : listeners) {
+            listener.stepExecuted(step);
+        }
+    }
+
+    @Override
+    public void expansionReady(String programName, int degree, ProgramDetails expansion) {
+        for (EngineListener listener : listeners) {
+            listener.expansionReady(programName, degree, expansion);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package components.engine;
+
+import components.executor.Context;
+import components.executor.ContextSnapshot;
+import components.executor.CycleBudgetExceededException;
+import components.executor.ProgramExecutor;
+import components.executor.StandardContext;
+import components.instruction.Instruction;
+import components.program.Program;
+import components.variable.Variable;
+import dtos.DebugStepDetails;
+import dtos.ExecutionDetails;
+import dtos.InstructionFilter;
+import dtos.ProgramDetails;
+import dtos.ProgramPage;
+import dtos.RunHistoryDetails;
+import dtos.RunResult;
+import dtos.VariableChange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//one user's (or job's) view of a loaded program: the selected program and a debug session, runs go to the shared history.
+//a session is meant for one thread at a time, any number of sessions can work on the same LoadedProgram concurrently
+public class EngineSession {
+    private volatile LoadedProgram loaded;
+    private final RunHistory history;
+    private final RunResultCache resultCache;
+
+    private volatile Program contextProgram;
+    private long cycleBudget = Long.MAX_VALUE;
+    private boolean syntheticExecution = false;
+
+    private ProgramExecutor debugExecutor = null;
+    private boolean isInDebugMode = false;
+    private Program debugProgram = null;
+    private int debugExpansionDegree = 0;
+    //told about the runs this session adds and the steps it takes, null for sessions nobody watches
+    private volatile EngineListener listener;
+
+    public EngineSession(LoadedProgram loaded, RunHistory history, RunResultCache resultCache) {
+        this.loaded = loaded;
+        this.history = history;
+        this.resultCache = resultCache;
+        this.contextProgram = loaded.getMainProgram();
+    }
+
+    //moves the session to a newer snapshot of the same file, keeping the selected program when it still exists.
+    //a debug session that is in progress keeps running on the program it started with
+    void switchTo(LoadedProgram newLoaded) {
+        String selected = loaded.getDisplayName(contextProgram);
+        Program newContext = selected == null ? null : newLoaded.findProgram(selected);
+        this.loaded = newLoaded;
+        this.contextProgram = newContext != null ? newContext : newLoaded.getMainProgram();
+    }
+
+    void setListener(EngineListener listener) {
+        this.listener = listener;
+    }
+
+    //runs that use more cycles are stopped with a CycleBudgetExceededException and aren't recorded
+    public void setCycleBudget(long cycleBudget) {
+        if (cycleBudget <= 0) {
+            throw new IllegalArgumentException("Cycle budget must be positive.");
+        }
+        this.cycleBudget = cycleBudget;
+    }
+
+    //when on, runs at degree N don't run the expanded program: the selected program runs as it is and every synthetic
+    //instruction is charged the cycles its expansion would use (see ExpansionCostModel), so the y and cycles are those
+    //of degree N at about the cost of a degree 0 run. the variables in the result are the unexpanded program's.
+    //such runs don't use the result cache, it holds the expanded programs' variables
+    public void setSyntheticExecution(boolean syntheticExecution) {
+        this.syntheticExecution = syntheticExecution;
+    }
+
+    public LoadedProgram getLoadedProgram() {
+        return loaded;
+    }
+
+    public ProgramDetails getProgramDetails() {
+        return loaded.createProgramDetails(contextProgram);
+    }
+
+    public ProgramDetails expandProgram(int expansionDegree) {
+        return loaded.createProgramDetails(loaded.getExpandedProgram(contextProgram, expansionDegree));
+    }
+
+    //a window of the selected program's instructions at a degree, see LoadedProgram.createProgramPage
+    public ProgramPage getProgramPage(int expansionDegree, InstructionFilter filter, int offset, int limit) {
+        LoadedProgram snapshot = loaded;
+        return snapshot.createProgramPage(snapshot.getExpandedProgram(contextProgram, expansionDegree), filter, offset, limit);
+    }
+
+    public int getProgramMaxDegree() {
+        return contextProgram.calculateMaxDegree(loaded.getFunctions());
+    }
+
+    public ExecutionDetails runProgram(int expansionDegree, Long... input) {
+        return runProgram(expansionDegree, true, input);
+    }
+
+    //with useCache a run of inputs the program already ran with returns the stored result. it is recorded like any
+    //other run, without a wall time since nothing ran. without useCache the program always runs, e.g. to time it
+    public ExecutionDetails runProgram(int expansionDegree, boolean useCache, Long... input) {
+        return detailsOf(execute(expansionDegree, useCache, true, input));
+    }
+
+    //runProgram without the program's details, for callers that only need y and the cycles
+    public RunResult runForResult(int expansionDegree, boolean useCache, Long... input) {
+        Outcome outcome = execute(expansionDegree, useCache, true, input);
+        return new RunResult(outcome.y(), outcome.cycles());
+    }
+
+    //runs the selected program without adding the run to any history, for batch jobs that keep their own results
+    public ExecutionDetails evaluate(int expansionDegree, Long... input) {
+        return evaluate(expansionDegree, true, input);
+    }
+
+    public ExecutionDetails evaluate(int expansionDegree, boolean useCache, Long... input) {
+        return detailsOf(execute(expansionDegree, useCache, false, input));
+    }
+
+    public RunResult evaluateForResult(int expansionDegree, boolean useCache, Long... input) {
+        Outcome outcome = execute(expansionDegree, useCache, false, input);
+        return new RunResult(outcome.y(), outcome.cycles());
+    }
+
+    //evaluate for a program by the name runs are recorded under (see LoadedProgram.findProgramByName), the selected
+    //program stays as it is
+    public ExecutionDetails evaluate(String programName, int expansionDegree, Long... input) {
+        LoadedProgram snapshot = loaded;
+        Program program = snapshot.findProgramByName(programName);
+        if (program == null) {
+            throw new IllegalArgumentException("There is no program named '" + programName + "'.");
+        }
+        return detailsOf(execute(snapshot, program, expansionDegree, true, false, input));
+    }
+
+    //a finished run before it is turned into what the caller asked for
+    private record Outcome(LoadedProgram snapshot, Program program, Context state, long y, long cycles) {}
+
+    private Outcome execute(int expansionDegree, boolean useCache, boolean record, Long[] input) {
+        LoadedProgram snapshot = loaded;
+        return execute(snapshot, contextProgram, expansionDegree, useCache, record, input);
+    }
+
+    private Outcome execute(LoadedProgram snapshot, Program program, int expansionDegree, boolean useCache, boolean record, Long[] input) {
+        Program programToRun = syntheticExecution ? program : snapshot.getExpandedProgram(program, expansionDegree);
+        RunHistory.StateLayout layout = snapshot.getStateLayout(programToRun);
+        RunResultCache.Key key = useCache ? cacheKey(snapshot, program, expansionDegree, input, layout) : null;
+
+        RunResultCache.Result cached = key == null ? null : resultCache.get(key);
+        if (cached != null) {
+            Context state = stateOf(cached);
+            if (record) {
+                announceRun(history.record(expansionDegree, List.of(input), cached.y(), cached.cycles(), layout, state, -1));
+            }
+            return new Outcome(snapshot, programToRun, state, cached.y(), cached.cycles());
+        }
+
+        ProgramExecutor programExecutor = newExecutor(snapshot, program, programToRun, expansionDegree);
+        long start = System.nanoTime();
+        Long y = programExecutor.run(input);
+        long wallNanos = System.nanoTime() - start;
+
+        if (record) {
+            announceRun(history.record(expansionDegree, List.of(input), y, programExecutor.getCyclesNumber(),
+                    layout, programExecutor.getVariablesContext(), wallNanos));
+        }
+        if (key != null) {
+            resultCache.put(key, new RunResultCache.Result(y, programExecutor.getCyclesNumber(), layout,
+                    RunHistory.encodeState(layout, programExecutor.getVariablesContext())));
+        }
+        return new Outcome(snapshot, programToRun, programExecutor.getVariablesContext(), y, programExecutor.getCyclesNumber());
+    }
+
+    private static ExecutionDetails detailsOf(Outcome outcome) {
+        return new ExecutionDetails(outcome.snapshot().createProgramDetails(outcome.program()), outcome.state(), outcome.cycles());
+    }
+
+    private ProgramExecutor newExecutor(LoadedProgram snapshot, Program program, Program programToRun, int expansionDegree) {
+        ProgramExecutor programExecutor = new ProgramExecutor(programToRun, snapshot.getFunctions());
+        programExecutor.setCycleBudget(cycleBudget);
+        if (syntheticExecution) {
+            //the expansion is only read for its inputs, it is made once per program and degree
+            programExecutor.setCostDegree(expansionDegree,
+                    snapshot.getExpandedProgram(program, expansionDegree).getInputVariables(snapshot.getFunctions()));
+        }
+        return programExecutor;
+    }
+
+    private RunResultCache.Key cacheKey(LoadedProgram snapshot, Program program, int expansionDegree, Long[] input, RunHistory.StateLayout layout) {
+        if (resultCache == null || syntheticExecution) {
+            return null;
+        }
+        return RunResultCache.key(snapshot.getContentHash(program), expansionDegree, input, layout.inputVariables().size());
+    }
+
+    //a stored run is held to the session's budget like a new one would be
+    private StandardContext stateOf(RunResultCache.Result cached) {
+        if (cached.cycles() > cycleBudget) {
+            throw new CycleBudgetExceededException(cycleBudget);
+        }
+        StandardContext state = RunHistory.decodeState(cached.layout(), cached.state(), 0);
+        state.setTotalCycles(cached.cycles());
+        return state;
+    }
+
+    //runs are only kept in the shared history, the session just tells its listener about the ones it added
+    private void announceRun(RunHistoryDetails run) {
+        EngineListener current = listener;
+        if (current != null) {
+            current.runAppended(run);
+        }
+    }
+
+    public DebugStepDetails startDebugging(int degree, Long[] inputs) {
+        if (isInDebugMode) {
+            stop();
+        }
+        LoadedProgram snapshot = loaded;
+        this.debugExpansionDegree = degree;
+        this.debugProgram = snapshot.getExpandedProgram(contextProgram, degree);
+
+        this.debugExecutor = new ProgramExecutor(this.debugProgram, snapshot.getFunctions());
+        this.debugExecutor.setPersistentContext(true);
+        this.debugExecutor.initializeDebugSession(inputs);
+        isInDebugMode = true;
+
+        ContextSnapshot state = this.debugExecutor.getVariablesContext().snapshot();
+        List<VariableChange> changes = new ArrayList<>();
+        state.getVariables().forEach((variable, value) -> changes.add(new VariableChange(variable, 0, value)));
+        return fireStep(new DebugStepDetails(state, changes, 1, this.debugExecutor.isFinished(), true));
+    }
+
+    public DebugStepDetails stepOver() {
+        if (!isInDebugMode || this.debugExecutor == null) {
+            throw new IllegalStateException("Not in a debug session. Cannot step over.");
+        }
+        //an instruction writes at most its own variable, jumps only read it
+        List<Instruction> instructions = this.debugProgram.getInstructions();
+        int index = this.debugExecutor.getNextInstructionNumber() - 1;
+        Variable written = this.debugExecutor.isFinished() || index >= instructions.size() ? null : instructions.get(index).getVariable();
+        boolean wasFinished = this.debugExecutor.isFinished();
+        long oldValue = written == null ? 0 : this.debugExecutor.getVariablesContext().getVariableValue(written);
+
+        this.debugExecutor.stepOver();
+        ContextSnapshot state = this.debugExecutor.getVariablesContext().snapshot();
+        long newValue = written == null ? 0 : state.getVariableValue(written);
+        boolean finished = this.debugExecutor.isFinished();
+        //the step that ends the program records the run, like resume does
+        if (finished && !wasFinished) {
+            announceRun(history.record(this.debugExpansionDegree, List.of(this.debugExecutor.getInitialInputs()),
+                    state.getVariableValue(Variable.OUTPUT), state.getTotalCycles(),
+                    loaded.getStateLayout(this.debugProgram), this.debugExecutor.getVariablesContext(), -1));
+        }
+        return fireStep(new DebugStepDetails(state,
+                newValue == oldValue ? List.of() : List.of(new VariableChange(written, oldValue, newValue)),
+                this.debugExecutor.getNextInstructionNumber(), finished, false));
+    }
+
+    private DebugStepDetails fireStep(DebugStepDetails step) {
+        EngineListener current = listener;
+        if (current != null) {
+            current.stepExecuted(step);
+        }
+        return step;
+    }
+
+    public ExecutionDetails resume() {
+        if (!isInDebugMode || this.debugExecutor == null) {
+            throw new IllegalStateException("Not in a debug session. Cannot resume.");
+        }
+        Long y = this.debugExecutor.resume();
+        announceRun(history.record(this.debugExpansionDegree, List.of(this.debugExecutor.getInitialInputs()), y,
+                this.debugExecutor.getCyclesNumber(), loaded.getStateLayout(this.debugProgram), this.debugExecutor.getVariablesContext(), -1));
+
+        ExecutionDetails finalDetails = new ExecutionDetails(
+                loaded.createProgramDetails(this.debugProgram),
+                this.debugExecutor.getVariablesContext(),
+                this.debugExecutor.getCyclesNumber()
+        );
+        stop();
+        return finalDetails;
+    }
+
+    public void stop() {
+        this.debugExecutor = null;
+        this.debugProgram = null;
+        this.isInDebugMode = false;
+    }
+
+    public List<String> getDisplayableProgramNames() {
+        return loaded.getDisplayableProgramNames();
+    }
+
+    public String getContextProgramName() {
+        return loaded.getDisplayName(contextProgram);
+    }
+
+    public void setContextProgram(String displayName) {
+        if (displayName == null) return;
+
+        Program selected = loaded.findProgram(displayName);
+        if (selected != null) {
+            this.contextProgram = selected;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package components.engine;
+
+import components.program.ProgramAnalysis;
+import components.program.ProgramDocument;
+import components.program.ProgramImage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+//saved engine state: where the program came from, the program set as a ProgramImage, the selected program and the
+//run history in its columnar form. the header is plain so other files are told apart without inflating them, the rest
+//is one GZIP stream. reading it costs about as much as the history is long, no XML is parsed and nothing is validated
+public final class EngineSnapshot {
+    private static final int MAGIC = 0x53454E47; //"SENG"
+    private static final int VERSION = 2;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    //the image is embedded, there is no separate source file to check it against
+    private static final byte[] EMBEDDED_SOURCE_HASH = new byte[32];
+
+    public record Contents(File sourceFile, ProgramDocument document, Map<String, ProgramAnalysis> functionAnalyses,
+                           String contextProgramName, RunHistory runHistory) {}
+
+    private EngineSnapshot() {
+    }
+
+    //written to a temporary file and moved into place, so a failed save leaves the previous snapshot as it was
+    public static void write(Path snapshot, File sourceFile, LoadedProgram loaded, String contextProgramName,
+                             RunHistory runHistory) throws IOException {
+        Path directory = snapshot.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, snapshot.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE)) {
+                DataOutputStream header = new DataOutputStream(fileOut);
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+                header.flush();
+
+                DataOutputStream out = new DataOutputStream(new GZIPOutputStream(fileOut, BUFFER_SIZE));
+                out.writeUTF(sourceFile == null ? "" : sourceFile.getPath());
+
+                ByteArrayOutputStream image = new ByteArrayOutputStream();
+                ProgramImage.writeTo(image, EMBEDDED_SOURCE_HASH, loaded.getMainProgram(), loaded.getFunctions());
+                out.writeInt(image.size());
+                image.writeTo(out);
+
+                out.writeUTF(contextProgramName == null ? "" : contextProgramName);
+                runHistory.writeTo(out);
+                out.close();
+            }
+            try {
+                Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    public static Contents read(Path snapshot) throws IOException {
+        try (InputStream fileIn = new BufferedInputStream(Files.newInputStream(snapshot), BUFFER_SIZE)) {
+            DataInputStream header = new DataInputStream(fileIn);
+            if (header.readInt() != MAGIC) {
+                throw new IOException(snapshot.getFileName() + " is not an engine snapshot.");
+            }
+            int version = header.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ", expected " + VERSION + ".");
+            }
+
+            DataInputStream in = new DataInputStream(new GZIPInputStream(fileIn, BUFFER_SIZE));
+            String sourcePath = in.readUTF();
+
+            byte[] image = in.readNBytes(in.readInt());
+            ProgramImage.Contents program = ProgramImage.read(ByteBuffer.wrap(image), EMBEDDED_SOURCE_HASH);
+            if (program == null) {
+                throw new IOException("The program in " + snapshot.getFileName() + " is damaged.");
+            }
+
+            String contextProgramName = in.readUTF();
+            RunHistory runHistory = RunHistory.readFrom(in);
+            //reading past the end is what makes GZIP check its trailer, a file cut short in it is caught here
+            if (in.read() != -1) {
+                throw new IOException(snapshot.getFileName() + " has data after the run history.");
+            }
+            return new Contents(sourcePath.isEmpty() ? null : new File(sourcePath), program.document(),
+                    program.functionAnalyses(), contextProgramName.isEmpty() ? null : contextProgramName, runHistory);
+        } catch (EOFException e) {
+            throw new IOException(snapshot.getFileName() + " ends too early, it was not saved completely.", e);
+        }
+    }
+}
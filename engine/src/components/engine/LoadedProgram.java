@@ -0,0 +1,211 @@
+package components.engine;
+
+import components.instruction.Instruction;
+import components.program.CallGraph;
+import components.program.FunctionRegistry;
+import components.program.Program;
+import components.program.ProgramAnalysis;
+import dtos.InstructionFilter;
+import dtos.ProgramDetails;
+import dtos.ProgramPage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+//everything one load produced: the main program, its functions and the expansions made from them.
+//nothing here changes after construction except the expansion cache, which any number of sessions may use at once
+public final class LoadedProgram {
+    private final Program mainProgram;
+    private final FunctionRegistry functions;
+    //programs don't override equals, so the map is keyed by identity
+    private final ConcurrentMap<Program, ExpansionChain> expansions;
+    //what each program computes, by identity as well
+    private final ConcurrentMap<Program, byte[]> contentHashes = new ConcurrentHashMap<>();
+
+    //expansions are immutable, so each program keeps its chain of expansions (index = degree) and their analysis.
+    //one chain is extended by one thread at a time, different programs expand in parallel
+    private static final class ExpansionChain {
+        private final List<Program> chain = new ArrayList<>();
+
+        private ExpansionChain(Program root) {
+            chain.add(root);
+        }
+
+        private synchronized Program get(int degree, FunctionRegistry functions) {
+            while (chain.size() <= degree) {
+                chain.add(chain.get(chain.size() - 1).expand(functions));
+            }
+            return chain.get(degree);
+        }
+    }
+
+    LoadedProgram(Program mainProgram, FunctionRegistry functions) {
+        this(mainProgram, functions, new ConcurrentHashMap<>());
+    }
+
+    private LoadedProgram(Program mainProgram, FunctionRegistry functions, ConcurrentMap<Program, ExpansionChain> expansions) {
+        this.mainProgram = mainProgram;
+        this.functions = functions;
+        this.expansions = expansions;
+    }
+
+    //a new snapshot that keeps the cached expansions of the given programs, used by hot reload
+    LoadedProgram replace(Program newMainProgram, FunctionRegistry newFunctions, Set<Program> keptPrograms) {
+        ConcurrentMap<Program, ExpansionChain> keptExpansions = new ConcurrentHashMap<>();
+        for (Program program : keptPrograms) {
+            ExpansionChain chain = expansions.get(program);
+            if (chain != null) {
+                keptExpansions.put(program, chain);
+            }
+        }
+        return new LoadedProgram(newMainProgram, newFunctions, keptExpansions);
+    }
+
+    public Program getMainProgram() {
+        return mainProgram;
+    }
+
+    public FunctionRegistry getFunctions() {
+        return functions;
+    }
+
+    //the main program by its name or a function by its user string, null if there is no such program
+    public Program findProgram(String displayName) {
+        if (mainProgram.getName().equals(displayName)) {
+            return mainProgram;
+        }
+        return functions.findByUserString(displayName);
+    }
+
+    //the main program or a function by the name it was loaded with, the name runs are recorded under
+    public Program findProgramByName(String name) {
+        if (mainProgram.getName().equals(name)) {
+            return mainProgram;
+        }
+        return functions.get(name);
+    }
+
+    public String getDisplayName(Program program) {
+        if (program == mainProgram) {
+            return mainProgram.getName();
+        }
+        for (FunctionRegistry.FunctionDefinition definition : functions.getDefinitions()) {
+            if (definition.program() == program) {
+                return definition.userString();
+            }
+        }
+        return null;
+    }
+
+    public List<String> getDisplayableProgramNames() {
+        List<String> names = new ArrayList<>();
+        names.add(mainProgram.getName());
+        functions.getDefinitions().stream()
+                .map(FunctionRegistry.FunctionDefinition::userString)
+                .sorted()
+                .forEach(names::add);
+        return names;
+    }
+
+    public Program getExpandedProgram(Program program, int expansionDegree) {
+        return expansions.computeIfAbsent(program, ExpansionChain::new).get(expansionDegree, functions);
+    }
+
+    //a hash of the program and every function it calls, directly or through other functions. two programs with the
+    //same hash give the same result for the same inputs, whichever load they came from
+    public byte[] getContentHash(Program program) {
+        return contentHashes.computeIfAbsent(program, this::computeContentHash);
+    }
+
+    private byte[] computeContentHash(Program program) {
+        Map<String, Program> reached = new TreeMap<>();
+        Deque<Program> pending = new ArrayDeque<>(List.of(program));
+        while (!pending.isEmpty()) {
+            for (String name : CallGraph.getCalledFunctionNames(pending.poll())) {
+                Program function = functions.get(name);
+                if (function != null && reached.putIfAbsent(name, function) == null) {
+                    pending.add(function);
+                }
+            }
+        }
+
+        MessageDigest digest = newDigest();
+        update(digest, program, "");
+        for (Program function : reached.values()) {
+            update(digest, function, "");
+        }
+        return digest.digest();
+    }
+
+    //what a program looks like to the user, so any edit that changes behavior or display changes the hash
+    static byte[] contentHash(Program program, String userString) {
+        MessageDigest digest = newDigest();
+        update(digest, program, userString);
+        return digest.digest();
+    }
+
+    private static void update(MessageDigest digest, Program program, String userString) {
+        digest.update((program.getName() + "\n" + userString + "\n").getBytes(StandardCharsets.UTF_8));
+        for (Instruction instruction : program.getInstructions()) {
+            digest.update((instruction.getStringInstruction() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public RunHistory.StateLayout getStateLayout(Program program) {
+        ProgramAnalysis analysis = program.getAnalysis(functions);
+        return new RunHistory.StateLayout(program.getName(), analysis.inputVariables(), analysis.workVariables());
+    }
+
+    public ProgramDetails createProgramDetails(Program program) {
+        ProgramAnalysis analysis = program.getAnalysis(functions);
+        return new ProgramDetails(
+                program.getName(),
+                analysis.inputVariables(),
+                analysis.workVariables(),
+                analysis.labels(),
+                program.getInstructions(),
+                analysis.basicInstructionCount()
+        );
+    }
+
+    //without a filter the page is read straight from the instruction list, with one every instruction is tested once
+    //to count the matches but only the page's are kept
+    public ProgramPage createProgramPage(Program program, InstructionFilter filter, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit can't be negative.");
+        }
+        List<Instruction> instructions = program.getInstructions();
+        List<ProgramPage.Entry> page = new ArrayList<>();
+        int matching;
+        if (filter.matchesAll()) {
+            matching = instructions.size();
+            for (int i = offset; i < instructions.size() && page.size() < limit; i++) {
+                page.add(new ProgramPage.Entry(i + 1, instructions.get(i)));
+            }
+        } else {
+            matching = 0;
+            for (int i = 0; i < instructions.size(); i++) {
+                Instruction instruction = instructions.get(i);
+                if (filter.matches(instruction)) {
+                    if (matching >= offset && page.size() < limit) {
+                        page.add(new ProgramPage.Entry(i + 1, instruction));
+                    }
+                    matching++;
+                }
+            }
+        }
+        return new ProgramPage(program.getName(), instructions.size(), matching, offset, page);
+    }
+}
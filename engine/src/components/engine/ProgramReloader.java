@@ -0,0 +1,94 @@
+package components.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+//opt-in hot reload: watches the loaded XML file and calls StandardEngine.reloadProgramFromFile when it changes.
+//editors often save in several writes, so a reload waits until the file has been quiet for a short while
+public class ProgramReloader implements AutoCloseable {
+    private static final long QUIET_PERIOD_MILLIS = 200;
+
+    public interface Listener {
+        void reloaded(Set<String> rebuiltFunctions);
+        void failed(RuntimeException exception);
+    }
+
+    private final StandardEngine engine;
+    private final File file;
+    private final Listener listener;
+    private final WatchService watchService;
+    private final Thread watcherThread;
+
+    public ProgramReloader(StandardEngine engine, File file, Listener listener) {
+        this.engine = engine;
+        this.file = file.getAbsoluteFile();
+        this.listener = listener;
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            this.file.getParentFile().toPath().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.watcherThread = new Thread(this::watch, "program-reloader-" + file.getName());
+        this.watcherThread.setDaemon(true);
+    }
+
+    public void start() {
+        watcherThread.start();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (!isOurFile(watchService.take())) continue;
+
+                //keep draining events until the file stops changing
+                WatchKey next;
+                while ((next = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    isOurFile(next);
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            //closed, the thread just ends
+        }
+    }
+
+    private boolean isOurFile(WatchKey key) {
+        boolean ours = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path changed && changed.toString().equals(file.getName())) {
+                ours = true;
+            }
+        }
+        key.reset();
+        return ours;
+    }
+
+    private void reload() {
+        //the engine loaded another file since, changes to this one are no longer its program's
+        File current = engine.getSourceFile();
+        if (current == null || !current.getAbsoluteFile().equals(file)) {
+            return;
+        }
+        try {
+            Set<String> rebuiltFunctions = engine.reloadProgramFromFile(file);
+            listener.reloaded(rebuiltFunctions);
+        } catch (RuntimeException e) {
+            listener.failed(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+        watcherThread.interrupt();
+    }
+}
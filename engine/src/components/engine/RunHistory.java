@@ -0,0 +1,574 @@
+package components.engine;
+
+import components.executor.Context;
+import components.executor.StandardContext;
+import components.variable.StandardVariable;
+import components.variable.Variable;
+import dtos.ExecutionDetails;
+import dtos.ProgramDetails;
+import dtos.RunAggregate;
+import dtos.RunHistoryDetails;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+//runs of every session on the loaded program, numbered in the order they finished.
+//runs are kept in fixed size segments of primitive columns, the inputs of a segment packed into one long array.
+//when more than the retention limit is in memory, the oldest full segments are appended to a spill file and read
+//back a segment at a time when they are displayed.
+//a run can also keep its final variable values, so showing a past run doesn't have to run it again
+public class RunHistory {
+    static final int SEGMENT_RUNS = 4096;
+    public static final int DEFAULT_RETENTION_LIMIT = 16 * SEGMENT_RUNS;
+    public static final int DEFAULT_STATE_SIZE_LIMIT = 64 * 1024;
+
+    //the variables of the program a run ran, in the order their final values are stored (y first).
+    //runs of the same expanded program share one layout
+    public record StateLayout(String programName, List<Variable> inputVariables, List<Variable> workVariables) {
+        private int slots() {
+            return 1 + inputVariables.size() + workVariables.size();
+        }
+
+        private Variable slot(int index) {
+            if (index == 0) {
+                return Variable.OUTPUT;
+            }
+            index--;
+            return index < inputVariables.size() ? inputVariables.get(index) : workVariables.get(index - inputVariables.size());
+        }
+    }
+
+    private static final class Segment {
+        //columns start small and double up to SEGMENT_RUNS, a short history (or a session's) stays small
+        private static final int INITIAL_CAPACITY = 16;
+
+        private int[] runNumbers = new int[INITIAL_CAPACITY];
+        private int[] degrees = new int[INITIAL_CAPACITY];
+        private long[] yValues = new long[INITIAL_CAPACITY];
+        private final BitSet nullYValues = new BitSet();
+        private long[] cycles = new long[INITIAL_CAPACITY];
+        //run i's inputs are inputs[inputEnds[i - 1] .. inputEnds[i])
+        private int[] inputEnds = new int[INITIAL_CAPACITY];
+        private long[] inputs = new long[INITIAL_CAPACITY];
+        //index into the history's layouts, -1 when the run's program isn't known. a run whose final state wasn't kept
+        //still has its layout, with an empty state
+        private int[] layoutIds = new int[INITIAL_CAPACITY];
+        //run i's encoded final state is states[stateEnds[i - 1] .. stateEnds[i])
+        private int[] stateEnds = new int[INITIAL_CAPACITY];
+        private byte[] states = new byte[0];
+        private int count;
+
+        private void ensureCapacity(int runs) {
+            if (runs <= runNumbers.length) {
+                return;
+            }
+            int capacity = Math.min(SEGMENT_RUNS, Math.max(runs, runNumbers.length * 2));
+            runNumbers = Arrays.copyOf(runNumbers, capacity);
+            degrees = Arrays.copyOf(degrees, capacity);
+            yValues = Arrays.copyOf(yValues, capacity);
+            cycles = Arrays.copyOf(cycles, capacity);
+            inputEnds = Arrays.copyOf(inputEnds, capacity);
+            layoutIds = Arrays.copyOf(layoutIds, capacity);
+            stateEnds = Arrays.copyOf(stateEnds, capacity);
+        }
+
+        private boolean isFull() {
+            return count == SEGMENT_RUNS;
+        }
+
+        private int inputStart(int index) {
+            return index == 0 ? 0 : inputEnds[index - 1];
+        }
+
+        private int stateStart(int index) {
+            return index == 0 ? 0 : stateEnds[index - 1];
+        }
+
+        private void add(int runNumber, int degree, List<Long> runInputs, Long yValue, long cyclesNumber, int layoutId, byte[] state) {
+            ensureCapacity(count + 1);
+            int stateStart = stateStart(count);
+            if (stateStart + state.length > states.length) {
+                states = Arrays.copyOf(states, Math.max(states.length * 2, stateStart + state.length));
+            }
+            System.arraycopy(state, 0, states, stateStart, state.length);
+            layoutIds[count] = layoutId;
+            stateEnds[count] = stateStart + state.length;
+
+            int start = inputStart(count);
+            if (start + runInputs.size() > inputs.length) {
+                inputs = Arrays.copyOf(inputs, Math.max(inputs.length * 2, start + runInputs.size()));
+            }
+            for (int i = 0; i < runInputs.size(); i++) {
+                inputs[start + i] = runInputs.get(i);
+            }
+            runNumbers[count] = runNumber;
+            degrees[count] = degree;
+            yValues[count] = yValue == null ? 0 : yValue;
+            nullYValues.set(count, yValue == null);
+            cycles[count] = cyclesNumber;
+            inputEnds[count] = start + runInputs.size();
+            count++;
+        }
+
+        private RunHistoryDetails get(int index) {
+            int start = inputStart(index);
+            Long[] runInputs = new Long[inputEnds[index] - start];
+            for (int i = 0; i < runInputs.length; i++) {
+                runInputs[i] = inputs[start + i];
+            }
+            Long yValue = nullYValues.get(index) ? null : yValues[index];
+            return new RunHistoryDetails(runNumbers[index], degrees[index], List.of(runInputs), yValue, cycles[index]);
+        }
+
+        private ByteBuffer encode() {
+            int inputCount = inputStart(count);
+            int stateBytes = stateStart(count);
+            long[] nullMask = nullYValues.toLongArray();
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * (4 + 5 * count) + Long.BYTES * (2 * count + nullMask.length + inputCount) + stateBytes);
+            buffer.putInt(count).putInt(inputCount).putInt(nullMask.length).putInt(stateBytes);
+            buffer.asIntBuffer().put(runNumbers, 0, count);
+            buffer.position(buffer.position() + Integer.BYTES * count);
+            buffer.asIntBuffer().put(degrees, 0, count);
+            buffer.position(buffer.position() + Integer.BYTES * count);
+            buffer.asLongBuffer().put(cycles, 0, count);
+            buffer.position(buffer.position() + Long.BYTES * count);
+            buffer.asIntBuffer().put(inputEnds, 0, count);
+            buffer.position(buffer.position() + Integer.BYTES * count);
+            buffer.asIntBuffer().put(layoutIds, 0, count);
+            buffer.position(buffer.position() + Integer.BYTES * count);
+            buffer.asIntBuffer().put(stateEnds, 0, count);
+            buffer.position(buffer.position() + Integer.BYTES * count);
+            buffer.asLongBuffer().put(yValues, 0, count);
+            buffer.position(buffer.position() + Long.BYTES * count);
+            buffer.asLongBuffer().put(nullMask);
+            buffer.position(buffer.position() + Long.BYTES * nullMask.length);
+            buffer.asLongBuffer().put(inputs, 0, inputCount);
+            buffer.position(buffer.position() + Long.BYTES * inputCount);
+            buffer.put(states, 0, stateBytes);
+            return buffer.rewind();
+        }
+
+        private static Segment decode(ByteBuffer buffer) {
+            Segment segment = new Segment();
+            segment.count = buffer.getInt();
+            int inputCount = buffer.getInt();
+            int nullMaskLength = buffer.getInt();
+            int stateBytes = buffer.getInt();
+            int count = segment.count;
+            segment.ensureCapacity(count);
+            buffer.asIntBuffer().get(segment.runNumbers, 0, count);
+            buffer.position(buffer.position() + Integer.BYTES * count);
+            buffer.asIntBuffer().get(segment.degrees, 0, count);
+            buffer.position(buffer.position() + Integer.BYTES * count);
+            buffer.asLongBuffer().get(segment.cycles, 0, count);
+            buffer.position(buffer.position() + Long.BYTES * count);
+            buffer.asIntBuffer().get(segment.inputEnds, 0, count);
+            buffer.position(buffer.position() + Integer.BYTES * count);
+            buffer.asIntBuffer().get(segment.layoutIds, 0, count);
+            buffer.position(buffer.position() + Integer.BYTES * count);
+            buffer.asIntBuffer().get(segment.stateEnds, 0, count);
+            buffer.position(buffer.position() + Integer.BYTES * count);
+            buffer.asLongBuffer().get(segment.yValues, 0, count);
+            buffer.position(buffer.position() + Long.BYTES * count);
+            long[] nullMask = new long[nullMaskLength];
+            buffer.asLongBuffer().get(nullMask);
+            buffer.position(buffer.position() + Long.BYTES * nullMaskLength);
+            segment.nullYValues.or(BitSet.valueOf(nullMask));
+            segment.inputs = new long[Math.max(inputCount, 1)];
+            buffer.asLongBuffer().get(segment.inputs, 0, inputCount);
+            buffer.position(buffer.position() + Long.BYTES * inputCount);
+            segment.states = new byte[stateBytes];
+            buffer.get(segment.states);
+            return segment;
+        }
+    }
+
+    private int runNumber;
+    private int retentionLimit = DEFAULT_RETENTION_LIMIT;
+    private int stateSizeLimit = DEFAULT_STATE_SIZE_LIMIT;
+    private final RunStatistics statistics = new RunStatistics();
+    private Path spillPath;
+
+    //bumped on clear(), so views taken before it can tell they are stale
+    private int generation;
+    private int size;
+    //the first spilledOffsets.size() segments are on disk, the rest are in memory
+    private List<Segment> segments;
+    private List<Long> spilledOffsets;
+    private List<StateLayout> layouts;
+    private Map<StateLayout, Integer> layoutIds;
+    private FileChannel spillChannel;
+    private long spillEnd;
+    //the last segment read back from the spill file, paging through a table reads the same segment many times
+    private int cachedSpilledIndex;
+    private Segment cachedSpilledSegment;
+
+    public RunHistory() {
+        initialize();
+    }
+
+    private void initialize() {
+        segments = new ArrayList<>();
+        spilledOffsets = new ArrayList<>();
+        layouts = new ArrayList<>();
+        layoutIds = new HashMap<>();
+        size = 0;
+        spillEnd = 0;
+        cachedSpilledIndex = -1;
+        cachedSpilledSegment = null;
+    }
+
+    //how many runs are kept in memory before the oldest ones are spilled, at least one segment is always kept
+    public synchronized void setRetentionLimit(int retentionLimit) {
+        if (retentionLimit <= 0) {
+            throw new IllegalArgumentException("Retention limit must be positive.");
+        }
+        this.retentionLimit = retentionLimit;
+        spillOldSegments();
+    }
+
+    //the largest encoded final state kept for a run in bytes, 0 keeps none. larger states are dropped and the run
+    //has to be run again to show its variables
+    public synchronized void setStateSizeLimit(int stateSizeLimit) {
+        if (stateSizeLimit < 0) {
+            throw new IllegalArgumentException("State size limit can't be negative.");
+        }
+        this.stateSizeLimit = stateSizeLimit;
+    }
+
+    //where spilled runs are written, a temporary file is used when none is set
+    public synchronized void setSpillFile(Path spillPath) {
+        if (spillChannel != null) {
+            throw new IllegalStateException("Runs were already spilled to " + this.spillPath + ".");
+        }
+        this.spillPath = spillPath;
+    }
+
+    public synchronized RunHistoryDetails record(int expansionDegree, List<Long> inputs, Long yValue, long cyclesNumber) {
+        return record(expansionDegree, inputs, yValue, cyclesNumber, null, null, -1);
+    }
+
+    //records a run with its final variable values, laid out by the variables of the program that ran.
+    //wallNanos is how long the run took, negative when it isn't known
+    public synchronized RunHistoryDetails record(int expansionDegree, List<Long> inputs, Long yValue, long cyclesNumber,
+                                                 StateLayout layout, Context finalState, long wallNanos) {
+        RunHistoryDetails details = new RunHistoryDetails(++runNumber, expansionDegree, inputs, yValue, cyclesNumber);
+        add(details, layout, finalState, wallNanos);
+        return details;
+    }
+
+    //adds a run as is, its number isn't counted towards the next recorded run
+    public synchronized void add(RunHistoryDetails details) {
+        add(details, null, null, -1);
+    }
+
+    public synchronized void add(RunHistoryDetails details, StateLayout layout, Context finalState, long wallNanos) {
+        statistics.add(layout == null ? null : layout.programName(), details.expansionDegree(), details.cyclesNumber(), wallNanos);
+        if (layout == null) {
+            append(details, -1, new byte[0]);
+            return;
+        }
+        //an encoded state is never empty, it has at least y
+        byte[] state = finalState == null ? null : encodeState(layout, finalState);
+        append(details, layoutIds.computeIfAbsent(layout, this::addLayout),
+                state == null || state.length > stateSizeLimit ? new byte[0] : state);
+    }
+
+    private int addLayout(StateLayout layout) {
+        layouts.add(layout);
+        return layouts.size() - 1;
+    }
+
+    private void append(RunHistoryDetails details, int layoutId, byte[] state) {
+        if (segments.isEmpty() || segments.get(segments.size() - 1).isFull()) {
+            segments.add(new Segment());
+        }
+        segments.get(segments.size() - 1).add(details.runNumber(), details.expansionDegree(), details.inputs(),
+                details.yValue(), details.cyclesNumber(), layoutId, state);
+        size++;
+        spillOldSegments();
+    }
+
+    private void spillOldSegments() {
+        while (segments.size() > 1 && (long) (segments.size() - 1) * SEGMENT_RUNS >= retentionLimit) {
+            Segment oldest = segments.get(0);
+            ByteBuffer encoded = oldest.encode();
+            try {
+                FileChannel channel = openSpillChannel();
+                long offset = spillEnd;
+                while (encoded.hasRemaining()) {
+                    spillEnd += channel.write(encoded, spillEnd);
+                }
+                spilledOffsets.add(offset);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can't spill the run history: " + e.getMessage(), e);
+            }
+            segments.remove(0);
+        }
+    }
+
+    private FileChannel openSpillChannel() throws IOException {
+        if (spillChannel == null) {
+            if (spillPath == null) {
+                spillPath = Files.createTempFile("run-history", ".bin");
+                spillPath.toFile().deleteOnExit();
+            }
+            spillChannel = FileChannel.open(spillPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        return spillChannel;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized RunHistoryDetails getRun(int index) {
+        Objects.checkIndex(index, size);
+        return segmentOf(index / SEGMENT_RUNS).get(index % SEGMENT_RUNS);
+    }
+
+    //one page of runs, in the order they were added
+    public synchronized List<RunHistoryDetails> getRuns(int from, int count) {
+        Objects.checkFromIndexSize(from, count, size);
+        List<RunHistoryDetails> page = new ArrayList<>(count);
+        for (int index = from; index < from + count; index++) {
+            page.add(segmentOf(index / SEGMENT_RUNS).get(index % SEGMENT_RUNS));
+        }
+        return page;
+    }
+
+    //a read-only view of the runs recorded so far. runs are materialized when they are read, so a table only pays
+    //for the rows it shows. runs recorded later aren't part of the view, and after clear() reading it fails
+    public synchronized List<RunHistoryDetails> getRuns() {
+        int viewSize = size;
+        int viewGeneration = generation;
+        return new AbstractList<>() {
+            @Override
+            public RunHistoryDetails get(int index) {
+                Objects.checkIndex(index, viewSize);
+                synchronized (RunHistory.this) {
+                    if (generation != viewGeneration) {
+                        throw new ConcurrentModificationException("The run history was cleared.");
+                    }
+                    return getRun(index);
+                }
+            }
+
+            @Override
+            public int size() {
+                return viewSize;
+            }
+        };
+    }
+
+    //the final variable values of a run, null when there is no such run or its state wasn't kept.
+    //the program details only carry the variables, the instructions aren't kept
+    public synchronized ExecutionDetails getRunResult(int runNumber) {
+        int index = indexOf(runNumber);
+        if (index < 0) {
+            return null;
+        }
+        Segment segment = segmentOf(index / SEGMENT_RUNS);
+        int offset = index % SEGMENT_RUNS;
+        int layoutId = segment.layoutIds[offset];
+        if (layoutId < 0 || segment.stateEnds[offset] == segment.stateStart(offset)) {
+            return null;
+        }
+        StateLayout layout = layouts.get(layoutId);
+        StandardContext context = decodeState(layout, segment.states, segment.stateStart(offset));
+        context.setTotalCycles(segment.cycles[offset]);
+        ProgramDetails programDetails = new ProgramDetails(layout.programName(), layout.inputVariables(),
+                layout.workVariables(), List.of(), List.of(), 0);
+        return new ExecutionDetails(programDetails, context, segment.cycles[offset]);
+    }
+
+    //the name of the program a run ran (see StateLayout), also when its final state wasn't kept. null when there is
+    //no such run or it was added without one
+    public synchronized String getRunProgramName(int runNumber) {
+        int index = indexOf(runNumber);
+        if (index < 0) {
+            return null;
+        }
+        int layoutId = segmentOf(index / SEGMENT_RUNS).layoutIds[index % SEGMENT_RUNS];
+        return layoutId < 0 ? null : layouts.get(layoutId).programName();
+    }
+
+    //recorded runs are numbered in order, so a run is usually at runNumber - 1. runs added as is may not be
+    private int indexOf(int runNumber) {
+        int guess = runNumber - 1;
+        if (guess >= 0 && guess < size && runNumberAt(guess) == runNumber) {
+            return guess;
+        }
+        for (int index = size - 1; index >= 0; index--) {
+            if (runNumberAt(index) == runNumber) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private int runNumberAt(int index) {
+        return segmentOf(index / SEGMENT_RUNS).runNumbers[index % SEGMENT_RUNS];
+    }
+
+    //slot values as zigzag varints of the difference from the previous slot, variables of one program tend to be
+    //small and close to each other so most take a single byte
+    static byte[] encodeState(StateLayout layout, Context state) {
+        int slots = layout.slots();
+        byte[] bytes = new byte[slots * 10];
+        int length = 0;
+        long previous = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            long value = state.getVariableValue(layout.slot(slot));
+            long delta = value - previous;
+            long zigzag = (delta << 1) ^ (delta >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            bytes[length++] = (byte) zigzag;
+            previous = value;
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    static StandardContext decodeState(StateLayout layout, byte[] bytes, int position) {
+        StandardContext context = new StandardContext();
+        long previous = 0;
+        for (int slot = 0; slot < layout.slots(); slot++) {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            long value = previous + ((zigzag >>> 1) ^ -(zigzag & 1));
+            context.updateVariableValue(layout.slot(slot), value);
+            previous = value;
+        }
+        return context;
+    }
+
+    private Segment segmentOf(int segmentIndex) {
+        if (segmentIndex >= spilledOffsets.size()) {
+            return segments.get(segmentIndex - spilledOffsets.size());
+        }
+        if (segmentIndex != cachedSpilledIndex) {
+            cachedSpilledSegment = Segment.decode(readSpilled(segmentIndex));
+            cachedSpilledIndex = segmentIndex;
+        }
+        return cachedSpilledSegment;
+    }
+
+    private ByteBuffer readSpilled(int segmentIndex) {
+        long start = spilledOffsets.get(segmentIndex);
+        long end = segmentIndex + 1 < spilledOffsets.size() ? spilledOffsets.get(segmentIndex + 1) : spillEnd;
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        try {
+            while (buffer.hasRemaining()) {
+                if (spillChannel.read(buffer, start + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + spillPath + ".");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read the spilled run history: " + e.getMessage(), e);
+        }
+        return buffer.flip();
+    }
+
+    //the whole history in its columnar form: settings, layouts, aggregates and then every segment as it is spilled,
+    //spilled segments are copied from the spill file without decoding them
+    public synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(runNumber);
+        out.writeInt(retentionLimit);
+        out.writeInt(stateSizeLimit);
+        out.writeInt(layouts.size());
+        for (StateLayout layout : layouts) {
+            out.writeUTF(layout.programName());
+            writeVariables(out, layout.inputVariables());
+            writeVariables(out, layout.workVariables());
+        }
+        statistics.writeTo(out);
+        int segmentCount = spilledOffsets.size() + segments.size();
+        out.writeInt(segmentCount);
+        for (int segmentIndex = 0; segmentIndex < segmentCount; segmentIndex++) {
+            ByteBuffer encoded = segmentIndex < spilledOffsets.size() ? readSpilled(segmentIndex)
+                    : segments.get(segmentIndex - spilledOffsets.size()).encode();
+            out.writeInt(encoded.remaining());
+            out.write(encoded.array(), encoded.arrayOffset() + encoded.position(), encoded.remaining());
+        }
+    }
+
+    //reads what writeTo wrote, segments past the retention limit go straight to the spill file
+    public static RunHistory readFrom(DataInputStream in) throws IOException {
+        RunHistory history = new RunHistory();
+        history.runNumber = in.readInt();
+        history.retentionLimit = in.readInt();
+        history.stateSizeLimit = in.readInt();
+        int layoutCount = in.readInt();
+        for (int i = 0; i < layoutCount; i++) {
+            StateLayout layout = new StateLayout(in.readUTF(), readVariables(in), readVariables(in));
+            history.layoutIds.put(layout, history.addLayout(layout));
+        }
+        history.statistics.readFrom(in);
+        int segmentCount = in.readInt();
+        for (int segmentIndex = 0; segmentIndex < segmentCount; segmentIndex++) {
+            Segment segment = Segment.decode(ByteBuffer.wrap(in.readNBytes(in.readInt())));
+            history.segments.add(segment);
+            history.size += segment.count;
+            history.spillOldSegments();
+        }
+        return history;
+    }
+
+    private static void writeVariables(DataOutputStream out, List<Variable> variables) throws IOException {
+        out.writeInt(variables.size());
+        for (Variable variable : variables) {
+            out.writeByte(variable.getVariableType().ordinal());
+            out.writeInt(variable.getSerialNumber());
+        }
+    }
+
+    private static List<Variable> readVariables(DataInputStream in) throws IOException {
+        StandardVariable.VariableType[] types = StandardVariable.VariableType.values();
+        Variable[] variables = new Variable[in.readInt()];
+        for (int i = 0; i < variables.length; i++) {
+            variables[i] = StandardVariable.of(types[in.readByte()], in.readInt());
+        }
+        return List.of(variables);
+    }
+
+    //per program and degree, kept up to date as runs are added
+    public List<RunAggregate> getAggregates() {
+        return statistics.getAggregates();
+    }
+
+    public synchronized boolean hasRecordedRuns() {
+        return runNumber > 0;
+    }
+
+    public synchronized void clear() {
+        if (spillChannel != null) {
+            try {
+                spillChannel.truncate(0);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can't clear the spilled run history: " + e.getMessage(), e);
+            }
+        }
+        initialize();
+        statistics.clear();
+        runNumber = 0;
+        generation++;
+    }
+}
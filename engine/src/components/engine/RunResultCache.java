@@ -0,0 +1,169 @@
+package components.engine;
+
+import dtos.RunCacheMetrics;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+//results of finished runs by (program content, degree, inputs), so running the same inputs again returns the stored
+//y, cycles and final variables without executing. the content hash covers the program and every function it reaches,
+//so a reload that leaves them unchanged keeps their results and one that changes them can't return stale ones.
+//entries are weighed by their size in bytes and the least recently used go first once the weight limit is reached.
+//the cache is split into stripes with their own lock and share of the limit, so sessions rarely wait for each other
+public final class RunResultCache {
+    public static final long DEFAULT_MAX_WEIGHT = 16L * 1024 * 1024;
+    private static final int STRIPES = 16;
+    //object headers, the key and entry fields and the map node, roughly
+    private static final int ENTRY_OVERHEAD = 160;
+
+    public static final class Key {
+        private final byte[] programHash;
+        private final int expansionDegree;
+        private final long[] inputs;
+        private final int hash;
+
+        private Key(byte[] programHash, int expansionDegree, long[] inputs) {
+            this.programHash = programHash;
+            this.expansionDegree = expansionDegree;
+            this.inputs = inputs;
+            this.hash = 31 * (31 * Arrays.hashCode(programHash) + expansionDegree) + Arrays.hashCode(inputs);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && hash == key.hash && expansionDegree == key.expansionDegree
+                    && Arrays.equals(inputs, key.inputs) && Arrays.equals(programHash, key.programHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    //the final state is kept the way the run history keeps it, y first and then the layout's variables
+    record Result(Long y, long cycles, RunHistory.StateLayout layout, byte[] state) {}
+
+    private static final class Stripe extends LinkedHashMap<Key, Result> {
+        private static final long serialVersionUID = 1L;
+
+        private long weight;
+
+        private Stripe() {
+            super(16, 0.75f, true);
+        }
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private volatile long maxWeight;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RunResultCache() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    public RunResultCache(long maxWeight) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        setMaxWeight(maxWeight);
+    }
+
+    //inputs past the program's input variables are ignored and missing ones are 0, so [3] and [3, 0] are the same run
+    //for a program with two inputs. null when an input is missing a value, such runs aren't cached
+    static Key key(byte[] programHash, int expansionDegree, Long[] input, int inputVariablesCount) {
+        long[] inputs = new long[inputVariablesCount];
+        for (int i = 0; i < inputVariablesCount && i < input.length; i++) {
+            if (input[i] == null) {
+                return null;
+            }
+            inputs[i] = input[i];
+        }
+        return new Key(programHash, expansionDegree, inputs);
+    }
+
+    //0 turns the cache off, a smaller limit evicts right away
+    public void setMaxWeight(long maxWeight) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("Cache weight limit can't be negative.");
+        }
+        this.maxWeight = maxWeight;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                evict(stripe, maxWeight / STRIPES);
+            }
+        }
+    }
+
+    Result get(Key key) {
+        Stripe stripe = stripeOf(key);
+        Result result;
+        synchronized (stripe) {
+            result = stripe.get(key);
+        }
+        (result == null ? misses : hits).increment();
+        return result;
+    }
+
+    void put(Key key, Result result) {
+        long stripeLimit = maxWeight / STRIPES;
+        long weight = weightOf(key, result);
+        if (weight > stripeLimit) {
+            return;
+        }
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            Result previous = stripe.put(key, result);
+            if (previous != null) {
+                stripe.weight -= weightOf(key, previous);
+            }
+            stripe.weight += weight;
+            evict(stripe, stripeLimit);
+        }
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+                stripe.weight = 0;
+            }
+        }
+    }
+
+    public RunCacheMetrics getMetrics() {
+        int entries = 0;
+        long weight = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                entries += stripe.size();
+                weight += stripe.weight;
+            }
+        }
+        return new RunCacheMetrics(hits.sum(), misses.sum(), evictions.sum(), entries, weight, maxWeight);
+    }
+
+    private void evict(Stripe stripe, long stripeLimit) {
+        Iterator<Map.Entry<Key, Result>> eldest = stripe.entrySet().iterator();
+        while (stripe.weight > stripeLimit && eldest.hasNext()) {
+            Map.Entry<Key, Result> entry = eldest.next();
+            stripe.weight -= weightOf(entry.getKey(), entry.getValue());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private Stripe stripeOf(Key key) {
+        int hash = key.hash ^ (key.hash >>> 16);
+        return stripes[hash & (STRIPES - 1)];
+    }
+
+    private static long weightOf(Key key, Result result) {
+        return ENTRY_OVERHEAD + 8L * key.inputs.length + result.state().length;
+    }
+}
@@ -0,0 +1,160 @@
+package components.engine;
+
+import dtos.RunAggregate;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+//count, cycles and wall time of the runs per program and degree, updated as runs are added.
+//cycles go into a log-linear histogram of fixed size, so percentiles cost the same for ten runs and ten million
+public class RunStatistics {
+    //values below 2^SUB_BUCKET_BITS get a bucket each, above that every power of two is split into that many buckets,
+    //so a bucket is at most 1/32 of its values wide
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private record Key(String programName, int expansionDegree) {}
+
+    private static final class Aggregate {
+        private final long[] buckets = new long[BUCKETS];
+        private long count;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        private long sum;
+        private long timedCount;
+        private long wallNanosSum;
+        private long wallNanosMax;
+
+        private void add(long cycles, long wallNanos) {
+            buckets[bucketOf(cycles)]++;
+            count++;
+            min = Math.min(min, cycles);
+            max = Math.max(max, cycles);
+            sum += cycles;
+            if (wallNanos >= 0) {
+                timedCount++;
+                wallNanosSum += wallNanos;
+                wallNanosMax = Math.max(wallNanosMax, wallNanos);
+            }
+        }
+
+        //the middle of the bucket holding the value at that rank, never outside the values actually seen
+        private long percentile(double fraction) {
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += buckets[bucket];
+                if (seen >= rank) {
+                    long low = lowestValueOf(bucket);
+                    long high = lowestValueOf(bucket + 1) - 1;
+                    return Math.max(min, Math.min(max, low + (high - low) / 2));
+                }
+            }
+            return max;
+        }
+
+        private RunAggregate toDetails(Key key) {
+            return new RunAggregate(key.programName(), key.expansionDegree(), count, min, max, (double) sum / count,
+                    percentile(0.50), percentile(0.95), percentile(0.99), timedCount,
+                    timedCount == 0 ? 0 : wallNanosSum / 1e6 / timedCount, wallNanosMax / 1e6);
+        }
+    }
+
+    private final Map<Key, Aggregate> aggregates = new HashMap<>();
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long lowestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        if (exponent >= Long.SIZE - 1) {
+            return Long.MAX_VALUE;
+        }
+        long subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+    }
+
+    //wallNanos is negative when the run's wall time doesn't mean anything (it was stepped through)
+    public synchronized void add(String programName, int expansionDegree, long cycles, long wallNanos) {
+        aggregates.computeIfAbsent(new Key(programName, expansionDegree), key -> new Aggregate()).add(cycles, wallNanos);
+    }
+
+    //by program name, then degree
+    public synchronized List<RunAggregate> getAggregates() {
+        List<RunAggregate> result = new ArrayList<>(aggregates.size());
+        aggregates.forEach((key, aggregate) -> result.add(aggregate.toDetails(key)));
+        result.sort(Comparator.comparing(RunAggregate::programName, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparingInt(RunAggregate::expansionDegree));
+        return result;
+    }
+
+    //only the buckets in use are written, most runs of a program fall into a handful of them
+    public synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(aggregates.size());
+        for (Map.Entry<Key, Aggregate> entry : aggregates.entrySet()) {
+            Key key = entry.getKey();
+            Aggregate aggregate = entry.getValue();
+            out.writeBoolean(key.programName() != null);
+            if (key.programName() != null) {
+                out.writeUTF(key.programName());
+            }
+            out.writeInt(key.expansionDegree());
+            out.writeLong(aggregate.count);
+            out.writeLong(aggregate.min);
+            out.writeLong(aggregate.max);
+            out.writeLong(aggregate.sum);
+            out.writeLong(aggregate.timedCount);
+            out.writeLong(aggregate.wallNanosSum);
+            out.writeLong(aggregate.wallNanosMax);
+            int used = 0;
+            for (long bucket : aggregate.buckets) {
+                if (bucket != 0) used++;
+            }
+            out.writeInt(used);
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                if (aggregate.buckets[bucket] != 0) {
+                    out.writeShort(bucket);
+                    out.writeLong(aggregate.buckets[bucket]);
+                }
+            }
+        }
+    }
+
+    //replaces the current aggregates with the ones writeTo wrote
+    public synchronized void readFrom(DataInputStream in) throws IOException {
+        aggregates.clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String programName = in.readBoolean() ? in.readUTF() : null;
+            Aggregate aggregate = new Aggregate();
+            aggregates.put(new Key(programName, in.readInt()), aggregate);
+            aggregate.count = in.readLong();
+            aggregate.min = in.readLong();
+            aggregate.max = in.readLong();
+            aggregate.sum = in.readLong();
+            aggregate.timedCount = in.readLong();
+            aggregate.wallNanosSum = in.readLong();
+            aggregate.wallNanosMax = in.readLong();
+            int used = in.readInt();
+            for (int j = 0; j < used; j++) {
+                aggregate.buckets[in.readUnsignedShort()] = in.readLong();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        aggregates.clear();
+    }
+}
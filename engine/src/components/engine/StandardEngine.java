@@ -1,292 +1,447 @@
 package components.engine;
 
-import components.executor.ProgramExecutor;
-import components.instruction.Instruction;
-import components.instruction.implementations.synthetic.QuoteInstruction;
-import components.jaxb.generated.*;
-import components.program.JaxbConversion;
+import components.program.CallGraph;
+import components.program.FunctionLibrary;
+import components.program.FunctionRegistry;
+import components.program.JaxbProgramLoader;
 import components.program.Program;
+import components.program.ProgramAnalysis;
+import components.program.ProgramDocument;
+import components.program.ProgramImage;
+import components.program.ProgramLoader;
+import components.program.ProgramValidator;
 import dtos.DebugStepDetails;
 import dtos.ExecutionDetails;
+import dtos.InstructionFilter;
 import dtos.ProgramDetails;
+import dtos.ProgramPage;
+import dtos.RunAggregate;
+import dtos.RunCacheMetrics;
 import dtos.RunHistoryDetails;
-import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.Unmarshaller;
+import dtos.RunResult;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 public class StandardEngine implements Engine {
-    final static String JAXB_XML_PACKAGE_NAME = "components.jaxb.generated";
+    private ProgramLoader loader = new JaxbProgramLoader();
+    private Path imageDirectory;
+    private FunctionLibrary functionLibrary;
+
+    //the current load, replaced as a whole and never changed in place, so sessions can share it freely
+    private volatile LoadedProgram loaded;
+    private volatile RunHistory runHistory = new RunHistory();
+    //kept across loads, its keys are program contents so results of a program that didn't change stay valid
+    private final RunResultCache resultCache = new RunResultCache();
+    //the XML the program was loaded from, null after loading a snapshot that didn't record one
+    private volatile File sourceFile;
+    //the session behind the single-user Engine methods, more can be opened with newSession()
+    private volatile EngineSession session;
+    private final EngineListeners listeners = new EngineListeners();
+
+
+    //synchronized like reloadProgramFromFile and loadState, so a load and a reload can't interleave their installs.
+    //the source file only changes once the new program is installed
+    @Override
+    public synchronized void loadProgramFromFile(File file) {
+        loadProgram(file);
+        sourceFile = file;
+        listeners.programLoaded(session.getProgramDetails());
+    }
 
-    private record FunctionData(Program program, String userString) {}
+    private void loadProgram(File file) {
+        //library files may have been edited since the last load, both the functions and the image hash follow them
+        if (functionLibrary != null) {
+            functionLibrary.refresh();
+        }
+        if (imageDirectory == null) {
+            installProgram(loadDocument(file), Map.of(), true);
+            return;
+        }
 
-    private Program program;
-    private boolean programLoaded = false;
-    private int runNumber;
-    private List<RunHistoryDetails> runHistoryDetails = new ArrayList<>();
+        //an image made from exactly this XML was validated when it was written, so it is installed as is
+        byte[] sourceHash = functionLibrary == null
+                ? ProgramImage.hashOf(file.toPath())
+                : ProgramImage.hashOf(file.toPath(), functionLibrary.getFingerprint());
+        Path imagePath = imageDirectory.resolve(ProgramImage.imageNameOf(file.toPath()));
+        ProgramImage.Contents image = ProgramImage.read(imagePath, sourceHash);
+        if (image != null) {
+            installProgram(image.document(), image.functionAnalyses(), false);
+            return;
+        }
 
-    private Map<String, FunctionData> definedFunctions = new HashMap<>();
+        installProgram(loadDocument(file), Map.of(), true);
+        try {
+            LoadedProgram current = loaded;
+            ProgramImage.write(imagePath, sourceHash, current.getMainProgram(), current.getFunctions());
+        } catch (IOException ignored) {
+            //the image only speeds up the next load, the program itself is loaded fine
+        }
+    }
 
-    private Program contextProgram;
+    private ProgramDocument loadDocument(File file) {
+        ProgramDocument document = loader.load(file);
+        return functionLibrary == null ? document : functionLibrary.addMissingFunctions(document);
+    }
 
-    private ProgramExecutor debugExecutor = null;
-    private boolean isInDebugMode = false;
-    private Program debugProgram = null;
-    private int debugExpansionDegree = 0;
+    //a program that fails to convert or validate leaves the previous one loaded, other sessions keep running on it
+    private void installProgram(ProgramDocument document, Map<String, ProgramAnalysis> knownAnalyses, boolean validate) {
+        Program mainProgram = document.mainProgram();
+        FunctionRegistry registry = buildRegistry(mainProgram, distinctFunctions(document).values(), knownAnalyses, validate);
+
+        //nothing is published until the whole set converted and validated, then the snapshot is swapped in one write
+        LoadedProgram newLoaded = new LoadedProgram(mainProgram, registry);
+        runHistory.clear();
+        EngineSession newSession = new EngineSession(newLoaded, runHistory, resultCache);
+        newSession.setListener(listeners);
+        this.session = newSession;
+        this.loaded = newLoaded;
+    }
 
+    //a later function with the same name replaces the earlier one
+    private static Map<String, FunctionRegistry.FunctionDefinition> distinctFunctions(ProgramDocument document) {
+        Map<String, FunctionRegistry.FunctionDefinition> definitions = new LinkedHashMap<>();
+        for (FunctionRegistry.FunctionDefinition definition : document.functions()) {
+            definitions.put(definition.name(), definition);
+        }
+        return definitions;
+    }
 
-    @Override
-    public void loadProgramFromFile(File file) {
-        SProgram sProgram = parseXmlFile(file);
-        try {
-            this.definedFunctions.clear();
-            runNumber = 0;
-            runHistoryDetails = new ArrayList<>();
-
-            jumpLabelsAreValid(sProgram.getSInstructions());
-
-            if (sProgram.getSFunctions() != null) {
-                for (SFunction sFunc : sProgram.getSFunctions().getSFunction()) {
-                    jumpLabelsAreValid(sFunc.getSInstructions());
-                    Program functionAsProgram = JaxbConversion.SFunctionToProgram(sFunc);
-                    // --- MODIFIED: Store the function program AND its user-string ---
-                    definedFunctions.put(sFunc.getName(), new FunctionData(functionAsProgram, sFunc.getUserString()));
-                }
+    private static FunctionRegistry buildRegistry(Program mainProgram, Collection<FunctionRegistry.FunctionDefinition> definitions,
+                                                  Map<String, ProgramAnalysis> knownAnalyses, boolean validate) {
+        //analyze every function once, callees before callers, and bind every call site to a function id
+        FunctionRegistry registry = new FunctionRegistry(new ArrayList<>(definitions), knownAnalyses);
+        registry.resolveCallSites(mainProgram);
+
+        if (validate) {
+            List<String> errors = new ProgramValidator(registry).validate(mainProgram);
+            if (!errors.isEmpty()) {
+                throw new RuntimeException("Validation Error: " + String.join(System.lineSeparator(), errors));
             }
-            program = JaxbConversion.SProgramToProgram(sProgram);
+        }
+        return registry;
+    }
+
+    //reads the file again and swaps the new version in while keeping the run history. functions whose content is
+    //unchanged and that don't call a changed function keep their Program, analysis and cached expansions, the rest
+    //are rebuilt. returns the names of the rebuilt functions. if the new version fails to load the old one stays
+    public synchronized Set<String> reloadProgramFromFile(File file) {
+        LoadedProgram current = loaded;
+        if (current == null) {
+            loadProgramFromFile(file);
+            return new LinkedHashSet<>(distinctFunctionNames(loaded.getFunctions()));
+        }
 
-            // --- NEW: Set the initial context to the main program ---
-            this.contextProgram = this.program;
+        FunctionRegistry previous = current.getFunctions();
+        Program program = current.getMainProgram();
+        ProgramDocument document = loadDocument(file);
+        Map<String, FunctionRegistry.FunctionDefinition> latest = distinctFunctions(document);
 
-            validateFunctionCalls(program, definedFunctions);
-            for (FunctionData data : definedFunctions.values()) {
-                validateFunctionCalls(data.program(), definedFunctions);
+        Set<String> changed = new HashSet<>();
+        for (FunctionRegistry.FunctionDefinition definition : latest.values()) {
+            int previousId = previous.getId(definition.name());
+            if (previousId == -1 || !Arrays.equals(contentHash(previous.getDefinitions().get(previousId)), contentHash(definition))) {
+                changed.add(definition.name());
             }
+        }
+        for (String previousName : distinctFunctionNames(previous)) {
+            if (!latest.containsKey(previousName)) {
+                changed.add(previousName);
+            }
+        }
+        Set<String> rebuilt = withTransitiveCallers(changed, latest);
+
+        List<FunctionRegistry.FunctionDefinition> definitions = new ArrayList<>(latest.size());
+        Map<String, ProgramAnalysis> knownAnalyses = new HashMap<>();
+        Set<Program> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (FunctionRegistry.FunctionDefinition definition : latest.values()) {
+            if (rebuilt.contains(definition.name())) {
+                definitions.add(definition);
+            } else {
+                FunctionRegistry.FunctionDefinition unchanged = previous.getDefinitions().get(previous.getId(definition.name()));
+                definitions.add(unchanged);
+                knownAnalyses.put(unchanged.name(), previous.getCallGraph().getAnalysis(unchanged.name()));
+                kept.add(unchanged.program());
+            }
+        }
 
-            programLoaded = true;
-        } catch (RuntimeException e) {
-            programLoaded = false;
-            definedFunctions.clear();
-            throw e;
+        Program mainProgram = document.mainProgram();
+        boolean mainUnchanged = Arrays.equals(LoadedProgram.contentHash(program, ""), LoadedProgram.contentHash(mainProgram, ""))
+                && Collections.disjoint(CallGraph.getCalledFunctionNames(program), rebuilt);
+        if (mainUnchanged) {
+            mainProgram = program;
+            kept.add(mainProgram);
         }
+
+        FunctionRegistry registry = buildRegistry(mainProgram, definitions, knownAnalyses, true);
+
+        LoadedProgram newLoaded = current.replace(mainProgram, registry, kept);
+        session.switchTo(newLoaded);
+        this.loaded = newLoaded;
+        this.sourceFile = file;
+        listeners.programLoaded(session.getProgramDetails());
+
+        Set<String> rebuiltInDocumentOrder = new LinkedHashSet<>(latest.keySet());
+        rebuiltInDocumentOrder.retainAll(rebuilt);
+        return rebuiltInDocumentOrder;
     }
 
-    private void validateFunctionCalls(Program progToValidate, Map<String, FunctionData> functions) {
-        for (Instruction inst : progToValidate.getInstructions()) {
-            if (inst instanceof QuoteInstruction quote) {
-                if (!functions.containsKey(quote.getFunctionName())) {
-                    throw new RuntimeException("Validation Error: Function '" + quote.getFunctionName() + "' is not defined.");
+    private static List<String> distinctFunctionNames(FunctionRegistry registry) {
+        List<String> names = new ArrayList<>();
+        for (FunctionRegistry.FunctionDefinition definition : registry.getDefinitions()) {
+            names.add(definition.name());
+        }
+        return names;
+    }
+
+    //the changed functions plus every function that reaches one of them through its calls
+    private static Set<String> withTransitiveCallers(Set<String> changed, Map<String, FunctionRegistry.FunctionDefinition> functions) {
+        Map<String, List<String>> callers = new HashMap<>();
+        for (FunctionRegistry.FunctionDefinition definition : functions.values()) {
+            for (String callee : CallGraph.getCalledFunctionNames(definition.program())) {
+                callers.computeIfAbsent(callee, name -> new ArrayList<>()).add(definition.name());
+            }
+        }
+
+        Set<String> affected = new HashSet<>(changed);
+        Deque<String> pending = new ArrayDeque<>(changed);
+        while (!pending.isEmpty()) {
+            for (String caller : callers.getOrDefault(pending.poll(), List.of())) {
+                if (affected.add(caller)) {
+                    pending.add(caller);
                 }
             }
         }
+        return affected;
     }
 
-    @Override
-    public boolean isProgramLoaded() {
-        return programLoaded;
+    private static byte[] contentHash(FunctionRegistry.FunctionDefinition definition) {
+        return LoadedProgram.contentHash(definition.program(), definition.userString());
     }
 
-    private SProgram parseXmlFile(File file) {
-        try {
-            InputStream inputStream = new FileInputStream(file);
-            JAXBContext jaxbContext = JAXBContext.newInstance(JAXB_XML_PACKAGE_NAME);
-            Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-            return (SProgram) unmarshaller.unmarshal(inputStream);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    //functions a program calls but doesn't define are taken from the library when it has them
+    public void setFunctionLibrary(FunctionLibrary functionLibrary) {
+        this.functionLibrary = functionLibrary;
     }
 
-    private void jumpLabelsAreValid(SInstructions instructions) {
-        Set<String> instructionLabels = new HashSet<>();
-        Set<String> jumpLabels = new HashSet<>();
-        if (instructions == null) return;
-        for (SInstruction instruction : instructions.getSInstruction()) {
-            if (instruction.getSLabel() != null) {
-                instructionLabels.add(instruction.getSLabel());
-            }
-            if (instruction.getName().contains("JUMP") || instruction.getName().contains("GOTO")) {
-                if (instruction.getSInstructionArguments() != null) {
-                    for (SInstructionArgument argument : instruction.getSInstructionArguments().getSInstructionArgument()) {
-                        if (argument.getName().contains("Label")) {
-                            jumpLabels.add(argument.getValue());
-                        }
-                    }
-                }
-            }
+    //when set, every loaded file is also stored as a binary program image in this directory and later loads
+    //of the same, unchanged file read the image instead of the XML
+    public void setProgramImageDirectory(Path imageDirectory) {
+        this.imageDirectory = imageDirectory;
+    }
+
+    //the JAXB loader is the default, the StAX loader skips the JAXB object tree for very large files
+    public void setProgramLoader(ProgramLoader loader) {
+        this.loader = loader;
+    }
+
+    public File getSourceFile() {
+        return sourceFile;
+    }
+
+    //saves the program set, the selected program and the run history, see EngineSnapshot
+    @Override
+    public synchronized void saveState(File file) throws IOException {
+        LoadedProgram current = loaded;
+        if (current == null) {
+            throw new IllegalStateException("No program is loaded.");
         }
-        for (String jumpLabel : jumpLabels) {
-            if (!instructionLabels.contains(jumpLabel) && !jumpLabel.equals("EXIT")) {
-                throw new RuntimeException("Can't jump to label " + jumpLabel);
-            }
+        EngineSnapshot.write(file.toPath(), sourceFile, current, session.getContextProgramName(), runHistory);
+    }
+
+    //replaces the program and the history with a saved snapshot, the engine is unchanged when it can't be read
+    @Override
+    public synchronized void loadState(File file) throws IOException {
+        EngineSnapshot.Contents contents = EngineSnapshot.read(file.toPath());
+        Program mainProgram = contents.document().mainProgram();
+        FunctionRegistry registry = buildRegistry(mainProgram, distinctFunctions(contents.document()).values(),
+                contents.functionAnalyses(), false);
+
+        LoadedProgram newLoaded = new LoadedProgram(mainProgram, registry);
+        EngineSession newSession = new EngineSession(newLoaded, contents.runHistory(), resultCache);
+        newSession.setContextProgram(contents.contextProgramName());
+        newSession.setListener(listeners);
+        this.runHistory = contents.runHistory();
+        this.session = newSession;
+        this.loaded = newLoaded;
+        this.sourceFile = contents.sourceFile();
+        listeners.programLoaded(newSession.getProgramDetails());
+    }
+
+    @Override
+    public void addListener(EngineListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(EngineListener listener) {
+        listeners.remove(listener);
+    }
+
+    //a new, independent session on the current program, it shares the expansion cache and run history with the others
+    public EngineSession newSession() {
+        LoadedProgram current = loaded;
+        if (current == null) {
+            throw new IllegalStateException("No program is loaded.");
         }
+        EngineSession newSession = new EngineSession(current, runHistory, resultCache);
+        //its runs go to the shared history, so listeners hear of them like of the engine's own
+        newSession.setListener(listeners);
+        return newSession;
+    }
+
+    @Override
+    public boolean isProgramLoaded() {
+        return loaded != null;
     }
 
     @Override
     public ProgramDetails getProgramDetails() {
-        if (!programLoaded || contextProgram == null) return null;
-        return new ProgramDetails(
-                contextProgram.getName(),
-                contextProgram.getInputVariables(getProgramMap()),
-                contextProgram.getWorkVariables(getProgramMap()),
-                contextProgram.getLabels(getProgramMap()),
-                contextProgram.getInstructions()
-        );
+        EngineSession current = session;
+        return current == null ? null : current.getProgramDetails();
     }
 
     @Override
     public ProgramDetails expandProgram(int expansionDegree) {
-        Program currentProgram = this.contextProgram;
-        for (int i = 0; i < expansionDegree; i++) {
-            currentProgram = currentProgram.expand(getProgramMap());
+        EngineSession current = session;
+        ProgramDetails expansion = current.expandProgram(expansionDegree);
+        listeners.expansionReady(current.getContextProgramName(), expansionDegree, expansion);
+        return expansion;
+    }
+
+    @Override
+    public ProgramDetails expandProgram(String displayName, int expansionDegree) {
+        LoadedProgram current = loaded;
+        if (current == null) {
+            throw new IllegalStateException("No program is loaded.");
         }
-        return new ProgramDetails(
-                currentProgram.getName(),
-                currentProgram.getInputVariables(getProgramMap()),
-                currentProgram.getWorkVariables(getProgramMap()),
-                currentProgram.getLabels(getProgramMap()),
-                currentProgram.getInstructions()
-        );
+        Program program = current.findProgram(displayName);
+        if (program == null) {
+            throw new IllegalArgumentException("There is no program or function named '" + displayName + "'.");
+        }
+        ProgramDetails expansion = current.createProgramDetails(current.getExpandedProgram(program, expansionDegree));
+        listeners.expansionReady(displayName, expansionDegree, expansion);
+        return expansion;
+    }
+
+    @Override
+    public ProgramPage getProgramPage(int expansionDegree, InstructionFilter filter, int offset, int limit) {
+        EngineSession current = session;
+        if (current == null) {
+            throw new IllegalStateException("No program is loaded.");
+        }
+        return current.getProgramPage(expansionDegree, filter, offset, limit);
     }
 
     @Override
     public int getProgramMaxDegree() {
-        if (!programLoaded || contextProgram == null) return 0;
-        return contextProgram.calculateMaxDegree(getProgramMap());
+        EngineSession current = session;
+        return current == null ? 0 : current.getProgramMaxDegree();
     }
 
     @Override
     public ExecutionDetails runProgram(int expansionDegree, Long... input) {
-        Program programToRun = this.contextProgram;
-        for (int i = 0; i < expansionDegree; i++) {
-            programToRun = programToRun.expand(getProgramMap());
-        }
+        return session.runProgram(expansionDegree, input);
+    }
 
-        ProgramExecutor programExecutor = new ProgramExecutor(programToRun, getProgramMap());
-        Long y = programExecutor.run(input);
+    @Override
+    public ExecutionDetails runProgram(int expansionDegree, boolean useCache, Long... input) {
+        return session.runProgram(expansionDegree, useCache, input);
+    }
 
-        runHistoryDetails.add(new RunHistoryDetails(++runNumber, expansionDegree, List.of(input), y, programExecutor.getCyclesNumber()));
+    @Override
+    public RunResult runForResult(int expansionDegree, boolean useCache, Long... input) {
+        return session.runForResult(expansionDegree, useCache, input);
+    }
 
-        return new ExecutionDetails(
-                new ProgramDetails(programToRun.getName(), programToRun.getInputVariables(getProgramMap()), programToRun.getWorkVariables(getProgramMap()), programToRun.getLabels(getProgramMap()), programToRun.getInstructions()),
-                programExecutor.getVariablesContext(),
-                programExecutor.getCyclesNumber()
-        );
+    @Override
+    public ExecutionDetails evaluate(String programName, int expansionDegree, Long... input) {
+        return session.evaluate(programName, expansionDegree, input);
     }
 
     @Override
     public List<RunHistoryDetails> getStatistics() {
-        return runHistoryDetails;
+        return runHistory.getRuns();
+    }
+
+    //the shared history, for setting its retention limit and spill file or paging through it
+    public RunHistory getRunHistory() {
+        return runHistory;
     }
 
     @Override
-    public boolean isRunning() {
-        return runNumber > 0;
+    public ExecutionDetails getRunResult(int runNumber) {
+        return runHistory.getRunResult(runNumber);
     }
 
     @Override
-    public DebugStepDetails startDebugging(int degree, Long[] inputs) {
-        if (isInDebugMode) {
-            stop();
-        }
-        this.debugExpansionDegree = degree;
-        this.debugProgram = this.contextProgram;
-        for (int i = 0; i < degree; i++) {
-            this.debugProgram = this.debugProgram.expand(getProgramMap());
-        }
+    public String getRunProgramName(int runNumber) {
+        return runHistory.getRunProgramName(runNumber);
+    }
+
+    @Override
+    public List<RunAggregate> getRunAggregates() {
+        return runHistory.getAggregates();
+    }
 
-        this.debugExecutor = new ProgramExecutor(this.debugProgram, getProgramMap());
-        this.debugExecutor.initializeDebugSession(inputs);
-        isInDebugMode = true;
+    //for setting the cache's weight limit (0 turns it off) or clearing it
+    public RunResultCache getRunResultCache() {
+        return resultCache;
+    }
 
-        return new DebugStepDetails(
-                this.debugExecutor.getVariablesContext(),
-                1,
-                this.debugExecutor.isFinished()
-        );
+    @Override
+    public RunCacheMetrics getRunCacheMetrics() {
+        return resultCache.getMetrics();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return runHistory.hasRecordedRuns();
+    }
+
+    @Override
+    public DebugStepDetails startDebugging(int degree, Long[] inputs) {
+        return session.startDebugging(degree, inputs);
     }
 
     @Override
     public DebugStepDetails stepOver() {
-        if (!isInDebugMode || this.debugExecutor == null) {
+        EngineSession current = session;
+        if (current == null) {
             throw new IllegalStateException("Not in a debug session. Cannot step over.");
         }
-        this.debugExecutor.stepOver();
-        return new DebugStepDetails(
-                this.debugExecutor.getVariablesContext(),
-                this.debugExecutor.getNextInstructionNumber(),
-                this.debugExecutor.isFinished()
-        );
+        return current.stepOver();
     }
 
     @Override
     public ExecutionDetails resume() {
-        if (!isInDebugMode || this.debugExecutor == null) {
+        EngineSession current = session;
+        if (current == null) {
             throw new IllegalStateException("Not in a debug session. Cannot resume.");
         }
-        Long y = this.debugExecutor.resume();
-        runHistoryDetails.add(new RunHistoryDetails(++runNumber, this.debugExpansionDegree, List.of(this.debugExecutor.getInitialInputs()), y, this.debugExecutor.getCyclesNumber()));
-
-        ExecutionDetails finalDetails = new ExecutionDetails(
-                new ProgramDetails(this.debugProgram.getName(), this.debugProgram.getInputVariables(getProgramMap()), this.debugProgram.getWorkVariables(getProgramMap()), this.debugProgram.getLabels(getProgramMap()), this.debugProgram.getInstructions()),
-                this.debugExecutor.getVariablesContext(),
-                this.debugExecutor.getCyclesNumber()
-        );
-        stop();
-        return finalDetails;
+        return current.resume();
     }
 
     @Override
     public void stop() {
-        this.debugExecutor = null;
-        this.debugProgram = null;
-        this.isInDebugMode = false;
-    }
-
-    @Override
-    public void addRunToHistory(RunHistoryDetails details) {
-        if (this.runHistoryDetails != null) {
-            this.runHistoryDetails.add(details);
+        EngineSession current = session;
+        if (current != null) {
+            current.stop();
         }
     }
 
     // --- NEW: Gets the list of names for the ComboBox ---
     public List<String> getDisplayableProgramNames() {
-        if (!programLoaded) return Collections.emptyList();
-        List<String> names = new ArrayList<>();
-        names.add(program.getName());
-        definedFunctions.values().stream()
-                .map(FunctionData::userString)
-                .sorted()
-                .forEach(names::add);
-        return names;
+        EngineSession current = session;
+        return current == null ? Collections.emptyList() : current.getDisplayableProgramNames();
     }
 
     public void setContextProgram(String displayName) {
-        if (displayName == null) return;
-
-        if (program != null && program.getName().equals(displayName)) {
-            this.contextProgram = this.program;
-            return;
-        }
-
-        for (FunctionData data : definedFunctions.values()) {
-            if (data.userString().equals(displayName)) {
-                this.contextProgram = data.program();
-                return;
-            }
-        }
-    }
-
-    //to convert the new FunctionData map to the old Program map for legacy method calls
-    private Map<String, Program> getProgramMap() {
-        Map<String, Program> programMap = new HashMap<>();
-        for (Map.Entry<String, FunctionData> entry : definedFunctions.entrySet()) {
-            programMap.put(entry.getKey(), entry.getValue().program());
+        EngineSession current = session;
+        if (current != null) {
+            current.setContextProgram(displayName);
         }
-        return programMap;
     }
-}
\ No newline at end of file
+}
@@ -40,4 +40,30 @@ public class ArgumentParser {
 
         return arguments;
     }
-}
\ No newline at end of file
+
+    public static boolean isFunctionCall(String argString) {
+        return argString.trim().startsWith("(");
+    }
+
+    //"(Minus,x1,(Const7))" -> "Minus"
+    public static String getFunctionName(String callString) {
+        String innerContent = getInnerContent(callString);
+        int firstComma = innerContent.indexOf(',');
+        return (firstComma == -1) ? innerContent.trim() : innerContent.substring(0, firstComma).trim();
+    }
+
+    //"(Minus,x1,(Const7))" -> ["x1", "(Const7)"]
+    public static List<String> getFunctionArguments(String callString) {
+        String innerContent = getInnerContent(callString);
+        int firstComma = innerContent.indexOf(',');
+        if (firstComma == -1) {
+            return new ArrayList<>();
+        }
+        return parseArguments(innerContent.substring(firstComma + 1));
+    }
+
+    private static String getInnerContent(String callString) {
+        String trimmed = callString.trim();
+        return trimmed.substring(1, trimmed.length() - 1);
+    }
+}
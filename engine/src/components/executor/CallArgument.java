@@ -0,0 +1,33 @@
+package components.executor;
+
+import components.program.FunctionRegistry;
+import components.variable.Variable;
+import components.variable.VariableFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//a function argument parsed once, with every nested call already bound to its function id
+public sealed interface CallArgument {
+    record VariableArgument(Variable variable) implements CallArgument {}
+
+    record FunctionCall(int functionId, String functionName, List<CallArgument> arguments) implements CallArgument {}
+
+    //remembers which registry a call site was resolved against, a new load means resolving again
+    record Resolution(FunctionRegistry registry, FunctionCall call) {}
+
+    static CallArgument parse(String argString, FunctionRegistry functions) {
+        if (!ArgumentParser.isFunctionCall(argString)) {
+            return new VariableArgument(VariableFactory.createVariableFromString(argString));
+        }
+        return resolveCall(ArgumentParser.getFunctionName(argString), ArgumentParser.getFunctionArguments(argString), functions);
+    }
+
+    static FunctionCall resolveCall(String functionName, List<String> argStrings, FunctionRegistry functions) {
+        List<CallArgument> arguments = new ArrayList<>(argStrings.size());
+        for (String argString : argStrings) {
+            arguments.add(parse(argString, functions));
+        }
+        return new FunctionCall(functions.getId(functionName), functionName, List.copyOf(arguments));
+    }
+}
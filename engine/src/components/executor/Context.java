@@ -8,6 +8,8 @@ public interface Context {
     long getVariableValue(Variable variable);
     void updateVariableValue(Variable variable, long value);
     Map<Variable, Long> getVariables();
-    int getTotalCycles();
-    void addCycles(int cyclesToAdd);
+    long getTotalCycles();
+    void addCycles(long cyclesToAdd);
+    //the current variables and cycles as they are now, safe to read from any thread while the run goes on
+    ContextSnapshot snapshot();
 }
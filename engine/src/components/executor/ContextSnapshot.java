@@ -0,0 +1,13 @@
+package components.executor;
+
+import components.variable.Variable;
+
+import java.util.Map;
+
+//the variables of a run at one point, later steps of the run don't change it
+public interface ContextSnapshot {
+    long getVariableValue(Variable variable);
+    //unmodifiable
+    Map<Variable, Long> getVariables();
+    long getTotalCycles();
+}
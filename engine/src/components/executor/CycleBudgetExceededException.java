@@ -0,0 +1,17 @@
+package components.executor;
+
+//thrown when a run uses more cycles than it was allowed, the run is abandoned
+public class CycleBudgetExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long cycleBudget;
+
+    public CycleBudgetExceededException(long cycleBudget) {
+        super("The run used more than its budget of " + cycleBudget + " cycles.");
+        this.cycleBudget = cycleBudget;
+    }
+
+    public long getCycleBudget() {
+        return cycleBudget;
+    }
+}
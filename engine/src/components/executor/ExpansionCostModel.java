@@ -0,0 +1,240 @@
+package components.executor;
+
+import components.instruction.Instruction;
+import components.instruction.implementations.synthetic.AssignmentInstruction;
+import components.instruction.implementations.synthetic.ConstantAssignmentInstruction;
+import components.instruction.implementations.synthetic.GotoLabelInstruction;
+import components.instruction.implementations.synthetic.JumpEqualConstantInstruction;
+import components.instruction.implementations.synthetic.JumpEqualFunctionInstruction;
+import components.instruction.implementations.synthetic.JumpEqualVariableInstruction;
+import components.instruction.implementations.synthetic.JumpZeroInstruction;
+import components.instruction.implementations.synthetic.QuoteInstruction;
+import components.instruction.implementations.synthetic.ZeroVariableInstruction;
+import components.label.FixedLabel;
+import components.label.FreeLabelGenerator;
+import components.label.Label;
+import components.program.FunctionRegistry;
+import components.program.Program;
+import components.variable.FreeWorkVariableGenerator;
+import components.variable.Variable;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+//executes an instruction the way its expansion to a given depth would: same effect on the program's variables, same
+//jump and exactly the cycles the expanded instructions would use for the current values. the synthetic instructions
+//whose expansions are simple loops are charged a closed form worked out from their expand(), so zeroing a variable of
+//1000 costs one step instead of 2000. anything else (quotes, function jumps, negative values or constants, x <- x whose
+//expansion zeroes x) runs its expansion one level down, each expanded instruction again through this model.
+//an instruction's expansion is made once and reused, so its work variables keep their values between executions like
+//the expanded program's do. the closed forms keep the work variables they depend on in the context as well.
+//the closed forms use exact arithmetic: an ArithmeticException means the expansion needs more cycles than a long holds
+final class ExpansionCostModel {
+    private final FunctionRegistry functions;
+    //numbers above everything the program uses, expansions take their labels and work variables from here
+    private final FreeLabelGenerator labelGenerator;
+    private final FreeWorkVariableGenerator workVariableGenerator;
+    //programs don't override equals and neither do instructions, each expanded instruction is its own site
+    private final Map<Instruction, Block> blocks = new IdentityHashMap<>();
+
+    //an instruction's expansion one level down, with the labels it defines for jumps within it
+    private record Block(List<Instruction> instructions, Map<Label, Integer> labelToIndex) {}
+
+    ExpansionCostModel(Program program, FunctionRegistry functions) {
+        this.functions = functions;
+        this.labelGenerator = new FreeLabelGenerator(program.getNextFreeLabelNumber(functions));
+        this.workVariableGenerator = new FreeWorkVariableGenerator(program.getNextFreeWorkVariableNumber(functions));
+    }
+
+    //quotes and function jumps don't pass their label on to their expansion, a jump to it goes past the end instead
+    boolean keepsLabel(Instruction instruction, int depth) {
+        return depth == 0 || !(instruction instanceof QuoteInstruction || instruction instanceof JumpEqualFunctionInstruction);
+    }
+
+    //runs the instruction as if it had been expanded depth times, returns where to go next like Instruction.execute
+    Label execute(Instruction instruction, int depth, Context context, ProgramExecutor executor) {
+        if (depth == 0 || instruction.getDegree() == 0) {
+            Label next = instruction.execute(context, functions, executor);
+            executor.chargeCycles(instruction.getCyclesNumber());
+            return next;
+        }
+
+        switch (instruction) {
+            //DEC v, JNZ v back to the DEC
+            case ZeroVariableInstruction zero -> {
+                long value = context.getVariableValue(zero.getVariable());
+                if (value >= 0) {
+                    executor.chargeCycles(zeroCycles(value, depth));
+                    context.updateVariableValue(zero.getVariable(), 0);
+                    return FixedLabel.EMPTY;
+                }
+            }
+            //INC z, JNZ z to the target
+            case GotoLabelInstruction jump -> {
+                executor.chargeCycles(gotoCycles(depth));
+                return jump.getJumpLabel();
+            }
+            case AssignmentInstruction assignment -> {
+                Variable target = assignment.getVariable();
+                Variable source = assignment.getAssignedVariable();
+                long targetValue = context.getVariableValue(target);
+                long sourceValue = context.getVariableValue(source);
+                if (!target.equals(source) && targetValue >= 0 && sourceValue >= 0) {
+                    executor.chargeCycles(assignmentCycles(targetValue, sourceValue, depth));
+                    context.updateVariableValue(target, sourceValue);
+                    return FixedLabel.EMPTY;
+                }
+            }
+            //v <- 0 and then K increments
+            case ConstantAssignmentInstruction assignment -> {
+                long value = context.getVariableValue(assignment.getVariable());
+                if (assignment.getConstantValue() >= 0 && value >= 0) {
+                    executor.chargeCycles(Math.addExact(zeroCycles(value, depth - 1), assignment.getConstantValue()));
+                    context.updateVariableValue(assignment.getVariable(), assignment.getConstantValue());
+                    return FixedLabel.EMPTY;
+                }
+            }
+            //JNZ v past a GOTO to the target
+            case JumpZeroInstruction jump -> {
+                boolean zero = context.getVariableValue(jump.getVariable()) == 0;
+                executor.chargeCycles(jumpZeroCycles(zero, depth));
+                return zero ? jump.getJumpLabel() : FixedLabel.EMPTY;
+            }
+            case JumpEqualConstantInstruction jump -> {
+                Label next = jumpEqualConstant(jump, depth, context, executor);
+                if (next != null) {
+                    return next;
+                }
+            }
+            case JumpEqualVariableInstruction jump -> {
+                Label next = jumpEqualVariable(jump, depth, context, executor);
+                if (next != null) {
+                    return next;
+                }
+            }
+            default -> {
+            }
+        }
+        return runBlock(blockOf(instruction, depth), depth - 1, context, executor);
+    }
+
+    //z <- v, then K times (IF z = 0 GOTO out, z <- z - 1), then IF z != 0 GOTO out, GOTO target.
+    //z is left at v - K when v >= K and at 0 otherwise. null when a value is negative
+    private Label jumpEqualConstant(JumpEqualConstantInstruction jump, int depth, Context context, ProgramExecutor executor) {
+        long constant = jump.getConstantValue();
+        long value = context.getVariableValue(jump.getVariable());
+        Variable copy = blockOf(jump, depth).instructions().get(0).getVariable();
+        long leftover = context.getVariableValue(copy);
+        if (constant < 0 || value < 0 || leftover < 0) {
+            return null;
+        }
+
+        long cycles = assignmentCycles(leftover, value, depth - 1);
+        if (value < constant) {
+            cycles = Math.addExact(cycles, Math.addExact(Math.multiplyExact(3, value), jumpZeroCycles(true, depth - 1)));
+        } else {
+            cycles = Math.addExact(cycles, Math.addExact(Math.multiplyExact(3, constant),
+                    2 + (value == constant ? gotoCycles(depth - 1) : 0)));
+        }
+        executor.chargeCycles(cycles);
+        context.updateVariableValue(copy, value < constant ? 0 : value - constant);
+        return value == constant ? jump.getJumpLabel() : FixedLabel.EMPTY;
+    }
+
+    //z1 <- v, z2 <- u, then both are counted down together (IF z1 = 0, IF z2 = 0, z1--, z2--, GOTO) until one is 0,
+    //the other tells whether they were equal. null when a value is negative
+    private Label jumpEqualVariable(JumpEqualVariableInstruction jump, int depth, Context context, ProgramExecutor executor) {
+        long first = context.getVariableValue(jump.getVariable());
+        long second = context.getVariableValue(jump.getVariableName());
+        List<Instruction> block = blockOf(jump, depth).instructions();
+        Variable firstCopy = block.get(0).getVariable();
+        Variable secondCopy = block.get(1).getVariable();
+        long firstLeftover = context.getVariableValue(firstCopy);
+        long secondLeftover = context.getVariableValue(secondCopy);
+        if (first < 0 || second < 0 || firstLeftover < 0 || secondLeftover < 0) {
+            return null;
+        }
+
+        long rounds = Math.min(first, second);
+        long cycles = Math.addExact(
+                Math.addExact(assignmentCycles(firstLeftover, first, depth - 1), assignmentCycles(secondLeftover, second, depth - 1)),
+                Math.multiplyExact(rounds, 6 + gotoCycles(depth - 1)));
+        if (first <= second) {
+            cycles = Math.addExact(cycles, jumpZeroCycles(true, depth - 1) + (first == second ? jumpZeroCycles(true, depth - 1) : 2));
+        } else {
+            cycles = Math.addExact(cycles, 2 + jumpZeroCycles(true, depth - 1));
+        }
+        executor.chargeCycles(cycles);
+        context.updateVariableValue(firstCopy, first - rounds);
+        context.updateVariableValue(secondCopy, second - rounds);
+        return first == second ? jump.getJumpLabel() : FixedLabel.EMPTY;
+    }
+
+    private static long gotoCycles(int depth) {
+        return depth == 0 ? 1 : 3;
+    }
+
+    private static long zeroCycles(long value, int depth) {
+        return depth == 0 ? 1 : Math.multiplyExact(3, Math.max(value, 1));
+    }
+
+    //v <- 0, IF u != 0 GOTO copy, GOTO end. copy moves u to a work variable (4 cycles a step) and back into both
+    //(5 cycles a step), the work variable ends at 0 every time
+    private static long assignmentCycles(long targetValue, long sourceValue, int depth) {
+        if (depth == 0) {
+            return 4;
+        }
+        return Math.addExact(zeroCycles(targetValue, depth - 1),
+                Math.addExact(2, sourceValue == 0 ? gotoCycles(depth - 1) : Math.multiplyExact(9, sourceValue)));
+    }
+
+    private static long jumpZeroCycles(boolean zero, int depth) {
+        if (depth == 0) {
+            return 2;
+        }
+        return 2 + (zero ? gotoCycles(depth - 1) : 0);
+    }
+
+    //the instructions of the block each run at the block's depth. a jump to a label the block doesn't define leaves it
+    private Label runBlock(Block block, int depth, Context context, ProgramExecutor executor) {
+        List<Instruction> instructions = block.instructions();
+        int index = 0;
+        while (index < instructions.size()) {
+            Label next = execute(instructions.get(index), depth, context, executor);
+            if (next == FixedLabel.EMPTY) {
+                index++;
+            } else if (next == FixedLabel.EXIT) {
+                return next;
+            } else {
+                Integer target = block.labelToIndex().get(next);
+                if (target == null) {
+                    return next;
+                }
+                index = target;
+            }
+        }
+        return FixedLabel.EMPTY;
+    }
+
+    //the instruction's own label is left to the code around the block, which finds it where the expanded program would
+    private Block blockOf(Instruction instruction, int depth) {
+        Block block = blocks.get(instruction);
+        if (block == null) {
+            List<Instruction> expanded = instruction.expand(labelGenerator, workVariableGenerator, functions);
+            Map<Label, Integer> labelToIndex = new HashMap<>();
+            for (int i = 0; i < expanded.size(); i++) {
+                Instruction inner = expanded.get(i);
+                Label label = inner.getLabel();
+                if (label != null && label != FixedLabel.EMPTY && !label.equals(instruction.getLabel())
+                        && keepsLabel(inner, depth - 1)) {
+                    labelToIndex.put(label, i);
+                }
+            }
+            block = new Block(expanded, labelToIndex);
+            blocks.put(instruction, block);
+        }
+        return block;
+    }
+}
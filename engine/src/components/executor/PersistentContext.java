@@ -0,0 +1,67 @@
+package components.executor;
+
+import components.variable.Variable;
+
+import java.util.Map;
+
+//a context whose variables are a persistent map, for runs that keep their state at every step (debug sessions).
+//a snapshot holds the current map as it is, a write only copies the path to its variable, so a step after a
+//snapshot costs a few small arrays instead of a copy of every variable like StandardContext's would
+public class PersistentContext implements Context {
+    private PersistentVariableMap variables = PersistentVariableMap.EMPTY;
+    private long totalCycles = 0;
+
+    private record TrieSnapshot(PersistentVariableMap variables, long totalCycles) implements ContextSnapshot {
+        @Override
+        public long getVariableValue(Variable variable) {
+            Long value = variables.get(variable);
+            return value == null ? 0 : value;
+        }
+
+        @Override
+        public Map<Variable, Long> getVariables() {
+            return variables;
+        }
+
+        @Override
+        public long getTotalCycles() {
+            return totalCycles;
+        }
+    }
+
+    @Override
+    public long getVariableValue(Variable variable) {
+        Long value = variables.get(variable);
+        return value == null ? 0 : value;
+    }
+
+    @Override
+    public void updateVariableValue(Variable variable, long value) {
+        variables = variables.with(variable, value);
+    }
+
+    //unmodifiable, later writes don't show in it
+    @Override
+    public Map<Variable, Long> getVariables() {
+        return variables;
+    }
+
+    @Override
+    public ContextSnapshot snapshot() {
+        return new TrieSnapshot(variables, totalCycles);
+    }
+
+    @Override
+    public long getTotalCycles() {
+        return totalCycles;
+    }
+
+    public void setTotalCycles(long cycles) {
+        this.totalCycles = cycles;
+    }
+
+    @Override
+    public void addCycles(long cyclesToAdd) {
+        this.totalCycles = Math.addExact(totalCycles, cyclesToAdd);
+    }
+}
@@ -0,0 +1,207 @@
+package components.executor;
+
+import components.variable.Variable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//an immutable map of variable values as a hash array mapped trie: each level takes 5 bits of the variable's hash and
+//keeps only the children that exist, found by counting the bits below theirs. with() copies the nodes on the path to
+//the variable and shares everything else, so a new version costs a few small arrays whatever the map's size.
+//variables whose hashes are equal end up in a collision node below the last level
+final class PersistentVariableMap extends AbstractMap<Variable, Long> {
+    static final PersistentVariableMap EMPTY = new PersistentVariableMap(new Branch(0, new Object[0]), 0);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    //a node's children are entries, branches or collisions
+    private record Branch(int bitmap, Object[] children) {}
+    private record Collision(int hash, Entry[] entries) {}
+    private record Entry(Variable variable, Long value) implements Map.Entry<Variable, Long> {
+        @Override
+        public Variable getKey() {
+            return variable;
+        }
+
+        @Override
+        public Long getValue() {
+            return value;
+        }
+
+        @Override
+        public Long setValue(Long value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> entry && variable.equals(entry.getKey()) && value.equals(entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return variable.hashCode() ^ value.hashCode();
+        }
+    }
+
+    private final Branch root;
+    private final int size;
+
+    private PersistentVariableMap(Branch root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @Override
+    public Long get(Object key) {
+        if (!(key instanceof Variable variable)) {
+            return null;
+        }
+        int hash = variable.hashCode();
+        Object node = root;
+        int shift = 0;
+        while (true) {
+            switch (node) {
+                case Branch branch -> {
+                    int bit = 1 << ((hash >>> shift) & MASK);
+                    if ((branch.bitmap() & bit) == 0) {
+                        return null;
+                    }
+                    node = branch.children()[Integer.bitCount(branch.bitmap() & (bit - 1))];
+                    shift += BITS;
+                }
+                case Entry entry -> {
+                    return entry.variable().equals(variable) ? entry.value() : null;
+                }
+                case Collision collision -> {
+                    for (Entry entry : collision.entries()) {
+                        if (entry.variable().equals(variable)) {
+                            return entry.value();
+                        }
+                    }
+                    return null;
+                }
+                default -> throw new IllegalStateException("Unexpected node " + node);
+            }
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    //the map with the variable set to the value, this one stays as it is
+    PersistentVariableMap with(Variable variable, long value) {
+        Entry entry = new Entry(variable, value);
+        boolean[] added = new boolean[1];
+        Branch newRoot = (Branch) with(root, entry, variable.hashCode(), 0, added);
+        return newRoot == root ? this : new PersistentVariableMap(newRoot, added[0] ? size + 1 : size);
+    }
+
+    //returns the node itself when the variable already has the value
+    private static Object with(Object node, Entry entry, int hash, int shift, boolean[] added) {
+        return switch (node) {
+            case Branch branch -> {
+                int bit = 1 << ((hash >>> shift) & MASK);
+                int index = Integer.bitCount(branch.bitmap() & (bit - 1));
+                Object[] children = branch.children();
+                if ((branch.bitmap() & bit) == 0) {
+                    added[0] = true;
+                    Object[] inserted = new Object[children.length + 1];
+                    System.arraycopy(children, 0, inserted, 0, index);
+                    inserted[index] = entry;
+                    System.arraycopy(children, index, inserted, index + 1, children.length - index);
+                    yield new Branch(branch.bitmap() | bit, inserted);
+                }
+                Object child = children[index];
+                Object newChild = child instanceof Entry existing && !existing.variable().equals(entry.variable())
+                        ? split(existing, entry, hash, shift + BITS, added)
+                        : with(child, entry, hash, shift + BITS, added);
+                if (newChild == child) {
+                    yield branch;
+                }
+                Object[] replaced = children.clone();
+                replaced[index] = newChild;
+                yield new Branch(branch.bitmap(), replaced);
+            }
+            case Entry existing -> existing.value().equals(entry.value()) ? existing : entry;
+            case Collision collision -> {
+                Entry[] entries = collision.entries();
+                for (int i = 0; i < entries.length; i++) {
+                    if (entries[i].variable().equals(entry.variable())) {
+                        if (entries[i].value().equals(entry.value())) {
+                            yield collision;
+                        }
+                        Entry[] replaced = entries.clone();
+                        replaced[i] = entry;
+                        yield new Collision(collision.hash(), replaced);
+                    }
+                }
+                added[0] = true;
+                Entry[] appended = Arrays.copyOf(entries, entries.length + 1);
+                appended[entries.length] = entry;
+                yield new Collision(collision.hash(), appended);
+            }
+            default -> throw new IllegalStateException("Unexpected node " + node);
+        };
+    }
+
+    //the node holding two variables that shared a slot up to this level
+    private static Object split(Entry existing, Entry entry, int hash, int shift, boolean[] added) {
+        added[0] = true;
+        int existingHash = existing.variable().hashCode();
+        if (shift >= Integer.SIZE) {
+            return new Collision(hash, new Entry[]{existing, entry});
+        }
+        int existingSlot = (existingHash >>> shift) & MASK;
+        int slot = (hash >>> shift) & MASK;
+        if (existingSlot == slot) {
+            return new Branch(1 << slot, new Object[]{split(existing, entry, hash, shift + BITS, added)});
+        }
+        Object[] children = existingSlot < slot ? new Object[]{existing, entry} : new Object[]{entry, existing};
+        return new Branch((1 << existingSlot) | (1 << slot), children);
+    }
+
+    @Override
+    public Set<Map.Entry<Variable, Long>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<Variable, Long>> iterator() {
+                List<Map.Entry<Variable, Long>> entries = new ArrayList<>(size);
+                collect(root, entries);
+                return entries.iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static void collect(Object node, List<Map.Entry<Variable, Long>> entries) {
+        switch (node) {
+            case Branch branch -> {
+                for (Object child : branch.children()) {
+                    collect(child, entries);
+                }
+            }
+            case Entry entry -> entries.add(entry);
+            case Collision collision -> entries.addAll(Arrays.asList(collision.entries()));
+            default -> throw new IllegalStateException("Unexpected node " + node);
+        }
+    }
+}
@@ -3,37 +3,48 @@ package components.executor;
 import components.instruction.Instruction;
 import components.label.FixedLabel;
 import components.label.Label;
+import components.program.FunctionRegistry;
 import components.program.Program;
 import components.variable.Variable;
-import components.variable.VariableFactory;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class ProgramExecutor implements Executor {
     private final Program program;
-    private final Map<String, Program> definedFunctions;
+    private final FunctionRegistry definedFunctions;
     private Context context;
-    private int cyclesNumber;
+    private long cyclesNumber;
+    //cycles this run (called functions included) may use before it is stopped
+    private long cycleBudget = Long.MAX_VALUE;
+    //when set, instructions are charged the cycles of their expansion to costDegree instead of their own
+    private ExpansionCostModel costModel;
+    private int costDegree;
+    //the expanded program's inputs, its analysis also finds inputs that only appear in function arguments
+    private List<Variable> costInputVariables;
+    //a debug session's context is snapshotted after every step, see PersistentContext
+    private boolean persistentContext;
 
     private int instructionPointer;
     private boolean isFinished;
     private Long[] initialInputs;
     private final Map<Label, Integer> labelToIndex = new HashMap<>();
 
-    public ProgramExecutor(Program program, Map<String, Program> definedFunctions) {
+    public ProgramExecutor(Program program, FunctionRegistry definedFunctions) {
         this.program = program;
         this.definedFunctions = definedFunctions;
         precomputeLabelLocations();
     }
 
     private void precomputeLabelLocations() {
+        labelToIndex.clear();
         List<Instruction> instructions = program.getInstructions();
         for (int i = 0; i < instructions.size(); i++) {
-            Label label = instructions.get(i).getLabel();
-            if (label != null && label != FixedLabel.EMPTY) {
+            Instruction instruction = instructions.get(i);
+            Label label = instruction.getLabel();
+            if (label != null && label != FixedLabel.EMPTY
+                    && (costModel == null || costModel.keepsLabel(instruction, costDegree))) {
                 labelToIndex.put(label, i);
             }
         }
@@ -45,8 +56,26 @@ public class ProgramExecutor implements Executor {
         return resume();
     }
 
+    public void setCycleBudget(long cycleBudget) {
+        this.cycleBudget = cycleBudget;
+    }
+
+    //runs the program as it is, but with the y and cycle count its expansion to this degree would have. the inputs go
+    //to the expanded program's input variables. see ExpansionCostModel, called functions still run at degree 0 the way
+    //they would in the expanded program
+    public void setCostDegree(int costDegree, List<Variable> expandedInputVariables) {
+        this.costModel = costDegree == 0 ? null : new ExpansionCostModel(program, definedFunctions);
+        this.costDegree = costDegree;
+        this.costInputVariables = costDegree == 0 ? null : expandedInputVariables;
+        precomputeLabelLocations();
+    }
+
+    public void setPersistentContext(boolean persistentContext) {
+        this.persistentContext = persistentContext;
+    }
+
     public void initializeDebugSession(Long[] inputs) {
-        this.context = new StandardContext();
+        this.context = persistentContext ? new PersistentContext() : new StandardContext();
         this.initialInputs = inputs;
         this.cyclesNumber = 0;
         this.instructionPointer = 0;
@@ -62,8 +91,18 @@ public class ProgramExecutor implements Executor {
             return;
         }
         Instruction currentInstruction = instructions.get(instructionPointer);
-        Label nextInstructionLabel = currentInstruction.execute(context, this.definedFunctions, this);
-        cyclesNumber += currentInstruction.getCyclesNumber();
+        Label nextInstructionLabel;
+        if (costModel == null) {
+            nextInstructionLabel = currentInstruction.execute(context, this.definedFunctions, this);
+            chargeCycles(currentInstruction.getCyclesNumber());
+        } else {
+            try {
+                nextInstructionLabel = costModel.execute(currentInstruction, costDegree, context, this);
+            } catch (ArithmeticException e) {
+                //the expansion would run for more cycles than a long holds
+                throw new CycleBudgetExceededException(cycleBudget);
+            }
+        }
         if (nextInstructionLabel == FixedLabel.EXIT) {
             isFinished = true;
         } else if (nextInstructionLabel == FixedLabel.EMPTY) {
@@ -74,46 +113,59 @@ public class ProgramExecutor implements Executor {
     }
 
     public Long resume() {
+        //the persistent map only pays for itself while every step is snapshotted, the rest of the run goes on a
+        //plain map: one copy instead of a path copy per write
+        if (context instanceof PersistentContext persistent && !isFinished) {
+            context = new StandardContext(persistent.getVariables(), persistent.getTotalCycles());
+        }
         while (!isFinished) {
             stepOver();
         }
         return context.getVariableValue(Variable.OUTPUT);
     }
 
-    public Long evaluateArgument(String argString) {
-        argString = argString.trim();
-        if (!argString.startsWith("(")) {
-            Variable argVar = VariableFactory.createVariableFromString(argString);
-            return context.getVariableValue(argVar);
-        }
-        String innerContent = argString.substring(1, argString.length() - 1);
-        int firstComma = innerContent.indexOf(',');
-        String functionName;
-        List<String> subArguments;
-        if (firstComma == -1) {
-            functionName = innerContent;
-            subArguments = new ArrayList<>();
-        } else {
-            functionName = innerContent.substring(0, firstComma).trim();
-            String subArgsString = innerContent.substring(firstComma + 1);
-            subArguments = ArgumentParser.parseArguments(subArgsString);
+    public Long evaluateArgument(CallArgument argument) {
+        return switch (argument) {
+            case CallArgument.VariableArgument variableArgument -> context.getVariableValue(variableArgument.variable());
+            case CallArgument.FunctionCall call -> callFunction(call);
+        };
+    }
+
+    //runs a call site that was bound to its function id at load time, the callee's cycles are charged to this executor
+    public Long callFunction(CallArgument.FunctionCall call) {
+        if (call.functionId() == -1) {
+            throw new IllegalStateException("Function '" + call.functionName() + "' is not defined.");
         }
-        Program functionToExecute = definedFunctions.get(functionName);
-        if (functionToExecute == null) {
-            throw new IllegalStateException("Function '" + functionName + "' is not defined.");
+        List<CallArgument> arguments = call.arguments();
+        Long[] subProgramInputs = new Long[arguments.size()];
+        for (int i = 0; i < arguments.size(); i++) {
+            subProgramInputs[i] = evaluateArgument(arguments.get(i));
         }
-        Long[] subProgramInputs = new Long[subArguments.size()];
-        for (int i = 0; i < subArguments.size(); i++) {
-            subProgramInputs[i] = this.evaluateArgument(subArguments.get(i));
+        ProgramExecutor subExecutor = new ProgramExecutor(definedFunctions.get(call.functionId()), this.definedFunctions);
+        //the callee may only use what is left of this run's budget
+        subExecutor.setCycleBudget(cycleBudget == Long.MAX_VALUE ? Long.MAX_VALUE : cycleBudget - cyclesNumber);
+        Long result;
+        try {
+            result = subExecutor.run(subProgramInputs);
+        } catch (CycleBudgetExceededException e) {
+            //reported with the budget of the whole run, not what was left of it for the call
+            throw new CycleBudgetExceededException(cycleBudget);
         }
-        ProgramExecutor subExecutor = new ProgramExecutor(functionToExecute, this.definedFunctions);
-        Long result = subExecutor.run(subProgramInputs);
         this.addCycles(subExecutor.getCyclesNumber());
         return result;
     }
 
-    public void addCycles(int cyclesToAdd) {
-        this.cyclesNumber += cyclesToAdd;
+    public void addCycles(long cyclesToAdd) {
+        this.cyclesNumber = Math.addExact(cyclesNumber, cyclesToAdd);
+    }
+
+    //adds the cycles of an executed instruction and stops the run once it is over its budget
+    void chargeCycles(long cycles) {
+        //the count never passes the budget, so the difference can't overflow
+        if (cycles > cycleBudget - cyclesNumber) {
+            throw new CycleBudgetExceededException(cycleBudget);
+        }
+        cyclesNumber += cycles;
     }
 
     public boolean isFinished() { return isFinished; }
@@ -124,16 +176,18 @@ public class ProgramExecutor implements Executor {
     public Context getVariablesContext() {
         if (context instanceof StandardContext) {
             ((StandardContext) context).setTotalCycles(this.cyclesNumber);
+        } else if (context instanceof PersistentContext) {
+            ((PersistentContext) context).setTotalCycles(this.cyclesNumber);
         }
         return context;
     }
 
-    public int getCyclesNumber() { return cyclesNumber; }
+    public long getCyclesNumber() { return cyclesNumber; }
 
     private void initializeInputVariables(Context context, Long... input) {
         // --- THIS IS THE FIX ---
         // The definedFunctions map is now passed to getInputVariables to satisfy the interface.
-        List<Variable> inputVariables = program.getInputVariables(this.definedFunctions);
+        List<Variable> inputVariables = costInputVariables != null ? costInputVariables : program.getInputVariables(this.definedFunctions);
         int i = 0;
 
         while (i < inputVariables.size() && i < input.length) {
@@ -2,13 +2,42 @@ package components.executor;
 
 import components.variable.Variable;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 public class StandardContext implements Context {
 
-    private final Map<Variable, Long> variables = new HashMap<>();
-    private int totalCycles = 0; // Field to hold the cycle count
+    private Map<Variable, Long> variables = new HashMap<>();
+    private long totalCycles = 0; // Field to hold the cycle count
+    //set while a snapshot holds the map, the next write copies it first
+    private boolean variablesShared = false;
+
+    public StandardContext() {
+    }
+
+    //a context that starts from these values, e.g. a debug session's state when it is resumed
+    public StandardContext(Map<Variable, Long> variables, long totalCycles) {
+        this.variables = new HashMap<>(variables);
+        this.totalCycles = totalCycles;
+    }
+
+    private record MapSnapshot(Map<Variable, Long> variables, long totalCycles) implements ContextSnapshot {
+        @Override
+        public long getVariableValue(Variable variable) {
+            return variables.getOrDefault(variable, 0L);
+        }
+
+        @Override
+        public Map<Variable, Long> getVariables() {
+            return variables;
+        }
+
+        @Override
+        public long getTotalCycles() {
+            return totalCycles;
+        }
+    }
 
     @Override
     public long getVariableValue(Variable variable) {
@@ -18,27 +47,39 @@ public class StandardContext implements Context {
 
     @Override
     public void updateVariableValue(Variable variable, long value) {
+        if (variablesShared) {
+            variables = new HashMap<>(variables);
+            variablesShared = false;
+        }
         variables.put(variable, value);
     }
 
+    //the live map, for reading
     @Override
     public Map<Variable, Long> getVariables() {
         return variables;
     }
 
+    //taking one is free, the copy is made by the next write and only if there is one
+    @Override
+    public ContextSnapshot snapshot() {
+        variablesShared = true;
+        return new MapSnapshot(Collections.unmodifiableMap(variables), totalCycles);
+    }
+
 
     @Override
-    public int getTotalCycles() {
+    public long getTotalCycles() {
         return totalCycles;
     }
 
 
-    public void setTotalCycles(int cycles) {
+    public void setTotalCycles(long cycles) {
         this.totalCycles = cycles;
     }
 
     @Override
-    public void addCycles(int cyclesToAdd) {
-        this.totalCycles += cyclesToAdd;
+    public void addCycles(long cyclesToAdd) {
+        this.totalCycles = Math.addExact(totalCycles, cyclesToAdd);
     }
 }
\ No newline at end of file
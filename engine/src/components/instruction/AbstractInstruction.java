@@ -56,6 +56,11 @@ public abstract class AbstractInstruction implements Instruction {
         return variable;
     }
 
+    @Override
+    public String getStringInstruction() {
+        return getInstructionDisplay(getCommandText());
+    }
+
     public String getInstructionDisplay(String command) {
         return String.format("#%d (%c) [ %-3s ] %s (%d)", instructionNumber,
                 instructionSemantic.getInstructionTypeChar(), label.getStringLabel(), command, instructionSemantic.getCyclesNumber());
@@ -66,6 +71,11 @@ public abstract class AbstractInstruction implements Instruction {
         return List.of(getLabel());
     }
 
+    @Override
+    public Label getJumpLabel() {
+        return FixedLabel.EMPTY;
+    }
+
     @Override
     public List<Variable> getAllInvolvedVariables() {
         return List.of(getVariable());
@@ -4,6 +4,7 @@ import components.executor.Context;
 import components.executor.ProgramExecutor;
 import components.label.FreeLabelGenerator;
 import components.label.Label;
+import components.program.FunctionRegistry;
 import components.program.Program;
 import components.variable.FreeWorkVariableGenerator;
 import components.variable.Variable;
@@ -14,16 +15,21 @@ import java.util.Map;
 
 public interface Instruction extends Serializable {
     String getName();
-    Label execute(Context context, Map<String, Program> functions, ProgramExecutor executor);
+    Label execute(Context context, FunctionRegistry functions, ProgramExecutor executor);
     int getCyclesNumber();
     int getDegree();
     Label getLabel();
     List<Label> getAllInvolvedLabels();
+    //the label this instruction may jump to, FixedLabel.EMPTY for instructions that never jump
+    Label getJumpLabel();
     // List<Instruction> getInstructions();
     Variable getVariable();
     List<Variable> getAllInvolvedVariables();
+    //the full display line, "#3 (S) [ L1  ] x1 <- x2 (4)"
     String getStringInstruction();
-    List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, Map<String, Program> functions);
+    //only the command part of the display line, "x1 <- x2"
+    String getCommandText();
+    List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, FunctionRegistry functions);
     void setInstructionNumber(int instructionNumber);
     boolean hasAncientInstruction();
     Instruction getAncientInstruction();
@@ -34,7 +40,7 @@ public interface Instruction extends Serializable {
     Instruction rename(Map<Variable, Variable> varMap, Map<Label, Label> labelMap);
 
 
-    int getDegree(Map<String, Program> functions);
+    int getDegree(FunctionRegistry functions);
 
 
 
@@ -3,6 +3,7 @@ package components.instruction;
 import components.executor.ArgumentParser;
 import components.instruction.implementations.basic.*;
 import components.instruction.implementations.synthetic.*;
+import components.jaxb.generated.SInstructionArgument;
 import components.jaxb.generated.SInstructionArguments;
 import components.label.Label;
 import components.label.LabelFactory;
@@ -10,10 +11,17 @@ import components.variable.Variable;
 import components.variable.VariableFactory;
 
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class InstructionFactory {
 
     public static Instruction createInstruction(String instructionName, Label label, Variable variable, SInstructionArguments sArgs) {
+        return createInstruction(instructionName, label, variable, argumentsToMap(sArgs));
+    }
+
+    //for loaders that skip the JAXB tree, sArgs should compare names ignoring case like argumentsToMap does
+    public static Instruction createInstruction(String instructionName, Label label, Variable variable, Map<String, String> sArgs) {
 
         switch (instructionName.toUpperCase()) {
             //basic instructions
@@ -82,14 +90,25 @@ public class InstructionFactory {
         }
     }
 
-    private static String findArgumentValue(SInstructionArguments sArgs, String name) {
-        if (sArgs == null || sArgs.getSInstructionArgument().isEmpty()) {
+    //the first argument with a given name wins, as before
+    public static Map<String, String> argumentsToMap(SInstructionArguments sArgs) {
+        Map<String, String> arguments = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (sArgs != null) {
+            for (SInstructionArgument argument : sArgs.getSInstructionArgument()) {
+                arguments.putIfAbsent(argument.getName(), argument.getValue());
+            }
+        }
+        return arguments;
+    }
+
+    private static String findArgumentValue(Map<String, String> sArgs, String name) {
+        if (sArgs == null || sArgs.isEmpty()) {
             throw new IllegalArgumentException("Instruction is missing required arguments.");
         }
-        return sArgs.getSInstructionArgument().stream()
-                .filter(arg -> arg.getName().equalsIgnoreCase(name))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Missing required argument named: '" + name + "'"))
-                .getValue();
+        String value = sArgs.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing required argument named: '" + name + "'");
+        }
+        return value;
     }
-}
\ No newline at end of file
+}
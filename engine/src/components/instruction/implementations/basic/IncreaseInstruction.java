@@ -8,6 +8,7 @@ import components.instruction.InstructionSemantic;
 import components.label.FixedLabel;
 import components.label.FreeLabelGenerator;
 import components.label.Label;
+import components.program.FunctionRegistry;
 import components.program.Program; // Add import
 import components.variable.FreeWorkVariableGenerator;
 import components.variable.Variable;
@@ -26,7 +27,7 @@ public class IncreaseInstruction extends AbstractInstruction {
     }
 
     @Override
-    public Label execute(Context context, Map<String, Program> functions, ProgramExecutor executor) {
+    public Label execute(Context context, FunctionRegistry functions, ProgramExecutor executor) {
         long value = context.getVariableValue(getVariable());
 
         value++;
@@ -36,15 +37,13 @@ public class IncreaseInstruction extends AbstractInstruction {
     }
 
     @Override
-    public String getStringInstruction() {
-        String variable = this.getVariable().getStringVariable();
-        String command = String.format("%s <- %s + 1", variable, variable);
-
-        return getInstructionDisplay(command);
+    public String getCommandText() {
+        String variable = getVariable().getStringVariable();
+        return variable + " <- " + variable + " + 1";
     }
 
     @Override
-    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, Map<String, Program> functions) { // UPDATED SIGNATURE
+    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, FunctionRegistry functions) { // UPDATED SIGNATURE
         Instruction newInstruction = new IncreaseInstruction(getVariable(), getLabel());
         newInstruction.setAncientInstruction(getAncientInstruction());
         return List.of(newInstruction);
@@ -59,7 +58,7 @@ public class IncreaseInstruction extends AbstractInstruction {
     }
 
     @Override
-    public int getDegree(Map<String, Program> functions) {
+    public int getDegree(FunctionRegistry functions) {
         return 0;
     }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import components.instruction.InstructionSemantic;
 import components.label.FixedLabel;
 import components.label.FreeLabelGenerator;
 import components.label.Label;
+import components.program.FunctionRegistry;
 import components.program.Program; // Add import
 import components.variable.FreeWorkVariableGenerator;
 import components.variable.Variable;
@@ -28,7 +29,7 @@ public class JumpNotZeroInstruction extends AbstractInstruction {
     }
 
     @Override
-    public Label execute(Context context, Map<String, Program> functions, ProgramExecutor executor) {
+    public Label execute(Context context, FunctionRegistry functions, ProgramExecutor executor) {
         long value = context.getVariableValue(getVariable());
 
         if (value != 0) {
@@ -39,15 +40,12 @@ public class JumpNotZeroInstruction extends AbstractInstruction {
     }
 
     @Override
-    public String getStringInstruction() {
-        String variable = this.getVariable().getStringVariable();
-        String command = String.format("IF %s != 0 GOTO %s", variable, JNZLabel.getStringLabel());
-
-        return getInstructionDisplay(command);
+    public String getCommandText() {
+        return "IF " + getVariable().getStringVariable() + " != 0 GOTO " + JNZLabel.getStringLabel();
     }
 
     @Override
-    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, Map<String, Program> functions) { // UPDATED SIGNATURE
+    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, FunctionRegistry functions) { // UPDATED SIGNATURE
         Instruction newInstruction = new JumpNotZeroInstruction(getVariable(), JNZLabel, getLabel());
         newInstruction.setAncientInstruction(getAncientInstruction());
         return List.of(newInstruction);
@@ -58,6 +56,11 @@ public class JumpNotZeroInstruction extends AbstractInstruction {
         return List.of(getLabel(), JNZLabel);
     }
 
+    @Override
+    public Label getJumpLabel() {
+        return JNZLabel;
+    }
+
     @Override
     public Instruction rename(Map<Variable, Variable> varMap, Map<Label, Label> labelMap) {
         Variable newVar = varMap.getOrDefault(getVariable(), getVariable());
@@ -67,7 +70,7 @@ public class JumpNotZeroInstruction extends AbstractInstruction {
     }
 
     @Override
-    public int getDegree(Map<String, Program> functions) {
+    public int getDegree(FunctionRegistry functions) {
         return 0;
     }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import components.instruction.InstructionSemantic;
 import components.label.FixedLabel;
 import components.label.FreeLabelGenerator;
 import components.label.Label;
+import components.program.FunctionRegistry;
 import components.program.Program; // Add import
 import components.variable.FreeWorkVariableGenerator;
 import components.variable.Variable;
@@ -26,7 +27,7 @@ public class NeutralInstruction extends AbstractInstruction {
     }
 
     @Override
-    public Label execute(Context context, Map<String, Program> functions, ProgramExecutor executor) {
+    public Label execute(Context context, FunctionRegistry functions, ProgramExecutor executor) {
         long value = context.getVariableValue(getVariable());
 
         context.updateVariableValue(getVariable(), value);
@@ -35,15 +36,13 @@ public class NeutralInstruction extends AbstractInstruction {
     }
 
     @Override
-    public String getStringInstruction() {
-        String variable = this.getVariable().getStringVariable();
-        String command = String.format("%s <- %s", variable, variable);
-
-        return getInstructionDisplay(command);
+    public String getCommandText() {
+        String variable = getVariable().getStringVariable();
+        return variable + " <- " + variable;
     }
 
     @Override
-    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, Map<String, Program> functions) { // UPDATED SIGNATURE
+    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, FunctionRegistry functions) { // UPDATED SIGNATURE
         Instruction newInstruction = new NeutralInstruction(getVariable(), getLabel());
         newInstruction.setAncientInstruction(getAncientInstruction());
         return List.of(newInstruction);
@@ -57,7 +56,7 @@ public class NeutralInstruction extends AbstractInstruction {
     }
 
     @Override
-    public int getDegree(Map<String, Program> functions) {
+    public int getDegree(FunctionRegistry functions) {
         return 0;
     }
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ import components.instruction.implementations.basic.NeutralInstruction;
 import components.label.FixedLabel;
 import components.label.FreeLabelGenerator;
 import components.label.Label;
+import components.program.FunctionRegistry;
 import components.program.Program; // Add import
 import components.variable.FreeWorkVariableGenerator;
 import components.variable.StandardVariable;
@@ -33,18 +34,18 @@ public class AssignmentInstruction extends AbstractInstruction {
         this.assignedVariable = assignedVariable;
     }
 
+    public Variable getAssignedVariable() { return assignedVariable; }
+
     @Override
-    public Label execute(Context context, Map<String, Program> functions, ProgramExecutor executor) {
+    public Label execute(Context context, FunctionRegistry functions, ProgramExecutor executor) {
         long value = context.getVariableValue(assignedVariable);
         context.updateVariableValue(getVariable(), value);
         return FixedLabel.EMPTY;
     }
 
     @Override
-    public String getStringInstruction() {
-        String variable = this.getVariable().getStringVariable();
-        String command = String.format("%s <- %s", variable, assignedVariable.getStringVariable());
-        return getInstructionDisplay(command);
+    public String getCommandText() {
+        return getVariable().getStringVariable() + " <- " + assignedVariable.getStringVariable();
     }
 
     @Override
@@ -53,7 +54,7 @@ public class AssignmentInstruction extends AbstractInstruction {
     }
 
     @Override
-    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, Map<String, Program> functions) { // UPDATED SIGNATURE
+    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, FunctionRegistry functions) { // UPDATED SIGNATURE
         List<Instruction> instructions = new ArrayList<>();
         Variable v = this.getVariable();
         Variable z1 = workVariableGenerator.getNextFreeWorkVariable();
@@ -91,7 +92,7 @@ public class AssignmentInstruction extends AbstractInstruction {
 
 
     @Override
-    public int getDegree(Map<String, Program> functions) {
+    public int getDegree(FunctionRegistry functions) {
         return 1;
     }
 }
\ No newline at end of file
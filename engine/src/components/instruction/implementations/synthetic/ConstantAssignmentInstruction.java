@@ -9,6 +9,7 @@ import components.instruction.implementations.basic.IncreaseInstruction;
 import components.label.FixedLabel;
 import components.label.FreeLabelGenerator;
 import components.label.Label;
+import components.program.FunctionRegistry;
 import components.program.Program; // Add import
 import components.variable.FreeWorkVariableGenerator;
 import components.variable.Variable;
@@ -29,21 +30,21 @@ public class ConstantAssignmentInstruction extends AbstractInstruction {
         this.constantValue = constantValue;
     }
 
+    public int getConstantValue() { return constantValue; }
+
     @Override
-    public Label execute(Context context, Map<String, Program> functions, ProgramExecutor executor) {
+    public Label execute(Context context, FunctionRegistry functions, ProgramExecutor executor) {
         context.updateVariableValue(getVariable(), constantValue);
         return FixedLabel.EMPTY;
     }
 
     @Override
-    public String getStringInstruction() {
-        String variable = this.getVariable().getStringVariable();
-        String command = String.format("%s <- %d", variable, constantValue);
-        return getInstructionDisplay(command);
+    public String getCommandText() {
+        return getVariable().getStringVariable() + " <- " + constantValue;
     }
 
     @Override
-    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, Map<String, Program> functions) { // UPDATED SIGNATURE
+    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, FunctionRegistry functions) { // UPDATED SIGNATURE
         List<Instruction> instructions = new ArrayList<>();
         Variable v =  this.getVariable();
         Label l = this.getLabel();
@@ -69,7 +70,7 @@ public class ConstantAssignmentInstruction extends AbstractInstruction {
     }
 
     @Override
-    public int getDegree(Map<String, Program> functions) {
+    public int getDegree(FunctionRegistry functions) {
         return 1;
     }
 }
\ No newline at end of file
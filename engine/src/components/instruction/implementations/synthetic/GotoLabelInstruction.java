@@ -10,6 +10,7 @@ import components.instruction.implementations.basic.JumpNotZeroInstruction;
 import components.label.FixedLabel;
 import components.label.FreeLabelGenerator;
 import components.label.Label;
+import components.program.FunctionRegistry;
 import components.program.Program; // Add import
 import components.variable.FreeWorkVariableGenerator;
 import components.variable.StandardVariable;
@@ -32,14 +33,13 @@ public class GotoLabelInstruction extends AbstractInstruction {
     }
 
     @Override
-    public Label execute(Context context, Map<String, Program> functions, ProgramExecutor executor) {
+    public Label execute(Context context, FunctionRegistry functions, ProgramExecutor executor) {
         return gotoLabel;
     }
 
     @Override
-    public String getStringInstruction() {
-        String command = String.format("GOTO %s", gotoLabel.getStringLabel());
-        return getInstructionDisplay(command);
+    public String getCommandText() {
+        return "GOTO " + gotoLabel.getStringLabel();
     }
 
     @Override
@@ -48,7 +48,12 @@ public class GotoLabelInstruction extends AbstractInstruction {
     }
 
     @Override
-    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, Map<String, Program> functions) { // UPDATED SIGNATURE
+    public Label getJumpLabel() {
+        return gotoLabel;
+    }
+
+    @Override
+    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, FunctionRegistry functions) { // UPDATED SIGNATURE
         List<Instruction> instructions = new ArrayList<>();
         Variable z1 = workVariableGenerator.getNextFreeWorkVariable();
         Label l = this.getLabel();
@@ -73,7 +78,7 @@ public class GotoLabelInstruction extends AbstractInstruction {
     }
 
     @Override
-    public int getDegree(Map<String, Program> functions) {
+    public int getDegree(FunctionRegistry functions) {
         return 1;
     }
 }
\ No newline at end of file
@@ -11,6 +11,7 @@ import components.instruction.implementations.basic.NeutralInstruction;
 import components.label.FixedLabel;
 import components.label.FreeLabelGenerator;
 import components.label.Label;
+import components.program.FunctionRegistry;
 import components.program.Program; // Add import
 import components.variable.FreeWorkVariableGenerator;
 import components.variable.StandardVariable;
@@ -34,8 +35,10 @@ public class JumpEqualConstantInstruction extends AbstractInstruction {
         this.constantValue = constantValue;
     }
 
+    public int getConstantValue() { return constantValue; }
+
     @Override
-    public Label execute(Context context, Map<String, Program> functions, ProgramExecutor executor) {
+    public Label execute(Context context, FunctionRegistry functions, ProgramExecutor executor) {
         long value = context.getVariableValue(getVariable());
         if (value == constantValue) {
             return JEConstantLabel;
@@ -44,10 +47,8 @@ public class JumpEqualConstantInstruction extends AbstractInstruction {
     }
 
     @Override
-    public String getStringInstruction() {
-        String variable = this.getVariable().getStringVariable();
-        String command = String.format("IF %s = %d GOTO %s", variable, constantValue, JEConstantLabel.getStringLabel());
-        return getInstructionDisplay(command);
+    public String getCommandText() {
+        return "IF " + getVariable().getStringVariable() + " = " + constantValue + " GOTO " + JEConstantLabel.getStringLabel();
     }
 
     @Override
@@ -56,7 +57,12 @@ public class JumpEqualConstantInstruction extends AbstractInstruction {
     }
 
     @Override
-    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, Map<String, Program> functions) { // UPDATED SIGNATURE
+    public Label getJumpLabel() {
+        return JEConstantLabel;
+    }
+
+    @Override
+    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, FunctionRegistry functions) { // UPDATED SIGNATURE
         List <Instruction> instructions = new ArrayList<>();
         Variable v =  this.getVariable();
         Variable z1 = workVariableGenerator.getNextFreeWorkVariable();
@@ -90,7 +96,7 @@ public class JumpEqualConstantInstruction extends AbstractInstruction {
     }
 
     @Override
-    public int getDegree(Map<String, Program> functions) {
+    public int getDegree(FunctionRegistry functions) {
         return 1;
     }
 }
\ No newline at end of file
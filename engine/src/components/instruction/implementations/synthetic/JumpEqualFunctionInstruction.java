@@ -1,5 +1,6 @@
 package components.instruction.implementations.synthetic;
 
+import components.executor.CallArgument;
 import components.executor.Context;
 import components.executor.ProgramExecutor;
 import components.instruction.AbstractInstruction;
@@ -8,6 +9,7 @@ import components.instruction.InstructionSemantic;
 import components.label.FixedLabel;
 import components.label.FreeLabelGenerator;
 import components.label.Label;
+import components.program.FunctionRegistry;
 import components.program.Program;
 import components.variable.FreeWorkVariableGenerator;
 import components.variable.Variable;
@@ -23,6 +25,7 @@ public class JumpEqualFunctionInstruction extends AbstractInstruction {
     private final Label jumpLabel;
     private final String functionName;
     private final List<String> functionArguments;
+    private transient CallArgument.Resolution resolution;
 
     public JumpEqualFunctionInstruction(Variable variable, Label jumpLabel, String functionName, List<String> args, Label instructionLabel) {
         super(InstructionSemantic.JUMP_EQUAL_VARIABLE, variable, instructionLabel);
@@ -31,17 +34,22 @@ public class JumpEqualFunctionInstruction extends AbstractInstruction {
         this.functionArguments = args;
     }
 
-    @Override
-    public Label execute(Context context, Map<String, Program> functions, ProgramExecutor executor) {
-        Program functionToRun = functions.get(functionName);
-        Long[] evaluatedArgs = new Long[functionArguments.size()];
-        for (int i = 0; i < functionArguments.size(); i++) {
-            evaluatedArgs[i] = executor.evaluateArgument(functionArguments.get(i));
+    public String getFunctionName() { return functionName; }
+    public List<String> getFunctionArguments() { return functionArguments; }
+
+    //binds the call site to the registry's function ids, repeated only when a different registry is passed in
+    public CallArgument.FunctionCall resolve(FunctionRegistry functions) {
+        CallArgument.Resolution current = resolution;
+        if (current == null || current.registry() != functions) {
+            current = new CallArgument.Resolution(functions, CallArgument.resolveCall(functionName, functionArguments, functions));
+            resolution = current;
         }
+        return current.call();
+    }
 
-        ProgramExecutor subExecutor = new ProgramExecutor(functionToRun, functions);
-        long functionResult = subExecutor.run(evaluatedArgs);
-        executor.addCycles(subExecutor.getCyclesNumber());
+    @Override
+    public Label execute(Context context, FunctionRegistry functions, ProgramExecutor executor) {
+        long functionResult = executor.callFunction(resolve(functions));
 
         long variableValue = context.getVariableValue(getVariable());
 
@@ -52,7 +60,7 @@ public class JumpEqualFunctionInstruction extends AbstractInstruction {
     }
 
     @Override
-    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVarGenerator, Map<String, Program> functions) {
+    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVarGenerator, FunctionRegistry functions) {
         List<Instruction> instructions = new ArrayList<>();
 
         Variable tempResultVar = workVarGenerator.getNextFreeWorkVariable();
@@ -72,10 +80,9 @@ public class JumpEqualFunctionInstruction extends AbstractInstruction {
     }
 
     @Override
-    public String getStringInstruction() {
-        String args = String.join(",", functionArguments);
-        String command = String.format("IF %s = (%s,%s) GOTO %s", getVariable().getStringVariable(), functionName, args, jumpLabel.getStringLabel());
-        return getInstructionDisplay(command);
+    public String getCommandText() {
+        return "IF " + getVariable().getStringVariable() + " = (" + functionName + "," + String.join(",", functionArguments)
+                + ") GOTO " + jumpLabel.getStringLabel();
     }
 
     @Override
@@ -97,7 +104,12 @@ public class JumpEqualFunctionInstruction extends AbstractInstruction {
     }
 
     @Override
-    public int getDegree(Map<String, Program> functions) {
+    public Label getJumpLabel() {
+        return jumpLabel;
+    }
+
+    @Override
+    public int getDegree(FunctionRegistry functions) {
         Program p = functions.get(this.functionName);
         if (p != null) {
             return 1 + p.calculateMaxDegree(functions);
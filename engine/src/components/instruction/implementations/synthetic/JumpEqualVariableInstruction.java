@@ -10,6 +10,7 @@ import components.instruction.implementations.basic.NeutralInstruction;
 import components.label.FixedLabel;
 import components.label.FreeLabelGenerator;
 import components.label.Label;
+import components.program.FunctionRegistry;
 import components.program.Program; // Add import
 import components.variable.FreeWorkVariableGenerator;
 import components.variable.StandardVariable;
@@ -33,8 +34,10 @@ public class JumpEqualVariableInstruction extends AbstractInstruction {
         this.variableName = variableName;
     }
 
+    public Variable getVariableName() { return variableName; }
+
     @Override
-    public Label execute(Context context, Map<String, Program> functions, ProgramExecutor executor) {
+    public Label execute(Context context, FunctionRegistry functions, ProgramExecutor executor) {
         long value = context.getVariableValue(getVariable());
         if (value == context.getVariableValue(variableName)) {
             return JEVariableLabel;
@@ -43,10 +46,8 @@ public class JumpEqualVariableInstruction extends AbstractInstruction {
     }
 
     @Override
-    public String getStringInstruction() {
-        String variable = this.getVariable().getStringVariable();
-        String command = String.format("IF %s = %s GOTO %s", variable, variableName.getStringVariable(), JEVariableLabel.getStringLabel());
-        return getInstructionDisplay(command);
+    public String getCommandText() {
+        return "IF " + getVariable().getStringVariable() + " = " + variableName.getStringVariable() + " GOTO " + JEVariableLabel.getStringLabel();
     }
 
     @Override
@@ -54,13 +55,18 @@ public class JumpEqualVariableInstruction extends AbstractInstruction {
         return List.of(getLabel(), JEVariableLabel);
     }
 
+    @Override
+    public Label getJumpLabel() {
+        return JEVariableLabel;
+    }
+
     @Override
     public List<Variable> getAllInvolvedVariables() {
         return List.of(getVariable(), variableName);
     }
 
     @Override
-    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, Map<String, Program> functions) { // UPDATED SIGNATURE
+    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, FunctionRegistry functions) { // UPDATED SIGNATURE
         List<Instruction> instructions = new ArrayList<>();
         Variable v =  this.getVariable();
         Variable z1 = workVariableGenerator.getNextFreeWorkVariable();
@@ -99,7 +105,7 @@ public class JumpEqualVariableInstruction extends AbstractInstruction {
 
 
     @Override
-    public int getDegree(Map<String, Program> functions) {
+    public int getDegree(FunctionRegistry functions) {
         return 1;
     }
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ import components.instruction.implementations.basic.NeutralInstruction;
 import components.label.FixedLabel;
 import components.label.FreeLabelGenerator;
 import components.label.Label;
+import components.program.FunctionRegistry;
 import components.program.Program; // Add import
 import components.variable.FreeWorkVariableGenerator;
 import components.variable.StandardVariable;
@@ -32,7 +33,7 @@ public class JumpZeroInstruction extends AbstractInstruction {
     }
 
     @Override
-    public Label execute(Context context, Map<String, Program> functions, ProgramExecutor executor) {
+    public Label execute(Context context, FunctionRegistry functions, ProgramExecutor executor) {
         long value = context.getVariableValue(getVariable());
         if (value == 0) {
             return JZLabel;
@@ -41,10 +42,8 @@ public class JumpZeroInstruction extends AbstractInstruction {
     }
 
     @Override
-    public String getStringInstruction() {
-        String variable = this.getVariable().getStringVariable();
-        String command = String.format("IF %s = 0 GOTO %s", variable, JZLabel.getStringLabel());
-        return getInstructionDisplay(command);
+    public String getCommandText() {
+        return "IF " + getVariable().getStringVariable() + " = 0 GOTO " + JZLabel.getStringLabel();
     }
 
     @Override
@@ -53,7 +52,12 @@ public class JumpZeroInstruction extends AbstractInstruction {
     }
 
     @Override
-    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, Map<String, Program> functions) { // UPDATED SIGNATURE
+    public Label getJumpLabel() {
+        return JZLabel;
+    }
+
+    @Override
+    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVariableGenerator, FunctionRegistry functions) { // UPDATED SIGNATURE
         List<Instruction> instructions = new ArrayList<>();
         Variable v = this.getVariable();
         Label l =  this.getLabel();
@@ -80,7 +84,7 @@ public class JumpZeroInstruction extends AbstractInstruction {
     }
 
     @Override
-    public int getDegree(Map<String, Program> functions) {
+    public int getDegree(FunctionRegistry functions) {
         return 1;
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package components.instruction.implementations.synthetic;
 
 import components.executor.ArgumentParser;
+import components.executor.CallArgument;
 import components.executor.Context;
 import components.executor.ProgramExecutor;
 import components.instruction.AbstractInstruction;
@@ -10,6 +11,7 @@ import components.instruction.implementations.basic.NeutralInstruction;
 import components.label.FixedLabel;
 import components.label.FreeLabelGenerator;
 import components.label.Label;
+import components.program.FunctionRegistry;
 import components.program.Program;
 import components.variable.FreeWorkVariableGenerator;
 import components.variable.Variable;
@@ -25,6 +27,7 @@ public class QuoteInstruction extends AbstractInstruction {
 
     private final String functionName;
     private final List<String> rawArgumentStrings;
+    private transient CallArgument.Resolution resolution;
 
     public QuoteInstruction(Label label, Variable targetVariable, String functionName, List<String> argStrings) {
         super(InstructionSemantic.QUOTE, targetVariable, label);
@@ -35,26 +38,26 @@ public class QuoteInstruction extends AbstractInstruction {
     public String getFunctionName() { return functionName; }
     public List<String> getRawArgumentStrings() { return rawArgumentStrings; }
 
-    @Override
-    public Label execute(Context context, Map<String, Program> functions, ProgramExecutor executor) {
-        Long[] evaluatedArguments = new Long[rawArgumentStrings.size()];
-        for (int i = 0; i < rawArgumentStrings.size(); i++) {
-            evaluatedArguments[i] = executor.evaluateArgument(rawArgumentStrings.get(i));
-        }
-        Program functionToExecute = functions.get(functionName);
-        if (functionToExecute == null) {
-            throw new IllegalStateException("Function '" + functionName + "' is not defined.");
+    //binds the call site to the registry's function ids, repeated only when a different registry is passed in
+    public CallArgument.FunctionCall resolve(FunctionRegistry functions) {
+        CallArgument.Resolution current = resolution;
+        if (current == null || current.registry() != functions) {
+            current = new CallArgument.Resolution(functions, CallArgument.resolveCall(functionName, rawArgumentStrings, functions));
+            resolution = current;
         }
-        ProgramExecutor subExecutor = new ProgramExecutor(functionToExecute, functions);
-        Long result = subExecutor.run(evaluatedArguments);
-        executor.addCycles(subExecutor.getCyclesNumber());
+        return current.call();
+    }
+
+    @Override
+    public Label execute(Context context, FunctionRegistry functions, ProgramExecutor executor) {
+        Long result = executor.callFunction(resolve(functions));
         context.updateVariableValue(this.getVariable(), result);
         return FixedLabel.EMPTY;
     }
 
 
     @Override
-    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVarGenerator, Map<String, Program> functions) {
+    public List<Instruction> expand(FreeLabelGenerator labelGenerator, FreeWorkVariableGenerator workVarGenerator, FunctionRegistry functions) {
         List<Instruction> expandedInstructions = new ArrayList<>();
         List<Variable> finalArguments = new ArrayList<>();
 
@@ -116,7 +119,7 @@ public class QuoteInstruction extends AbstractInstruction {
         return new QuoteInstruction(FixedLabel.EMPTY, targetVar, funcName, args);
     }
 
-    private Map<Variable, Variable> createVariableMapping(Program func, FreeWorkVariableGenerator wg, Map<String, Program> funcs) {
+    private Map<Variable, Variable> createVariableMapping(Program func, FreeWorkVariableGenerator wg, FunctionRegistry funcs) {
         Map<Variable, Variable> map = new HashMap<>();
 
         //map input variables to new work variables
@@ -132,7 +135,7 @@ public class QuoteInstruction extends AbstractInstruction {
         return map;
     }
 
-    private Map<Label, Label> createLabelMapping(Program func, FreeLabelGenerator lg, Map<String, Program> funcs) {
+    private Map<Label, Label> createLabelMapping(Program func, FreeLabelGenerator lg, FunctionRegistry funcs) {
         Map<Label, Label> map = new HashMap<>();
 
         //map all the function's normal labels to new labels
@@ -148,7 +151,7 @@ public class QuoteInstruction extends AbstractInstruction {
         return map;
     }
 
-    private List<Instruction> createArgumentPassingInstructions(Program func, List<Variable> args, Map<Variable, Variable> varMap, Map<String, Program> funcs) {
+    private List<Instruction> createArgumentPassingInstructions(Program func, List<Variable> args, Map<Variable, Variable> varMap, FunctionRegistry funcs) {
         List<Instruction> instructions = new ArrayList<>();
         List<Variable> targetVars = func.getInputVariables(funcs);
         for (int i = 0; i < targetVars.size(); i++) {
@@ -171,10 +174,8 @@ public class QuoteInstruction extends AbstractInstruction {
     }
 
     @Override
-    public String getStringInstruction() {
-        String args = String.join(",", rawArgumentStrings);
-        String command = String.format("%s <- (%s,%s)", getVariable().getStringVariable(), functionName, args);
-        return getInstructionDisplay(command);
+    public String getCommandText() {
+        return getVariable().getStringVariable() + " <- (" + functionName + "," + String.join(",", rawArgumentStrings) + ")";
     }
 
     @Override
@@ -186,26 +187,19 @@ public class QuoteInstruction extends AbstractInstruction {
 
 
     @Override
-    public int getDegree(Map<String, Program> functions) {
+    public int getDegree(FunctionRegistry functions) {
         int selfDegree = 1;
         int maxArgDegree = 0;
 
-        // Find the highest degree among all of its arguments
+        //find the highest degree among all of its arguments, callee degrees come from their cached analysis
         for (String rawArg : this.getRawArgumentStrings()) {
-            if (rawArg.trim().startsWith("(")) {
-                // It's a nested function call, so find its degree recursively.
-                String inner = rawArg.trim().substring(1, rawArg.length() - 1);
-                int firstComma = inner.indexOf(',');
-                String funcName = (firstComma == -1) ? inner : inner.substring(0, firstComma).trim();
-                Program p = functions.get(funcName);
+            if (ArgumentParser.isFunctionCall(rawArg)) {
+                Program p = functions.get(ArgumentParser.getFunctionName(rawArg));
                 if (p != null) {
-                    int argDegree = p.calculateMaxDegree(functions);
-                    if (argDegree > maxArgDegree) {
-                        maxArgDegree = argDegree;
-                    }
+                    maxArgDegree = Math.max(maxArgDegree, p.calculateMaxDegree(functions));
                 }
             }
         }
         return selfDegree + maxArgDegree;
     }
-}
\ No newline at end of file
+}
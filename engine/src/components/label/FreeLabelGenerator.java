@@ -8,7 +8,7 @@ public class FreeLabelGenerator {
     }
 
     public Label getNextFreeLabel() {
-        Label label = new StandardLabel(nextSerialNumber);
+        Label label = StandardLabel.of(nextSerialNumber);
         nextSerialNumber++;
         return label;
     }
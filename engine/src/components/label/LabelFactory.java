@@ -15,8 +15,8 @@ public class LabelFactory {
         }
 
         if (labelString.toUpperCase().startsWith("L")) {
-            int serial = Integer.parseInt(labelString.substring(1));
-            return new StandardLabel(serial);
+            int serial = Integer.parseInt(labelString, 1, labelString.length(), 10);
+            return StandardLabel.of(serial);
         }
 
         throw new IllegalArgumentException("Unknown label format in XML: " + labelString);
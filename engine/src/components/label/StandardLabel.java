@@ -1,12 +1,53 @@
 package components.label;
 
-import java.util.Objects;
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class StandardLabel implements Label {
-    private final String label;
+//instances are canonical (one per serial number), so equality is identity and the serial is never reparsed
+public final class StandardLabel implements Label {
+    //serials below this are kept in the array, a file naming L1000000000 mustn't make it that long
+    static final int DENSE_SERIAL_LIMIT = 1 << 20;
 
-    public StandardLabel(int serialNumber) {
-        label = "L" + serialNumber;
+    //read without locking, only grown under the class lock
+    private static volatile StandardLabel[] labels = new StandardLabel[16];
+    //negative and very large serial numbers are never generated, they only come from odd input
+    private static final Map<Integer, StandardLabel> sparseSerials = new ConcurrentHashMap<>();
+
+    private final int serialNumber;
+    private final transient String label;
+
+    private StandardLabel(int serialNumber) {
+        this.serialNumber = serialNumber;
+        this.label = "L" + serialNumber;
+    }
+
+    public static StandardLabel of(int serialNumber) {
+        StandardLabel[] cache = labels;
+        StandardLabel label = serialNumber >= 0 && serialNumber < cache.length ? cache[serialNumber] : null;
+        return label != null ? label : intern(serialNumber);
+    }
+
+    private static StandardLabel intern(int serialNumber) {
+        if (serialNumber < 0 || serialNumber >= DENSE_SERIAL_LIMIT) {
+            return sparseSerials.computeIfAbsent(serialNumber, StandardLabel::new);
+        }
+        return internDense(serialNumber);
+    }
+
+    private static synchronized StandardLabel internDense(int serialNumber) {
+        StandardLabel[] cache = labels;
+        if (serialNumber >= cache.length) {
+            cache = Arrays.copyOf(cache, Math.min(Math.max(cache.length * 2, serialNumber + 1), DENSE_SERIAL_LIMIT));
+        } else if (cache[serialNumber] != null) {
+            return cache[serialNumber];
+        }
+        //all fields are final, so a reader racing this write sees either null (and comes here) or a complete instance
+        StandardLabel label = new StandardLabel(serialNumber);
+        cache[serialNumber] = label;
+        labels = cache;
+        return label;
     }
 
     @Override
@@ -16,18 +57,21 @@ public class StandardLabel implements Label {
 
     @Override
     public int getSerialNumber() {
-        return Integer.parseInt(label.substring(1));
+        return serialNumber;
     }
 
     @Override
     public boolean equals(Object o) {
-        if (o == null || getClass() != o.getClass()) return false;
-        StandardLabel that = (StandardLabel) o;
-        return Objects.equals(label, that.label);
+        return this == o;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(label);
+        return serialNumber;
+    }
+
+    @Serial
+    private Object readResolve() {
+        return of(serialNumber);
     }
 }
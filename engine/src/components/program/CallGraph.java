@@ -0,0 +1,184 @@
+package components.program;
+
+import components.executor.ArgumentParser;
+import components.instruction.Instruction;
+import components.instruction.implementations.synthetic.JumpEqualFunctionInstruction;
+import components.instruction.implementations.synthetic.QuoteInstruction;
+
+import java.util.*;
+
+public class CallGraph {
+    private final Map<String, Set<String>> callees = new LinkedHashMap<>();
+    //strongly connected components, callees always come before their callers
+    private final List<List<String>> components = new ArrayList<>();
+    private final Map<String, ProgramAnalysis> analyses = new HashMap<>();
+
+    public CallGraph(FunctionRegistry functions) {
+        this(functions, Map.of());
+    }
+
+    //knownAnalyses holds results that were computed before (e.g. read from a program image), those components are not scanned again
+    public CallGraph(FunctionRegistry functions, Map<String, ProgramAnalysis> knownAnalyses) {
+        for (FunctionRegistry.FunctionDefinition definition : functions.getDefinitions()) {
+            Set<String> definedCallees = new LinkedHashSet<>(getCalledFunctionNames(definition.program()));
+            //calls to undefined functions are reported by validation, they have no node in the graph
+            definedCallees.removeIf(callee -> !functions.contains(callee));
+            callees.put(definition.name(), definedCallees);
+        }
+
+        findStronglyConnectedComponents();
+
+        for (List<String> component : components) {
+            if (knownAnalyses.keySet().containsAll(component)) {
+                for (String name : component) {
+                    attach(name, knownAnalyses.get(name), functions);
+                }
+            } else {
+                analyzeComponent(component, functions);
+            }
+        }
+    }
+
+    //every function name a program refers to, including calls nested inside arguments
+    public static Set<String> getCalledFunctionNames(Program program) {
+        Set<String> names = new LinkedHashSet<>();
+        for (Instruction instruction : program.getInstructions()) {
+            if (instruction instanceof QuoteInstruction quote) {
+                names.add(quote.getFunctionName());
+                collectNestedCalls(quote.getRawArgumentStrings(), names);
+            } else if (instruction instanceof JumpEqualFunctionInstruction jumpEqualFunction) {
+                names.add(jumpEqualFunction.getFunctionName());
+                collectNestedCalls(jumpEqualFunction.getFunctionArguments(), names);
+            }
+        }
+        return names;
+    }
+
+    private static void collectNestedCalls(List<String> arguments, Set<String> names) {
+        for (String argument : arguments) {
+            if (ArgumentParser.isFunctionCall(argument)) {
+                names.add(ArgumentParser.getFunctionName(argument));
+                collectNestedCalls(ArgumentParser.getFunctionArguments(argument), names);
+            }
+        }
+    }
+
+    public ProgramAnalysis getAnalysis(String functionName) {
+        return analyses.get(functionName);
+    }
+
+    public boolean isRecursive(String functionName) {
+        ProgramAnalysis analysis = analyses.get(functionName);
+        return analysis != null && analysis.recursive();
+    }
+
+    public Set<String> getCallees(String functionName) {
+        return Collections.unmodifiableSet(callees.getOrDefault(functionName, Collections.emptySet()));
+    }
+
+    public List<List<String>> getComponents() {
+        return Collections.unmodifiableList(components);
+    }
+
+    //iterative Tarjan, deep composition chains would overflow the stack with the recursive version
+    private void findStronglyConnectedComponents() {
+        Map<String, Integer> index = new HashMap<>();
+        Map<String, Integer> lowLink = new HashMap<>();
+        Deque<String> componentStack = new ArrayDeque<>();
+        Set<String> onComponentStack = new HashSet<>();
+        Deque<Map.Entry<String, Iterator<String>>> callStack = new ArrayDeque<>();
+        int nextIndex = 0;
+
+        for (String root : callees.keySet()) {
+            if (index.containsKey(root)) continue;
+
+            index.put(root, nextIndex);
+            lowLink.put(root, nextIndex++);
+            componentStack.push(root);
+            onComponentStack.add(root);
+            callStack.push(Map.entry(root, callees.get(root).iterator()));
+
+            while (!callStack.isEmpty()) {
+                String node = callStack.peek().getKey();
+                Iterator<String> remainingCallees = callStack.peek().getValue();
+
+                if (remainingCallees.hasNext()) {
+                    String callee = remainingCallees.next();
+                    if (!index.containsKey(callee)) {
+                        index.put(callee, nextIndex);
+                        lowLink.put(callee, nextIndex++);
+                        componentStack.push(callee);
+                        onComponentStack.add(callee);
+                        callStack.push(Map.entry(callee, callees.get(callee).iterator()));
+                    } else if (onComponentStack.contains(callee)) {
+                        lowLink.put(node, Math.min(lowLink.get(node), index.get(callee)));
+                    }
+                    continue;
+                }
+
+                callStack.pop();
+                if (!callStack.isEmpty()) {
+                    String parent = callStack.peek().getKey();
+                    lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(node)));
+                }
+
+                if (lowLink.get(node).equals(index.get(node))) {
+                    List<String> component = new ArrayList<>();
+                    String member;
+                    do {
+                        member = componentStack.pop();
+                        onComponentStack.remove(member);
+                        component.add(member);
+                    } while (!member.equals(node));
+                    components.add(component);
+                }
+            }
+        }
+    }
+
+    private void analyzeComponent(List<String> component, FunctionRegistry functions) {
+        String first = component.get(0);
+        boolean recursive = component.size() > 1 || callees.get(first).contains(first);
+
+        if (!recursive) {
+            //all callees were analyzed already, so this is a single linear scan
+            attach(first, functions.get(first).computeAnalysis(functions), functions);
+            return;
+        }
+
+        //mutually recursive functions: grow the variable and label sets from empty until they stop changing.
+        //calls inside the component count as degree 0, otherwise the degree would never settle
+        for (String name : component) {
+            attach(name, ProgramAnalysis.empty(true), functions);
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (String name : component) {
+                ProgramAnalysis current = analyses.get(name);
+                ProgramAnalysis computed = functions.get(name).computeAnalysis(functions);
+                if (!computed.inputVariables().equals(current.inputVariables())
+                        || !computed.workVariables().equals(current.workVariables())
+                        || !computed.labels().equals(current.labels())) {
+                    changed = true;
+                }
+                attach(name, ProgramAnalysis.of(0, computed.inputVariables(), computed.workVariables(), computed.labels(),
+                        computed.basicInstructionCount(), true), functions);
+            }
+        }
+
+        Map<String, Integer> degrees = new HashMap<>();
+        for (String name : component) {
+            degrees.put(name, functions.get(name).computeAnalysis(functions).maxDegree());
+        }
+        for (String name : component) {
+            attach(name, analyses.get(name).withMaxDegree(degrees.get(name)), functions);
+        }
+    }
+
+    private void attach(String name, ProgramAnalysis analysis, FunctionRegistry functions) {
+        analyses.put(name, analysis);
+        functions.get(name).setAnalysis(analysis);
+    }
+}
@@ -0,0 +1,194 @@
+package components.program;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+//a directory of S-Program files whose S-Functions can be used by any loaded program without being copied into it.
+//the directory is indexed (function name -> file) by reading only the S-Function tags. a file is converted only when
+//a load needs one of its functions, and every load converts its own copy: a load analyzes its Programs and binds
+//their call sites, so Programs shared between loads would be changed under the programs loaded before.
+//refresh() checks the files again before a load, files are edited while the engine runs
+public class FunctionLibrary {
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    //what the index knows about one file, names is only read again when the content hash changes
+    private record IndexedFile(byte[] contentHash, List<String> functionNames) {}
+
+    private final Path directory;
+    private final ProgramLoader loader;
+    private Map<Path, IndexedFile> indexedFiles = Map.of();
+    private volatile Map<String, Path> filesByFunction = Map.of();
+    private volatile byte[] fingerprint;
+
+    public FunctionLibrary(Path directory, ProgramLoader loader) {
+        this.directory = directory;
+        this.loader = loader;
+        refresh();
+    }
+
+    //reads the directory again: files that were added, removed or whose content changed are indexed again and the
+    //fingerprint follows their contents
+    public synchronized void refresh() {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.xml")) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        //sorted, so when two files define the same function the choice doesn't depend on the file system
+        Collections.sort(files);
+
+        Map<Path, IndexedFile> indexed = new HashMap<>();
+        Map<String, Path> functions = new HashMap<>();
+        MessageDigest digest = newDigest();
+        for (Path file : files) {
+            byte[] contentHash = contentHashOf(file);
+            IndexedFile previous = indexedFiles.get(file);
+            IndexedFile current = previous != null && Arrays.equals(previous.contentHash(), contentHash)
+                    ? previous : new IndexedFile(contentHash, readFunctionNames(file));
+            indexed.put(file, current);
+            for (String functionName : current.functionNames()) {
+                functions.putIfAbsent(functionName, file);
+            }
+            digest.update(file.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            digest.update(contentHash);
+        }
+        this.indexedFiles = indexed;
+        this.filesByFunction = functions;
+        this.fingerprint = digest.digest();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public boolean contains(String functionName) {
+        return filesByFunction.containsKey(functionName);
+    }
+
+    public Set<String> getFunctionNames() {
+        return Collections.unmodifiableSet(filesByFunction.keySet());
+    }
+
+    //the file names and contents as of the last refresh(), used to tell when a program image is stale
+    public byte[] getFingerprint() {
+        return fingerprint.clone();
+    }
+
+    //adds the library functions the document calls but doesn't define, including the ones those functions call.
+    //names that neither the document nor the library define are left for validation to report
+    public ProgramDocument addMissingFunctions(ProgramDocument document) {
+        Set<String> defined = new HashSet<>();
+        for (FunctionRegistry.FunctionDefinition definition : document.functions()) {
+            defined.add(definition.name());
+        }
+
+        Deque<Program> toScan = new ArrayDeque<>();
+        toScan.add(document.mainProgram());
+        for (FunctionRegistry.FunctionDefinition definition : document.functions()) {
+            toScan.add(definition.program());
+        }
+
+        //files this load already converted, a file defining several needed functions is read once
+        Map<Path, Map<String, FunctionRegistry.FunctionDefinition>> loadedFiles = new HashMap<>();
+        List<FunctionRegistry.FunctionDefinition> added = new ArrayList<>();
+        while (!toScan.isEmpty()) {
+            for (String calledName : CallGraph.getCalledFunctionNames(toScan.poll())) {
+                if (defined.contains(calledName) || !contains(calledName)) continue;
+
+                FunctionRegistry.FunctionDefinition definition =
+                        loadedFiles.computeIfAbsent(filesByFunction.get(calledName), this::loadFile).get(calledName);
+                defined.add(calledName);
+                added.add(definition);
+                toScan.add(definition.program());
+            }
+        }
+
+        if (added.isEmpty()) {
+            return document;
+        }
+        List<FunctionRegistry.FunctionDefinition> functions = new ArrayList<>(document.functions());
+        functions.addAll(added);
+        return new ProgramDocument(document.mainProgram(), functions);
+    }
+
+    //a newly converted copy on every call, see the class comment
+    public FunctionRegistry.FunctionDefinition getFunction(String functionName) {
+        Path file = filesByFunction.get(functionName);
+        if (file == null) {
+            return null;
+        }
+        return loadFile(file).get(functionName);
+    }
+
+    private Map<String, FunctionRegistry.FunctionDefinition> loadFile(Path file) {
+        Map<String, FunctionRegistry.FunctionDefinition> functions = new HashMap<>();
+        for (FunctionRegistry.FunctionDefinition definition : loader.load(file.toFile()).functions()) {
+            functions.putIfAbsent(definition.name(), definition);
+        }
+        return functions;
+    }
+
+    private static byte[] contentHashOf(Path file) {
+        MessageDigest digest = newDigest();
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            byte[] buffer = new byte[1 << 16];
+            int read;
+            while ((read = inputStream.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read library file " + file.getFileName() + ": " + e.getMessage(), e);
+        }
+        return digest.digest();
+    }
+
+    private static List<String> readFunctionNames(Path file) {
+        List<String> names = new ArrayList<>();
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file))) {
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("S-Function")) {
+                        String name = reader.getAttributeValue(null, "name");
+                        if (name != null) {
+                            names.add(name);
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException e) {
+            throw new RuntimeException("Can't index library file " + file.getFileName() + ": " + e.getMessage(), e);
+        }
+        return names;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package components.program;
+
+import components.instruction.Instruction;
+import components.instruction.implementations.synthetic.JumpEqualFunctionInstruction;
+import components.instruction.implementations.synthetic.QuoteInstruction;
+
+import java.util.*;
+
+//built once per load and never changed afterwards, so executors, expanders and the UI can share it freely
+public final class FunctionRegistry {
+    public record FunctionDefinition(String name, String userString, Program program) {}
+
+    public static final FunctionRegistry EMPTY = new FunctionRegistry(List.of());
+
+    private final List<FunctionDefinition> definitions;
+    private final Map<String, Integer> idsByName = new HashMap<>();
+    private final CallGraph callGraph;
+
+    public FunctionRegistry(List<FunctionDefinition> definitions) {
+        this(definitions, Map.of());
+    }
+
+    public FunctionRegistry(List<FunctionDefinition> definitions, Map<String, ProgramAnalysis> knownAnalyses) {
+        this.definitions = List.copyOf(definitions);
+        for (int id = 0; id < this.definitions.size(); id++) {
+            idsByName.put(this.definitions.get(id).name(), id);
+        }
+
+        this.callGraph = new CallGraph(this, knownAnalyses);
+        for (FunctionDefinition definition : this.definitions) {
+            resolveCallSites(definition.program());
+        }
+    }
+
+    //the id of a function is its position in the document, -1 if it isn't defined
+    public int getId(String name) {
+        return idsByName.getOrDefault(name, -1);
+    }
+
+    public boolean contains(String name) {
+        return idsByName.containsKey(name);
+    }
+
+    public Program get(int id) {
+        return definitions.get(id).program();
+    }
+
+    public Program get(String name) {
+        int id = getId(name);
+        return id == -1 ? null : get(id);
+    }
+
+    public String getName(int id) {
+        return definitions.get(id).name();
+    }
+
+    public String getUserString(int id) {
+        return definitions.get(id).userString();
+    }
+
+    public int size() {
+        return definitions.size();
+    }
+
+    public List<FunctionDefinition> getDefinitions() {
+        return definitions;
+    }
+
+    public CallGraph getCallGraph() {
+        return callGraph;
+    }
+
+    public Program findByUserString(String userString) {
+        for (FunctionDefinition definition : definitions) {
+            if (definition.userString().equals(userString)) {
+                return definition.program();
+            }
+        }
+        return null;
+    }
+
+    //binds every QUOTE / JUMP_EQUAL_FUNCTION of the program to function ids up front instead of on first execution
+    public void resolveCallSites(Program program) {
+        for (Instruction instruction : program.getInstructions()) {
+            if (instruction instanceof QuoteInstruction quote) {
+                quote.resolve(this);
+            } else if (instruction instanceof JumpEqualFunctionInstruction jumpEqualFunction) {
+                jumpEqualFunction.resolve(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package components.program;
+
+import components.jaxb.generated.SFunction;
+import components.jaxb.generated.SProgram;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class JaxbProgramLoader implements ProgramLoader {
+    final static String JAXB_XML_PACKAGE_NAME = "components.jaxb.generated";
+    //below this many functions the fork/join overhead costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    //creating the context is the expensive part of JAXB and it is thread safe, so it is created once.
+    //unmarshallers are cheap and not thread safe, so each load gets its own
+    private static class ContextHolder {
+        static final JAXBContext CONTEXT = createContext();
+
+        private static JAXBContext createContext() {
+            try {
+                return JAXBContext.newInstance(JAXB_XML_PACKAGE_NAME);
+            } catch (JAXBException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    @Override
+    public ProgramDocument load(File file) {
+        SProgram sProgram = parseXmlFile(file);
+
+        List<FunctionRegistry.FunctionDefinition> functions = sProgram.getSFunctions() == null
+                ? List.of()
+                : convertFunctions(sProgram.getSFunctions().getSFunction());
+        return new ProgramDocument(JaxbConversion.SProgramToProgram(sProgram), functions);
+    }
+
+    //functions don't depend on each other while converting, so large libraries are converted concurrently.
+    //a failure is reported for the first bad function in the document, no matter which thread hit it first
+    private List<FunctionRegistry.FunctionDefinition> convertFunctions(List<SFunction> sFunctions) {
+        FunctionRegistry.FunctionDefinition[] converted = new FunctionRegistry.FunctionDefinition[sFunctions.size()];
+        RuntimeException[] failures = new RuntimeException[sFunctions.size()];
+
+        IntStream indices = IntStream.range(0, sFunctions.size());
+        if (sFunctions.size() >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> {
+            SFunction sFunc = sFunctions.get(i);
+            try {
+                Program functionAsProgram = JaxbConversion.SFunctionToProgram(sFunc);
+                converted[i] = new FunctionRegistry.FunctionDefinition(sFunc.getName(), sFunc.getUserString(), functionAsProgram);
+            } catch (RuntimeException e) {
+                failures[i] = e;
+            }
+        });
+
+        for (RuntimeException failure : failures) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        return Arrays.asList(converted);
+    }
+
+    private SProgram parseXmlFile(File file) {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            Unmarshaller unmarshaller = ContextHolder.CONTEXT.createUnmarshaller();
+            return (SProgram) unmarshaller.unmarshal(inputStream);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -11,11 +11,15 @@ public interface Program {
     List<Instruction> getInstructions();
     void addInstruction(Instruction instruction);
 
-    List<Variable> getInputVariables(Map<String, Program> functions);
-    List<Variable> getWorkVariables(Map<String, Program> functions);
-    List<Label> getLabels(Map<String, Program> functions);
-    int calculateMaxDegree(Map<String, Program> functions);
-    Program expand(Map<String, Program> functions);
-    int getNextFreeLabelNumber(Map<String, Program> functions);
-    int getNextFreeWorkVariableNumber(Map<String, Program> functions);
+    List<Variable> getInputVariables(FunctionRegistry functions);
+    List<Variable> getWorkVariables(FunctionRegistry functions);
+    List<Label> getLabels(FunctionRegistry functions);
+    int calculateMaxDegree(FunctionRegistry functions);
+    Program expand(FunctionRegistry functions);
+    int getNextFreeLabelNumber(FunctionRegistry functions);
+    int getNextFreeWorkVariableNumber(FunctionRegistry functions);
+
+    ProgramAnalysis getAnalysis(FunctionRegistry functions);
+    ProgramAnalysis computeAnalysis(FunctionRegistry functions);
+    void setAnalysis(ProgramAnalysis analysis);
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package components.program;
+
+import components.label.FixedLabel;
+import components.label.Label;
+import components.variable.Variable;
+
+import java.util.List;
+
+//computed once per program (functions, the main program and every expansion), programs don't change after they are built
+public record ProgramAnalysis(int maxDegree,
+                              List<Variable> inputVariables,
+                              List<Variable> workVariables,
+                              List<Label> labels,
+                              int basicInstructionCount,
+                              int nextFreeLabelNumber,
+                              int nextFreeWorkVariableNumber,
+                              boolean recursive) {
+
+    public static ProgramAnalysis of(int maxDegree, List<Variable> inputVariables, List<Variable> workVariables, List<Label> labels,
+                                     int basicInstructionCount, boolean recursive) {
+        int maxLabelNumber = 0;
+        for (Label label : labels) {
+            if (label != FixedLabel.EXIT && label.getSerialNumber() > maxLabelNumber) {
+                maxLabelNumber = label.getSerialNumber();
+            }
+        }
+
+        int maxVariableNumber = 0;
+        for (Variable variable : workVariables) {
+            maxVariableNumber = Math.max(maxVariableNumber, variable.getSerialNumber());
+        }
+        for (Variable variable : inputVariables) {
+            maxVariableNumber = Math.max(maxVariableNumber, variable.getSerialNumber());
+        }
+
+        return new ProgramAnalysis(maxDegree, List.copyOf(inputVariables), List.copyOf(workVariables), List.copyOf(labels),
+                basicInstructionCount, maxLabelNumber + 1, maxVariableNumber + 1, recursive);
+    }
+
+    public ProgramAnalysis withMaxDegree(int maxDegree) {
+        return new ProgramAnalysis(maxDegree, inputVariables, workVariables, labels, basicInstructionCount, nextFreeLabelNumber, nextFreeWorkVariableNumber, recursive);
+    }
+
+    public static ProgramAnalysis empty(boolean recursive) {
+        return of(0, List.of(), List.of(), List.of(), 0, recursive);
+    }
+}
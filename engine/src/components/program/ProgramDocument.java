@@ -0,0 +1,7 @@
+package components.program;
+
+import java.util.List;
+
+//what a loader reads from one file: the main program and its functions in document order
+public record ProgramDocument(Program mainProgram, List<FunctionRegistry.FunctionDefinition> functions) {
+}
@@ -0,0 +1,440 @@
+package components.program;
+
+import components.instruction.Instruction;
+import components.instruction.implementations.basic.*;
+import components.instruction.implementations.synthetic.*;
+import components.label.FixedLabel;
+import components.label.Label;
+import components.label.StandardLabel;
+import components.variable.StandardVariable;
+import components.variable.Variable;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+//compact binary form of a loaded and validated program set: instructions, call sites bound to function ids and
+//the analysis of every program. reading it back skips XML parsing, conversion, analysis and validation. the SHA-256
+//of the source XML is stored in the header to detect stale images
+public final class ProgramImage {
+    private static final int MAGIC = 0x53494D47; //"SIMG"
+    private static final int VERSION = 2;
+    private static final int HASH_LENGTH = 32;
+    private static final int HEADER_LENGTH = 8 + HASH_LENGTH;
+
+    private static final byte INCREASE = 0, DECREASE = 1, NEUTRAL = 2, JUMP_NOT_ZERO = 3, ZERO_VARIABLE = 4,
+            GOTO_LABEL = 5, ASSIGNMENT = 6, CONSTANT_ASSIGNMENT = 7, JUMP_ZERO = 8, JUMP_EQUAL_CONSTANT = 9,
+            JUMP_EQUAL_VARIABLE = 10, JUMP_EQUAL_FUNCTION = 11, QUOTE = 12;
+
+    private static final byte LABEL_EMPTY = 0, LABEL_EXIT = 1, LABEL_STANDARD = 2;
+
+    public record Contents(ProgramDocument document, Map<String, ProgramAnalysis> functionAnalyses) {}
+
+    private ProgramImage() {
+    }
+
+    //the image file of a source in an image directory. the name is keyed by the source's absolute path, so sources
+    //with the same name in different directories don't replace each other's image
+    public static String imageNameOf(Path source) {
+        try {
+            byte[] pathHash = MessageDigest.getInstance("SHA-256")
+                    .digest(source.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+            return source.getFileName() + "-" + HexFormat.of().formatHex(pathHash, 0, 8) + ".simg";
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //extra inputs (e.g. a function library fingerprint) are mixed in after the file contents
+    public static byte[] hashOf(Path source, byte[]... extra) {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(source))) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            for (byte[] bytes : extra) {
+                digest.update(bytes);
+            }
+            return digest.digest();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //written to a temporary file and moved into place, so a reader never sees half an image
+    public static void write(Path image, byte[] sourceHash, Program mainProgram, FunctionRegistry functions) throws IOException {
+        Path directory = image.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, image.getFileName().toString(), ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+            writeTo(out, sourceHash, mainProgram, functions);
+        }
+        try {
+            Files.move(temporary, image, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, image, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    //the image itself, for embedding it in another file (e.g. an engine snapshot)
+    public static void writeTo(OutputStream output, byte[] sourceHash, Program mainProgram, FunctionRegistry functions) throws IOException {
+        Writer writer = new Writer(functions);
+        int[] functionNames = new int[functions.size()];
+        for (int id = 0; id < functions.size(); id++) {
+            functionNames[id] = writer.stringIndex(functions.getName(id));
+        }
+        writer.writeProgram(mainProgram);
+        for (FunctionRegistry.FunctionDefinition definition : functions.getDefinitions()) {
+            writer.body.writeInt(writer.stringIndex(definition.userString()));
+            writer.writeProgram(definition.program());
+        }
+
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.write(sourceHash);
+        out.writeInt(writer.strings.size());
+        for (String string : writer.strings.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(functionNames.length);
+        for (int functionName : functionNames) {
+            out.writeInt(functionName);
+        }
+        writer.bodyBytes.writeTo(out);
+        out.flush();
+    }
+
+    //null when there is no image, it was made from a different source, or it can't be read
+    public static Contents read(Path image, byte[] expectedSourceHash) {
+        if (!Files.isRegularFile(image)) {
+            return null;
+        }
+        //read into a heap buffer rather than mapped: a mapping stays open until it is garbage collected, and on
+        //Windows an open mapping makes the next write() fail to replace the file
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_LENGTH || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            //the header alone tells a stale image, the rest is only read when it matches
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            if (!readFully(channel, header) || !matchesHeader(header.flip(), expectedSourceHash)) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            channel.position(0);
+            return readFully(channel, buffer) ? read(buffer.flip(), expectedSourceHash) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    //reads an image from the buffer's position, null when it was made from a different source or is damaged
+    public static Contents read(ByteBuffer buffer, byte[] expectedSourceHash) {
+        try {
+            return matchesHeader(buffer, expectedSourceHash) ? new Reader(buffer).readContents() : null;
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static boolean matchesHeader(ByteBuffer buffer, byte[] expectedSourceHash) {
+        if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return false;
+        }
+        byte[] sourceHash = new byte[HASH_LENGTH];
+        buffer.get(sourceHash);
+        return Arrays.equals(sourceHash, expectedSourceHash);
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Writer {
+        private final FunctionRegistry functions;
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private final ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        private final DataOutputStream body = new DataOutputStream(bodyBytes);
+
+        private Writer(FunctionRegistry functions) {
+            this.functions = functions;
+        }
+
+        private int stringIndex(String string) {
+            return strings.computeIfAbsent(string, key -> strings.size());
+        }
+
+        private void writeProgram(Program program) throws IOException {
+            body.writeInt(stringIndex(program.getName()));
+            List<Instruction> instructions = program.getInstructions();
+            body.writeInt(instructions.size());
+            for (Instruction instruction : instructions) {
+                writeInstruction(instruction);
+            }
+            writeAnalysis(program.getAnalysis(functions));
+        }
+
+        private void writeInstruction(Instruction instruction) throws IOException {
+            switch (instruction) {
+                case IncreaseInstruction ignored -> writeHeader(INCREASE, instruction);
+                case DecreaseInstruction ignored -> writeHeader(DECREASE, instruction);
+                case NeutralInstruction ignored -> writeHeader(NEUTRAL, instruction);
+                case ZeroVariableInstruction ignored -> writeHeader(ZERO_VARIABLE, instruction);
+                case JumpNotZeroInstruction ignored -> {
+                    writeHeader(JUMP_NOT_ZERO, instruction);
+                    writeLabel(instruction.getJumpLabel());
+                }
+                case GotoLabelInstruction ignored -> {
+                    writeHeader(GOTO_LABEL, instruction);
+                    writeLabel(instruction.getJumpLabel());
+                }
+                case JumpZeroInstruction ignored -> {
+                    writeHeader(JUMP_ZERO, instruction);
+                    writeLabel(instruction.getJumpLabel());
+                }
+                case AssignmentInstruction assignment -> {
+                    writeHeader(ASSIGNMENT, instruction);
+                    writeVariable(assignment.getAssignedVariable());
+                }
+                case ConstantAssignmentInstruction constantAssignment -> {
+                    writeHeader(CONSTANT_ASSIGNMENT, instruction);
+                    body.writeInt(constantAssignment.getConstantValue());
+                }
+                case JumpEqualConstantInstruction jumpEqualConstant -> {
+                    writeHeader(JUMP_EQUAL_CONSTANT, instruction);
+                    writeLabel(instruction.getJumpLabel());
+                    body.writeInt(jumpEqualConstant.getConstantValue());
+                }
+                case JumpEqualVariableInstruction jumpEqualVariable -> {
+                    writeHeader(JUMP_EQUAL_VARIABLE, instruction);
+                    writeLabel(instruction.getJumpLabel());
+                    writeVariable(jumpEqualVariable.getVariableName());
+                }
+                case JumpEqualFunctionInstruction jumpEqualFunction -> {
+                    writeHeader(JUMP_EQUAL_FUNCTION, instruction);
+                    writeLabel(instruction.getJumpLabel());
+                    writeCall(jumpEqualFunction.getFunctionName(), jumpEqualFunction.getFunctionArguments());
+                }
+                case QuoteInstruction quote -> {
+                    writeHeader(QUOTE, instruction);
+                    writeCall(quote.getFunctionName(), quote.getRawArgumentStrings());
+                }
+                default -> throw new IllegalArgumentException("Instruction can't be stored in a program image: " + instruction.getName());
+            }
+        }
+
+        private void writeHeader(byte opcode, Instruction instruction) throws IOException {
+            body.writeByte(opcode);
+            writeLabel(instruction.getLabel());
+            writeVariable(instruction.getVariable());
+        }
+
+        //the callee is stored by id, the name is only needed for calls to functions that aren't defined
+        private void writeCall(String functionName, List<String> arguments) throws IOException {
+            int functionId = functions.getId(functionName);
+            body.writeInt(functionId);
+            if (functionId == -1) {
+                body.writeInt(stringIndex(functionName));
+            }
+            body.writeInt(arguments.size());
+            for (String argument : arguments) {
+                body.writeInt(stringIndex(argument));
+            }
+        }
+
+        private void writeVariable(Variable variable) throws IOException {
+            body.writeByte(variable.getVariableType().ordinal());
+            body.writeInt(variable.getSerialNumber());
+        }
+
+        private void writeLabel(Label label) throws IOException {
+            if (label == FixedLabel.EMPTY) {
+                body.writeByte(LABEL_EMPTY);
+            } else if (label == FixedLabel.EXIT) {
+                body.writeByte(LABEL_EXIT);
+            } else {
+                body.writeByte(LABEL_STANDARD);
+                body.writeInt(label.getSerialNumber());
+            }
+        }
+
+        private void writeAnalysis(ProgramAnalysis analysis) throws IOException {
+            body.writeInt(analysis.maxDegree());
+            body.writeBoolean(analysis.recursive());
+            writeVariables(analysis.inputVariables());
+            writeVariables(analysis.workVariables());
+            body.writeInt(analysis.labels().size());
+            for (Label label : analysis.labels()) {
+                writeLabel(label);
+            }
+        }
+
+        private void writeVariables(List<Variable> variables) throws IOException {
+            body.writeInt(variables.size());
+            for (Variable variable : variables) {
+                writeVariable(variable);
+            }
+        }
+    }
+
+    private static final class Reader {
+        private static final StandardVariable.VariableType[] VARIABLE_TYPES = StandardVariable.VariableType.values();
+
+        private final ByteBuffer buffer;
+        private final String[] strings;
+        //names come before the programs, so call sites can turn ids back into names
+        private final String[] functionNames;
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.strings = new String[readCount()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[readCount()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            this.functionNames = new String[readCount()];
+            for (int id = 0; id < functionNames.length; id++) {
+                functionNames[id] = strings[buffer.getInt()];
+            }
+        }
+
+        private Contents readContents() {
+            Program mainProgram = readProgram();
+            List<FunctionRegistry.FunctionDefinition> functions = new ArrayList<>(functionNames.length);
+            Map<String, ProgramAnalysis> analyses = new HashMap<>();
+            for (int id = 0; id < functionNames.length; id++) {
+                String userString = strings[buffer.getInt()];
+                Program function = readProgram();
+                functions.add(new FunctionRegistry.FunctionDefinition(functionNames[id], userString, function));
+                analyses.put(functionNames[id], function.getAnalysis(FunctionRegistry.EMPTY));
+            }
+            return new Contents(new ProgramDocument(mainProgram, functions), analyses);
+        }
+
+        private Program readProgram() {
+            String name = strings[buffer.getInt()];
+            int instructionCount = readCount();
+            List<Instruction> instructions = new ArrayList<>(instructionCount);
+            for (int i = 0; i < instructionCount; i++) {
+                instructions.add(readInstruction());
+            }
+            Program program = new StandardProgram(name, instructions);
+            program.setAnalysis(readAnalysis(instructions));
+            return program;
+        }
+
+        private Instruction readInstruction() {
+            byte opcode = buffer.get();
+            Label label = readLabel();
+            Variable variable = readVariable();
+            return switch (opcode) {
+                case INCREASE -> new IncreaseInstruction(variable, label);
+                case DECREASE -> new DecreaseInstruction(variable, label);
+                case NEUTRAL -> new NeutralInstruction(variable, label);
+                case ZERO_VARIABLE -> new ZeroVariableInstruction(variable, label);
+                case JUMP_NOT_ZERO -> new JumpNotZeroInstruction(variable, readLabel(), label);
+                case GOTO_LABEL -> new GotoLabelInstruction(readLabel(), label);
+                case JUMP_ZERO -> new JumpZeroInstruction(variable, readLabel(), label);
+                case ASSIGNMENT -> new AssignmentInstruction(variable, readVariable(), label);
+                case CONSTANT_ASSIGNMENT -> new ConstantAssignmentInstruction(variable, buffer.getInt(), label);
+                case JUMP_EQUAL_CONSTANT -> {
+                    Label jumpLabel = readLabel();
+                    yield new JumpEqualConstantInstruction(variable, jumpLabel, buffer.getInt(), label);
+                }
+                case JUMP_EQUAL_VARIABLE -> {
+                    Label jumpLabel = readLabel();
+                    yield new JumpEqualVariableInstruction(variable, jumpLabel, readVariable(), label);
+                }
+                case JUMP_EQUAL_FUNCTION -> {
+                    Label jumpLabel = readLabel();
+                    String functionName = readFunctionName();
+                    yield new JumpEqualFunctionInstruction(variable, jumpLabel, functionName, readArguments(), label);
+                }
+                case QUOTE -> {
+                    String functionName = readFunctionName();
+                    yield new QuoteInstruction(label, variable, functionName, readArguments());
+                }
+                default -> throw new IllegalArgumentException("Unknown opcode in program image: " + opcode);
+            };
+        }
+
+        private String readFunctionName() {
+            int functionId = buffer.getInt();
+            return functionId == -1 ? strings[buffer.getInt()] : functionNames[functionId];
+        }
+
+        private List<String> readArguments() {
+            int count = readCount();
+            List<String> arguments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                arguments.add(strings[buffer.getInt()]);
+            }
+            return arguments;
+        }
+
+        //every counted element takes at least a byte, so a damaged count can't ask for more than the bytes left
+        private int readCount() {
+            int count = buffer.getInt();
+            if (count < 0 || count > buffer.remaining()) {
+                throw new IllegalArgumentException("Bad count in program image: " + count);
+            }
+            return count;
+        }
+
+        private Variable readVariable() {
+            StandardVariable.VariableType type = VARIABLE_TYPES[buffer.get()];
+            return StandardVariable.of(type, buffer.getInt());
+        }
+
+        private Label readLabel() {
+            return switch (buffer.get()) {
+                case LABEL_EMPTY -> FixedLabel.EMPTY;
+                case LABEL_EXIT -> FixedLabel.EXIT;
+                case LABEL_STANDARD -> StandardLabel.of(buffer.getInt());
+                default -> throw new IllegalArgumentException("Unknown label kind in program image");
+            };
+        }
+
+        //the basic instruction count isn't stored, it is counted from the instructions just read
+        private ProgramAnalysis readAnalysis(List<Instruction> instructions) {
+            int maxDegree = buffer.getInt();
+            boolean recursive = buffer.get() != 0;
+            List<Variable> inputVariables = readVariables();
+            List<Variable> workVariables = readVariables();
+            int labelCount = readCount();
+            List<Label> labels = new ArrayList<>(labelCount);
+            for (int i = 0; i < labelCount; i++) {
+                labels.add(readLabel());
+            }
+            return ProgramAnalysis.of(maxDegree, inputVariables, workVariables, labels,
+                    StandardProgram.countBasicInstructions(instructions), recursive);
+        }
+
+        private List<Variable> readVariables() {
+            int count = readCount();
+            List<Variable> variables = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                variables.add(readVariable());
+            }
+            return variables;
+        }
+    }
+}
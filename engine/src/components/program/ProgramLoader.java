@@ -0,0 +1,7 @@
+package components.program;
+
+import java.io.File;
+
+public interface ProgramLoader {
+    ProgramDocument load(File file);
+}
@@ -0,0 +1,95 @@
+package components.program;
+
+import components.executor.CallArgument;
+import components.instruction.Instruction;
+import components.instruction.implementations.synthetic.JumpEqualFunctionInstruction;
+import components.instruction.implementations.synthetic.QuoteInstruction;
+import components.label.FixedLabel;
+import components.label.Label;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+//checks the converted programs in one pass over their instructions and collects every error instead of stopping at the first
+public class ProgramValidator {
+    //below this many programs the fork/join overhead costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    private final FunctionRegistry functions;
+
+    public ProgramValidator(FunctionRegistry functions) {
+        this.functions = functions;
+    }
+
+    //programs are checked concurrently, the errors are still listed in document order (main program first)
+    public List<String> validate(Program mainProgram) {
+        List<Program> programs = new ArrayList<>(functions.size() + 1);
+        programs.add(mainProgram);
+        for (FunctionRegistry.FunctionDefinition definition : functions.getDefinitions()) {
+            programs.add(definition.program());
+        }
+
+        Stream<Program> stream = programs.size() >= PARALLEL_THRESHOLD ? programs.parallelStream() : programs.stream();
+        List<String> errors = new ArrayList<>();
+        stream.map(this::validateProgram).forEachOrdered(errors::addAll);
+        validateNoRecursion(errors);
+        return List.copyOf(errors);
+    }
+
+    private List<String> validateProgram(Program program) {
+        List<String> errors = new ArrayList<>();
+        Set<Label> definedLabels = new HashSet<>();
+        for (Instruction instruction : program.getInstructions()) {
+            definedLabels.add(instruction.getLabel());
+        }
+
+        List<Instruction> instructions = program.getInstructions();
+        for (int i = 0; i < instructions.size(); i++) {
+            Instruction instruction = instructions.get(i);
+            String location = "'" + program.getName() + "' instruction #" + (i + 1);
+
+            Label jumpLabel = instruction.getJumpLabel();
+            if (jumpLabel != FixedLabel.EMPTY && jumpLabel != FixedLabel.EXIT && !definedLabels.contains(jumpLabel)) {
+                errors.add(location + ": Can't jump to label " + jumpLabel.getStringLabel());
+            }
+
+            if (instruction instanceof QuoteInstruction quote) {
+                validateCall(quote.resolve(functions), location, errors);
+            } else if (instruction instanceof JumpEqualFunctionInstruction jumpEqualFunction) {
+                validateCall(jumpEqualFunction.resolve(functions), location, errors);
+            }
+        }
+        return errors;
+    }
+
+    private void validateCall(CallArgument.FunctionCall call, String location, List<String> errors) {
+        if (call.functionId() == -1) {
+            errors.add(location + ": Function '" + call.functionName() + "' is not defined.");
+        } else {
+            //arguments are passed by position, a missing one would leave the callee's input unassigned when expanding
+            int expectedArguments = functions.get(call.functionId()).getInputVariables(functions).size();
+            if (call.arguments().size() < expectedArguments) {
+                errors.add(location + ": Function '" + call.functionName() + "' expects " + expectedArguments
+                        + " arguments but got " + call.arguments().size() + ".");
+            }
+        }
+
+        for (CallArgument argument : call.arguments()) {
+            if (argument instanceof CallArgument.FunctionCall nestedCall) {
+                validateCall(nestedCall, location, errors);
+            }
+        }
+    }
+
+    //a recursive function has no finite expansion, so it is rejected like any other static error
+    private void validateNoRecursion(List<String> errors) {
+        CallGraph callGraph = functions.getCallGraph();
+        for (List<String> component : callGraph.getComponents()) {
+            if (callGraph.isRecursive(component.get(0))) {
+                List<String> cycle = new ArrayList<>(component);
+                Collections.reverse(cycle);
+                errors.add("Recursive functions are not supported: " + String.join(", ", cycle) + ".");
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package components.program;
 
 import components.executor.ArgumentParser;
 import components.instruction.Instruction;
+import components.instruction.implementations.synthetic.JumpEqualFunctionInstruction;
 import components.instruction.implementations.synthetic.QuoteInstruction;
 import components.label.FixedLabel;
 import components.label.FreeLabelGenerator;
@@ -18,6 +19,8 @@ public class StandardProgram implements Program {
     private final String name;
     private final List<Instruction> instructions;
     private int nextInstructionNumber;
+    //computed lazily on first use, or attached up front by the call graph for defined functions
+    private ProgramAnalysis analysis;
 
     public StandardProgram(String name) {
         this.name = name;
@@ -44,21 +47,60 @@ public class StandardProgram implements Program {
     public void addInstruction(Instruction instruction) {
         instruction.setInstructionNumber(++nextInstructionNumber);
         instructions.add(instruction);
+        analysis = null;
     }
 
     @Override
-    public List<Variable> getInputVariables(Map<String, Program> functions) {
+    public ProgramAnalysis getAnalysis(FunctionRegistry functions) {
+        if (analysis == null) {
+            analysis = computeAnalysis(functions);
+        }
+        return analysis;
+    }
+
+    //always rescans this program's instructions, callees are read through their own analysis
+    @Override
+    public ProgramAnalysis computeAnalysis(FunctionRegistry functions) {
+        return ProgramAnalysis.of(
+                scanMaxDegree(functions),
+                scanInputVariables(functions),
+                scanWorkVariables(functions),
+                scanLabels(functions),
+                countBasicInstructions(instructions),
+                false
+        );
+    }
+
+    static int countBasicInstructions(List<Instruction> instructions) {
+        int count = 0;
+        for (Instruction instruction : instructions) {
+            if (instruction.getInstructionTypeChar() == 'B') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void setAnalysis(ProgramAnalysis analysis) {
+        this.analysis = analysis;
+    }
+
+    @Override
+    public List<Variable> getInputVariables(FunctionRegistry functions) {
+        return getAnalysis(functions).inputVariables();
+    }
+
+    private List<Variable> scanInputVariables(FunctionRegistry functions) {
         Set<Variable> variables = new HashSet<>();
         for (Instruction instruction : instructions) {
-            if (instruction instanceof QuoteInstruction quote) {
-                for (String rawArg : quote.getRawArgumentStrings()) {
-                    findInputsInArgument(rawArg, functions, variables);
-                }
-            } else {
-                for (Variable variable : instruction.getAllInvolvedVariables()) {
-                    if (variable.getVariableType() == StandardVariable.VariableType.INPUT) {
-                        variables.add(variable);
-                    }
+            //a call's arguments are strings the instruction doesn't report as involved variables
+            for (String rawArg : callArgumentsOf(instruction)) {
+                findInputsInArgument(rawArg, functions, variables);
+            }
+            for (Variable variable : instruction.getAllInvolvedVariables()) {
+                if (variable.getVariableType() == StandardVariable.VariableType.INPUT) {
+                    variables.add(variable);
                 }
             }
         }
@@ -67,9 +109,8 @@ public class StandardProgram implements Program {
                 .collect(Collectors.toList());
     }
 
-    private void findInputsInArgument(String arg, Map<String, Program> functions, Set<Variable> inputs) {
-        arg = arg.trim();
-        if (!arg.startsWith("(")) {
+    private void findInputsInArgument(String arg, FunctionRegistry functions, Set<Variable> inputs) {
+        if (!ArgumentParser.isFunctionCall(arg)) {
             Variable v = VariableFactory.createVariableFromString(arg);
             if (v.getVariableType() == StandardVariable.VariableType.INPUT) {
                 inputs.add(v);
@@ -77,49 +118,52 @@ public class StandardProgram implements Program {
             return;
         }
 
-        String innerContent = arg.substring(1, arg.length() - 1);
-        int firstComma = innerContent.indexOf(',');
-
-        if (firstComma == -1) {
-            Program function = functions.get(innerContent);
+        List<String> subArguments = ArgumentParser.getFunctionArguments(arg);
+        if (subArguments.isEmpty()) {
+            Program function = functions.get(ArgumentParser.getFunctionName(arg));
             if (function != null) {
                 inputs.addAll(function.getInputVariables(functions));
             }
         } else {
-            String subArgsString = innerContent.substring(firstComma + 1);
-            List<String> subArguments = ArgumentParser.parseArguments(subArgsString);
             for (String subArg : subArguments) {
                 findInputsInArgument(subArg, functions, inputs);
             }
         }
     }
 
+    private static List<String> callArgumentsOf(Instruction instruction) {
+        return switch (instruction) {
+            case QuoteInstruction quote -> quote.getRawArgumentStrings();
+            case JumpEqualFunctionInstruction jump -> jump.getFunctionArguments();
+            default -> List.of();
+        };
+    }
+
+    private static void findWorkVariablesInArgument(String arg, Set<Variable> variables) {
+        if (!ArgumentParser.isFunctionCall(arg)) {
+            Variable v = VariableFactory.createVariableFromString(arg);
+            if (v.getVariableType() == StandardVariable.VariableType.WORK) {
+                variables.add(v);
+            }
+            return;
+        }
+        for (String subArg : ArgumentParser.getFunctionArguments(arg)) {
+            findWorkVariablesInArgument(subArg, variables);
+        }
+    }
+
     @Override
-    public int calculateMaxDegree(Map<String, Program> functions) {
+    public int calculateMaxDegree(FunctionRegistry functions) {
+        return getAnalysis(functions).maxDegree();
+    }
+
+    private int scanMaxDegree(FunctionRegistry functions) {
         int maxDegree = 0;
         for (Instruction instruction : instructions) {
-            int currentInstructionDegree;
-            if (instruction instanceof QuoteInstruction quote) {
-                // The degree of a quote is 1 (for itself) PLUS the HIGHEST degree found among its arguments.
-                int maxArgDegree = 0;
-                for (String rawArg : quote.getRawArgumentStrings()) {
-                    if (rawArg.trim().startsWith("(")) {
-                        String inner = rawArg.trim().substring(1, rawArg.length() - 1);
-                        int firstComma = inner.indexOf(',');
-                        String funcName = (firstComma == -1) ? inner : inner.substring(0, firstComma).trim();
-                        Program p = functions.get(funcName);
-                        if (p != null) {
-                            int argDegree = p.calculateMaxDegree(functions);
-                            if (argDegree > maxArgDegree) {
-                                maxArgDegree = argDegree;
-                            }
-                        }
-                    }
-                }
-                currentInstructionDegree = 1 + maxArgDegree; // Use 1 for the QUOTE's own degree
-            } else {
-                currentInstructionDegree = instruction.getDegree();
-            }
+            //the degree of a quote depends on the functions in its arguments, which the quote resolves itself
+            int currentInstructionDegree = (instruction instanceof QuoteInstruction)
+                    ? instruction.getDegree(functions)
+                    : instruction.getDegree();
 
             if (currentInstructionDegree > maxDegree) {
                 maxDegree = currentInstructionDegree;
@@ -129,19 +173,31 @@ public class StandardProgram implements Program {
     }
 
     @Override
-    public List<Variable> getWorkVariables(Map<String, Program> functions) {
+    public List<Variable> getWorkVariables(FunctionRegistry functions) {
+        return getAnalysis(functions).workVariables();
+    }
+
+    private List<Variable> scanWorkVariables(FunctionRegistry functions) {
         Set<Variable> variables = new HashSet<>();
         for (Instruction instruction : instructions) {
-            if (instruction instanceof QuoteInstruction quote) {
-                Program function = functions.get(quote.getFunctionName());
+            String functionName = switch (instruction) {
+                case QuoteInstruction quote -> quote.getFunctionName();
+                case JumpEqualFunctionInstruction jump -> jump.getFunctionName();
+                default -> null;
+            };
+            if (functionName != null) {
+                Program function = functions.get(functionName);
                 if (function != null) {
                     variables.addAll(function.getWorkVariables(functions));
                 }
-            } else {
-                for (Variable variable : instruction.getAllInvolvedVariables()) {
-                    if (variable.getVariableType() == StandardVariable.VariableType.WORK) {
-                        variables.add(variable);
-                    }
+            }
+            //the expansion takes fresh work variables above these, so the call's target and arguments count as well
+            for (String rawArg : callArgumentsOf(instruction)) {
+                findWorkVariablesInArgument(rawArg, variables);
+            }
+            for (Variable variable : instruction.getAllInvolvedVariables()) {
+                if (variable.getVariableType() == StandardVariable.VariableType.WORK) {
+                    variables.add(variable);
                 }
             }
         }
@@ -151,7 +207,11 @@ public class StandardProgram implements Program {
     }
 
     @Override
-    public List<Label> getLabels(Map<String, Program> functions) {
+    public List<Label> getLabels(FunctionRegistry functions) {
+        return getAnalysis(functions).labels();
+    }
+
+    private List<Label> scanLabels(FunctionRegistry functions) {
         Set<Label> labels = new HashSet<>();
         for (Instruction instruction : instructions) {
             if (instruction instanceof QuoteInstruction quote) {
@@ -159,11 +219,11 @@ public class StandardProgram implements Program {
                 if (function != null) {
                     labels.addAll(function.getLabels(functions));
                 }
-            } else {
-                for (Label label : instruction.getAllInvolvedLabels()) {
-                    if (label != FixedLabel.EMPTY) {
-                        labels.add(label);
-                    }
+            }
+            //a quote's own label too, or inlining this program wouldn't rename it
+            for (Label label : instruction.getAllInvolvedLabels()) {
+                if (label != FixedLabel.EMPTY) {
+                    labels.add(label);
                 }
             }
         }
@@ -173,7 +233,7 @@ public class StandardProgram implements Program {
     }
 
     @Override
-    public Program expand(Map<String, Program> functions) {
+    public Program expand(FunctionRegistry functions) {
         Program expandedProgram = new StandardProgram(name);
         FreeLabelGenerator nextFreeLabel = new FreeLabelGenerator(this.getNextFreeLabelNumber(functions));
         FreeWorkVariableGenerator nextFreeWorkVariable = new FreeWorkVariableGenerator(this.getNextFreeWorkVariableNumber(functions));
@@ -188,28 +248,12 @@ public class StandardProgram implements Program {
     }
 
     @Override
-    public int getNextFreeLabelNumber(Map<String, Program> functions) {
-        int maxLabelNumber = 0;
-        for (Label label : getLabels(functions)) {
-            if (label.getSerialNumber() > maxLabelNumber && label != FixedLabel.EXIT) {
-                maxLabelNumber = label.getSerialNumber();
-            }
-        }
-        return maxLabelNumber + 1;
+    public int getNextFreeLabelNumber(FunctionRegistry functions) {
+        return getAnalysis(functions).nextFreeLabelNumber();
     }
 
     @Override
-    public int getNextFreeWorkVariableNumber(Map<String, Program> functions) {
-        int maxWorkVariableNumber = 0;
-        Set<Variable> allVars = new HashSet<>();
-        allVars.addAll(getWorkVariables(functions));
-        allVars.addAll(getInputVariables(functions));
-
-        for (Variable variable : allVars) {
-            if (variable.getSerialNumber() > maxWorkVariableNumber) {
-                maxWorkVariableNumber = variable.getSerialNumber();
-            }
-        }
-        return maxWorkVariableNumber + 1;
+    public int getNextFreeWorkVariableNumber(FunctionRegistry functions) {
+        return getAnalysis(functions).nextFreeWorkVariableNumber();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package components.program;
+
+import components.instruction.Instruction;
+import components.instruction.InstructionFactory;
+import components.label.LabelFactory;
+import components.variable.VariableFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//reads S-Instruction elements one at a time straight into InstructionFactory, without building the JAXB object tree.
+//meant for machine generated programs with a very large number of instructions
+public class StaxProgramLoader implements ProgramLoader {
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    @Override
+    public ProgramDocument load(File file) {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+            try {
+                return readDocument(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private ProgramDocument readDocument(XMLStreamReader reader) throws XMLStreamException {
+        String programName = null;
+        List<Instruction> programInstructions = new ArrayList<>();
+        List<FunctionRegistry.FunctionDefinition> functions = new ArrayList<>();
+
+        String functionName = null;
+        String functionUserString = null;
+        List<Instruction> functionInstructions = null;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "S-Program" -> programName = reader.getAttributeValue(null, "name");
+                    case "S-Function" -> {
+                        functionName = reader.getAttributeValue(null, "name");
+                        functionUserString = reader.getAttributeValue(null, "user-string");
+                        functionInstructions = new ArrayList<>();
+                    }
+                    case "S-Instruction" -> {
+                        Instruction instruction = readInstruction(reader);
+                        (functionInstructions != null ? functionInstructions : programInstructions).add(instruction);
+                    }
+                    default -> {
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("S-Function")) {
+                Program function = new StandardProgram(functionName, functionInstructions);
+                functions.add(new FunctionRegistry.FunctionDefinition(functionName, functionUserString, function));
+                functionInstructions = null;
+            }
+        }
+
+        if (programName == null) {
+            throw new IllegalArgumentException("File has no S-Program element.");
+        }
+        return new ProgramDocument(new StandardProgram(programName, programInstructions), functions);
+    }
+
+    //the reader is on the S-Instruction start tag, it is left on the matching end tag
+    private Instruction readInstruction(XMLStreamReader reader) throws XMLStreamException {
+        String instructionName = reader.getAttributeValue(null, "name");
+        String variable = null;
+        String label = null;
+        Map<String, String> arguments = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "S-Variable" -> variable = reader.getElementText();
+                    case "S-Label" -> label = reader.getElementText();
+                    case "S-Instruction-Argument" -> arguments.putIfAbsent(
+                            reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "value"));
+                    default -> {
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("S-Instruction")) {
+                break;
+            }
+        }
+
+        return InstructionFactory.createInstruction(instructionName,
+                LabelFactory.createLabelFromString(label),
+                VariableFactory.createVariableFromString(variable),
+                arguments);
+    }
+}
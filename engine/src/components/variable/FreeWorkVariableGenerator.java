@@ -11,7 +11,7 @@ public class FreeWorkVariableGenerator {
     }
 
     public Variable getNextFreeWorkVariable() {
-        Variable variable = new StandardVariable(StandardVariable.VariableType.WORK, nextSerialNumber);
+        Variable variable = StandardVariable.of(StandardVariable.VariableType.WORK, nextSerialNumber);
         nextSerialNumber++;
         return variable;
     }
@@ -1,27 +1,90 @@
 package components.variable;
 
-import java.util.Objects;
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class StandardVariable implements Variable {
+//instances are canonical (one per type and serial number), so equality is identity and the hash is computed once
+public final class StandardVariable implements Variable {
     public enum VariableType {INPUT, WORK, OUTPUT, EMPTY}
 
+    static final StandardVariable OUTPUT = new StandardVariable(VariableType.OUTPUT, 0);
+    static final StandardVariable EMPTY = new StandardVariable(VariableType.EMPTY, 0);
+
+    //serials below this are kept in the arrays, a file naming x1000000000 mustn't make them that long
+    static final int DENSE_SERIAL_LIMIT = 1 << 20;
+
+    //read without locking, only grown under the class lock
+    private static volatile StandardVariable[] inputVariables = new StandardVariable[16];
+    private static volatile StandardVariable[] workVariables = new StandardVariable[16];
+    //negative and very large serial numbers are never generated, they only come from odd input
+    private static final Map<Long, StandardVariable> sparseSerials = new ConcurrentHashMap<>();
+
     private final VariableType variableType;
     private final int serialNumber;
+    private final transient String stringVariable;
+    private final transient int hash;
 
-    public StandardVariable(VariableType variableType, int serialNumber) {
+    private StandardVariable(VariableType variableType, int serialNumber) {
         this.variableType = variableType;
         this.serialNumber = serialNumber;
-    }
-
-    @Override
-    public String getStringVariable() {
-        return switch (variableType)
+        this.stringVariable = switch (variableType)
         {
             case INPUT -> "x" + serialNumber;
             case WORK -> "z" + serialNumber;
             case OUTPUT -> "y";
             case EMPTY -> "";
         };
+        this.hash = 31 * variableType.ordinal() + serialNumber;
+    }
+
+    public static StandardVariable of(VariableType variableType, int serialNumber) {
+        return switch (variableType) {
+            case OUTPUT -> OUTPUT;
+            case EMPTY -> EMPTY;
+            case INPUT -> {
+                StandardVariable[] cache = inputVariables;
+                StandardVariable variable = serialNumber >= 0 && serialNumber < cache.length ? cache[serialNumber] : null;
+                yield variable != null ? variable : intern(variableType, serialNumber);
+            }
+            case WORK -> {
+                StandardVariable[] cache = workVariables;
+                StandardVariable variable = serialNumber >= 0 && serialNumber < cache.length ? cache[serialNumber] : null;
+                yield variable != null ? variable : intern(variableType, serialNumber);
+            }
+        };
+    }
+
+    private static StandardVariable intern(VariableType variableType, int serialNumber) {
+        if (serialNumber < 0 || serialNumber >= DENSE_SERIAL_LIMIT) {
+            return sparseSerials.computeIfAbsent(((long) variableType.ordinal() << 32) | (serialNumber & 0xFFFFFFFFL),
+                    key -> new StandardVariable(variableType, serialNumber));
+        }
+        return internDense(variableType, serialNumber);
+    }
+
+    private static synchronized StandardVariable internDense(VariableType variableType, int serialNumber) {
+        StandardVariable[] cache = variableType == VariableType.INPUT ? inputVariables : workVariables;
+        if (serialNumber >= cache.length) {
+            cache = Arrays.copyOf(cache, Math.min(Math.max(cache.length * 2, serialNumber + 1), DENSE_SERIAL_LIMIT));
+        } else if (cache[serialNumber] != null) {
+            return cache[serialNumber];
+        }
+        //all fields are final, so a reader racing this write sees either null (and comes here) or a complete instance
+        StandardVariable variable = new StandardVariable(variableType, serialNumber);
+        cache[serialNumber] = variable;
+        if (variableType == VariableType.INPUT) {
+            inputVariables = cache;
+        } else {
+            workVariables = cache;
+        }
+        return variable;
+    }
+
+    @Override
+    public String getStringVariable() {
+        return stringVariable;
     }
 
     @Override
@@ -36,13 +99,16 @@ public class StandardVariable implements Variable {
 
     @Override
     public boolean equals(Object o) {
-        if (o == null || getClass() != o.getClass()) return false;
-        StandardVariable that = (StandardVariable) o;
-        return serialNumber == that.serialNumber && variableType == that.variableType;
+        return this == o;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(variableType, serialNumber);
+        return hash;
+    }
+
+    @Serial
+    private Object readResolve() {
+        return of(variableType, serialNumber);
     }
 }
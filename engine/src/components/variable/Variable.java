@@ -7,6 +7,6 @@ public interface Variable extends Serializable {
     StandardVariable.VariableType getVariableType();
     int getSerialNumber();
 
-    Variable OUTPUT = new StandardVariable(StandardVariable.VariableType.OUTPUT, 0);
-    Variable EMPTY = new StandardVariable(StandardVariable.VariableType.EMPTY, 0);
+    Variable OUTPUT = StandardVariable.OUTPUT;
+    Variable EMPTY = StandardVariable.EMPTY;
 }
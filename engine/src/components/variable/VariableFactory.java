@@ -10,8 +10,8 @@ public class VariableFactory {
         char firstChar = varString.charAt(0);
 
         return switch (firstChar) {
-            case 'x' -> new StandardVariable(StandardVariable.VariableType.INPUT, Integer.parseInt(varString.substring(1)));
-            case 'z' -> new StandardVariable(StandardVariable.VariableType.WORK, Integer.parseInt(varString.substring(1)));
+            case 'x' -> StandardVariable.of(StandardVariable.VariableType.INPUT, Integer.parseInt(varString, 1, varString.length(), 10));
+            case 'z' -> StandardVariable.of(StandardVariable.VariableType.WORK, Integer.parseInt(varString, 1, varString.length(), 10));
             case 'y' -> Variable.OUTPUT;
             default -> throw new IllegalArgumentException("Unknown variable type in XML: " + varString);
         };
@@ -0,0 +1,41 @@
+package components.engine;
+
+import components.executor.StandardContext;
+import dtos.DebugStepDetails;
+import dtos.ExecutionDetails;
+
+import java.nio.file.Path;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertTrue;
+
+//a debug session resumed after some steps ends the way a plain run of the same program does
+public class DebugResumeTest {
+    private static final String[] SAMPLES = {"composition.xml", "divide.xml", "minus.xml", "successor.xml"};
+
+    public void testResumeMatchesARun() {
+        for (String sample : SAMPLES) {
+            StandardEngine engine = new StandardEngine();
+            engine.loadProgramFromFile(Path.of("resources", sample).toFile());
+            for (int degree = 0; degree <= engine.getProgramMaxDegree(); degree++) {
+                for (int steps = 0; steps < 4; steps++) {
+                    ExecutionDetails expected = engine.runProgram(degree, false, 7L, 3L);
+
+                    DebugStepDetails step = engine.startDebugging(degree, new Long[]{7L, 3L});
+                    for (int i = 0; i < steps; i++) {
+                        step = engine.stepOver();
+                    }
+                    ExecutionDetails resumed = engine.resume();
+
+                    String what = sample + " degree " + degree + " after " + steps + " steps";
+                    //the steps were snapshotted on a persistent map, the rest of the run goes on a plain one
+                    if (!step.isFinished()) {
+                        assertTrue(resumed.variables() instanceof StandardContext, what + " runs on a StandardContext");
+                    }
+                    assertEquals(expected.cycles(), resumed.cycles(), what + " cycles");
+                    assertEquals(expected.variables().getVariables(), resumed.variables().getVariables(), what + " variables");
+                }
+            }
+        }
+    }
+}
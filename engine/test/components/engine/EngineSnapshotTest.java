@@ -0,0 +1,119 @@
+package components.engine;
+
+import components.instruction.Instruction;
+import dtos.ExecutionDetails;
+import dtos.ProgramDetails;
+import dtos.RunHistoryDetails;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertThrows;
+import static testing.Assert.assertTrue;
+
+//a saved engine state loaded into another engine: the program set, the selected program and the history, spilled
+//runs included. files of another version or cut short are refused and leave the engine as it was
+public class EngineSnapshotTest {
+    private static final Path SOURCE = Path.of("resources", "divide.xml");
+    private static final int RECORDED_RUNS = 2 * RunHistory.SEGMENT_RUNS + 5;
+
+    public void testSaveAndLoadRoundTrip() throws IOException {
+        StandardEngine saved = savedEngine();
+        Path snapshot = Files.createTempFile("engine-snapshot", ".seng");
+        saved.saveState(snapshot.toFile());
+
+        StandardEngine restored = new StandardEngine();
+        restored.loadState(snapshot.toFile());
+
+        assertEquals(saved.getSourceFile(), restored.getSourceFile(), "source file");
+        assertEquals(saved.getDisplayableProgramNames(), restored.getDisplayableProgramNames(), "program names");
+        assertEquals(saved.getProgramDetails().name(), restored.getProgramDetails().name(), "selected program");
+        for (String name : saved.getDisplayableProgramNames()) {
+            saved.setContextProgram(name);
+            restored.setContextProgram(name);
+            assertEquals(saved.getProgramMaxDegree(), restored.getProgramMaxDegree(), name + " max degree");
+            for (int degree = 0; degree <= saved.getProgramMaxDegree(); degree++) {
+                assertEquals(texts(saved.expandProgram(degree)), texts(restored.expandProgram(degree)), name + " degree " + degree);
+                assertEquals(saved.runForResult(degree, false, 9L, 4L), restored.runForResult(degree, false, 9L, 4L),
+                        name + " degree " + degree + " run");
+            }
+        }
+
+        List<RunHistoryDetails> runs = saved.getStatistics();
+        assertEquals(runs.size(), restored.getStatistics().size(), "history size");
+        for (int index : new int[]{0, 1, 2, RunHistory.SEGMENT_RUNS, RECORDED_RUNS, runs.size() - 1}) {
+            assertEquals(runs.get(index), restored.getStatistics().get(index), "run " + index);
+        }
+        //the runs that kept their final variables still have them
+        for (int runNumber = 1; runNumber <= 3; runNumber++) {
+            ExecutionDetails expected = saved.getRunResult(runNumber);
+            ExecutionDetails actual = restored.getRunResult(runNumber);
+            assertEquals(expected.variables().getVariables(), actual.variables().getVariables(), "run " + runNumber + " variables");
+            assertEquals(expected.cycles(), actual.cycles(), "run " + runNumber + " cycles");
+        }
+    }
+
+    public void testAnotherVersionIsRefused() throws IOException {
+        Path snapshot = Files.createTempFile("engine-snapshot", ".seng");
+        savedEngine().saveState(snapshot.toFile());
+        byte[] bytes = Files.readAllBytes(snapshot);
+        //the version follows the magic number
+        ByteBuffer.wrap(bytes).putInt(4, 99);
+        Files.write(snapshot, bytes);
+
+        assertRefusedAndUnchanged(snapshot, "version 99");
+    }
+
+    public void testATruncatedFileIsRefused() throws IOException {
+        Path snapshot = Files.createTempFile("engine-snapshot", ".seng");
+        savedEngine().saveState(snapshot.toFile());
+        byte[] bytes = Files.readAllBytes(snapshot);
+        for (int length : new int[]{6, bytes.length / 2, bytes.length - 1}) {
+            Files.write(snapshot, Arrays.copyOf(bytes, length));
+            assertRefusedAndUnchanged(snapshot, length + " of " + bytes.length + " bytes");
+        }
+    }
+
+    //divide with a function selected, three runs with their final variables and enough recorded runs that the oldest
+    //segments are spilled
+    private static StandardEngine savedEngine() {
+        StandardEngine engine = new StandardEngine();
+        engine.loadProgramFromFile(SOURCE.toFile());
+        engine.getRunHistory().setRetentionLimit(RunHistory.SEGMENT_RUNS);
+        for (long x = 1; x <= 3; x++) {
+            engine.runProgram(0, false, 6 * x, x);
+        }
+        for (int i = 0; i < RECORDED_RUNS; i++) {
+            engine.getRunHistory().record(i % 3, List.of((long) i, 2L), (long) i / 2, 10L + i);
+        }
+        engine.setContextProgram(engine.getDisplayableProgramNames().get(1));
+        return engine;
+    }
+
+    private static void assertRefusedAndUnchanged(Path snapshot, String what) {
+        StandardEngine engine = new StandardEngine();
+        engine.loadProgramFromFile(Path.of("resources", "successor.xml").toFile());
+        engine.runProgram(0, false, 5L);
+        ProgramDetails before = engine.getProgramDetails();
+
+        assertThrows(IOException.class, () -> engine.loadState(snapshot.toFile()), what);
+        assertEquals(before.name(), engine.getProgramDetails().name(), what + " keeps the program");
+        assertEquals(texts(before), texts(engine.getProgramDetails()), what + " keeps the instructions");
+        assertEquals(1, engine.getStatistics().size(), what + " keeps the history");
+        assertTrue(engine.getSourceFile().getName().equals("successor.xml"), what + " keeps the source file");
+    }
+
+    private static List<String> texts(ProgramDetails details) {
+        List<String> texts = new ArrayList<>(details.instructions().size());
+        for (Instruction instruction : details.instructions()) {
+            texts.add(instruction.getStringInstruction());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,140 @@
+package components.engine;
+
+import components.instruction.Instruction;
+import components.program.ProgramImage;
+import dtos.ProgramDetails;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertNull;
+import static testing.Assert.assertTrue;
+
+//loading through a program image directory: the image is written on the first load, read on the next ones and
+//ignored once the XML changes
+public class ProgramImageTest {
+    private static final String[] SAMPLES = {"composition.xml", "divide.xml", "minus.xml", "quotation.xml",
+            "self-composition.xml", "successor.xml"};
+
+    public void testAProgramLoadedFromItsImageMatchesTheXml() throws IOException {
+        Path directory = Files.createTempDirectory("program-images");
+        for (String sample : SAMPLES) {
+            Path source = Path.of("resources", sample);
+            StandardEngine fromXml = new StandardEngine();
+            fromXml.loadProgramFromFile(source.toFile());
+
+            StandardEngine writer = load(directory, source);
+            Path image = directory.resolve(ProgramImage.imageNameOf(source));
+            assertTrue(Files.exists(image), sample + " image was written");
+            assertTrue(ProgramImage.read(image, ProgramImage.hashOf(source)) != null, sample + " image is readable");
+
+            StandardEngine fromImage = load(directory, source);
+            assertSamePrograms(fromXml, fromImage, sample);
+            assertSamePrograms(writer, fromImage, sample);
+        }
+    }
+
+    public void testAChangedFileIsReadFromTheXmlAgain() throws IOException {
+        Path directory = Files.createTempDirectory("program-images");
+        Path source = Files.createTempDirectory("programs").resolve("program.xml");
+        Files.copy(Path.of("resources", "minus.xml"), source);
+        load(directory, source);
+        byte[] minusHash = ProgramImage.hashOf(source);
+
+        Files.copy(Path.of("resources", "successor.xml"), source, StandardCopyOption.REPLACE_EXISTING);
+        assertNull(ProgramImage.read(directory.resolve(ProgramImage.imageNameOf(source)), ProgramImage.hashOf(source)),
+                "the image of the old file doesn't match the new one");
+
+        StandardEngine expected = new StandardEngine();
+        expected.loadProgramFromFile(Path.of("resources", "successor.xml").toFile());
+        StandardEngine reloaded = load(directory, source);
+        assertSamePrograms(expected, reloaded, "successor over minus");
+        assertNull(ProgramImage.read(directory.resolve(ProgramImage.imageNameOf(source)), minusHash), "the image was rewritten");
+    }
+
+    public void testSameNamedSourcesKeepTheirOwnImages() throws IOException {
+        Path directory = Files.createTempDirectory("program-images");
+        Path minus = Files.createTempDirectory("programs").resolve("program.xml");
+        Path successor = Files.createTempDirectory("programs").resolve("program.xml");
+        Files.copy(Path.of("resources", "minus.xml"), minus);
+        Files.copy(Path.of("resources", "successor.xml"), successor);
+        load(directory, minus);
+        load(directory, successor);
+
+        assertTrue(ProgramImage.read(directory.resolve(ProgramImage.imageNameOf(minus)), ProgramImage.hashOf(minus)) != null,
+                "minus kept its image");
+        assertTrue(ProgramImage.read(directory.resolve(ProgramImage.imageNameOf(successor)), ProgramImage.hashOf(successor)) != null,
+                "successor has its own image");
+    }
+
+    //a damaged count is rejected before anything is allocated for it
+    public void testADamagedCountIsNotAllocated() throws IOException {
+        Path directory = Files.createTempDirectory("program-images");
+        Path source = Path.of("resources", "divide.xml");
+        load(directory, source);
+        Path image = directory.resolve(ProgramImage.imageNameOf(source));
+
+        byte[] bytes = Files.readAllBytes(image);
+        //the string count follows the magic, the version and the source hash
+        ByteBuffer.wrap(bytes).putInt(40, Integer.MAX_VALUE);
+        Files.write(image, bytes);
+        assertNull(ProgramImage.read(image, ProgramImage.hashOf(source)), "huge string count");
+
+        ByteBuffer.wrap(bytes).putInt(40, -1);
+        Files.write(image, bytes);
+        assertNull(ProgramImage.read(image, ProgramImage.hashOf(source)), "negative string count");
+
+        Files.write(image, Arrays.copyOf(bytes, 20));
+        assertNull(ProgramImage.read(image, ProgramImage.hashOf(source)), "truncated header");
+
+        StandardEngine expected = new StandardEngine();
+        expected.loadProgramFromFile(source.toFile());
+        assertSamePrograms(expected, load(directory, source), "divide over a damaged image");
+    }
+
+    private static StandardEngine load(Path directory, Path source) {
+        StandardEngine engine = new StandardEngine();
+        engine.setProgramImageDirectory(directory);
+        engine.loadProgramFromFile(source.toFile());
+        return engine;
+    }
+
+    private static void assertSamePrograms(StandardEngine expected, StandardEngine actual, String what) {
+        assertEquals(expected.getDisplayableProgramNames(), actual.getDisplayableProgramNames(), what + " program names");
+        for (String name : expected.getDisplayableProgramNames()) {
+            expected.setContextProgram(name);
+            actual.setContextProgram(name);
+            assertEquals(expected.getProgramMaxDegree(), actual.getProgramMaxDegree(), what + " " + name + " max degree");
+            for (int degree = 0; degree <= expected.getProgramMaxDegree(); degree++) {
+                ProgramDetails details = expected.expandProgram(degree);
+                ProgramDetails actualDetails = actual.expandProgram(degree);
+                assertEquals(texts(details), texts(actualDetails), what + " " + name + " degree " + degree);
+                long basic = details.instructions().stream().filter(i -> i.getInstructionTypeChar() == 'B').count();
+                assertEquals(basic, details.basicInstructionCount(), what + " " + name + " degree " + degree + " basic count");
+                assertEquals(basic, actualDetails.basicInstructionCount(), what + " " + name + " degree " + degree + " basic count");
+
+                Long[] input = new Long[details.inputVariables().size()];
+                for (int i = 0; i < input.length; i++) {
+                    input[i] = (long) (i + 3);
+                }
+                assertEquals(expected.runForResult(degree, false, input), actual.runForResult(degree, false, input),
+                        what + " " + name + " degree " + degree + " run");
+            }
+        }
+    }
+
+    private static List<String> texts(ProgramDetails details) {
+        List<String> texts = new ArrayList<>(details.instructions().size());
+        for (Instruction instruction : details.instructions()) {
+            texts.add(instruction.getStringInstruction());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,102 @@
+package components.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertThrows;
+import static testing.Assert.assertTrue;
+
+//hot reload: which functions a reload rebuilds, what it keeps, and the file watcher that triggers it
+public class ProgramReloaderTest {
+    public void testReloadingAnUnchangedFileRebuildsNothingAndKeepsTheHistory() throws IOException {
+        Path file = copyOf("divide.xml");
+        StandardEngine engine = load(file);
+        engine.runProgram(0, 7L, 2L);
+
+        assertEquals(Set.of(), engine.reloadProgramFromFile(file.toFile()), "rebuilt functions");
+        assertEquals(1, engine.getStatistics().size(), "runs kept");
+        assertEquals(3L, engine.runForResult(0, false, 7L, 2L).y(), "7 / 2");
+    }
+
+    //NOT is called by Smaller_Equal_Than, Smaller_Than and Bigger_Equal_Than, EQUAL calls Smaller_Equal_Than.
+    //Minus, AND and CONST0 don't reach NOT
+    public void testAChangedFunctionRebuildsItAndItsCallers() throws IOException {
+        Path file = copyOf("divide.xml");
+        StandardEngine engine = load(file);
+
+        Files.writeString(file, Files.readString(file).replace("name=\"NOT\" user-string=\"!\"", "name=\"NOT\" user-string=\"not\""));
+        assertEquals(Set.of("NOT", "Smaller_Equal_Than", "Smaller_Than", "Bigger_Equal_Than", "EQUAL"),
+                engine.reloadProgramFromFile(file.toFile()), "rebuilt functions");
+        assertTrue(engine.getDisplayableProgramNames().contains("not"), "the new user string is shown");
+        assertEquals(3L, engine.runForResult(0, false, 7L, 2L).y(), "7 / 2 after the reload");
+    }
+
+    public void testAFailedLoadKeepsTheSourceFile() throws IOException {
+        Path file = copyOf("divide.xml");
+        StandardEngine engine = load(file);
+
+        File broken = Files.writeString(Files.createTempFile("broken", ".xml"), "<S-Program").toFile();
+        assertThrows(RuntimeException.class, () -> engine.loadProgramFromFile(broken), "loading a broken file");
+        assertEquals(file.toFile(), engine.getSourceFile(), "source file after a failed load");
+        assertThrows(RuntimeException.class, () -> engine.reloadProgramFromFile(broken), "reloading a broken file");
+        assertEquals(file.toFile(), engine.getSourceFile(), "source file after a failed reload");
+        assertEquals(3L, engine.runForResult(0, false, 7L, 2L).y(), "the program is still loaded");
+    }
+
+    public void testAProgramThatFailsValidationLeavesThePreviousOneLoaded() throws IOException {
+        Path file = copyOf("divide.xml");
+        StandardEngine engine = load(file);
+        engine.runProgram(0, 7L, 2L);
+
+        assertThrows(RuntimeException.class, () -> engine.loadProgramFromFile(new File("resources", "error-1.xml")),
+                "loading a program that calls undefined functions");
+        assertTrue(engine.isProgramLoaded(), "a program is loaded");
+        assertEquals("Divide", engine.getProgramDetails().name(), "the loaded program");
+        assertEquals(1, engine.getStatistics().size(), "runs kept");
+        assertEquals(3L, engine.runForResult(0, false, 7L, 2L).y(), "7 / 2");
+    }
+
+    public void testTheWatcherReloadsAChangedFile() throws IOException, InterruptedException {
+        Path file = copyOf("minus.xml");
+        StandardEngine engine = load(file);
+        BlockingQueue<Object> outcomes = new ArrayBlockingQueue<>(16);
+        try (ProgramReloader reloader = new ProgramReloader(engine, file.toFile(), new ProgramReloader.Listener() {
+            @Override
+            public void reloaded(Set<String> rebuiltFunctions) {
+                outcomes.add(rebuiltFunctions);
+            }
+
+            @Override
+            public void failed(RuntimeException exception) {
+                outcomes.add(exception);
+            }
+        })) {
+            reloader.start();
+            Files.copy(Path.of("resources", "successor.xml"), file, StandardCopyOption.REPLACE_EXISTING);
+
+            Object outcome = outcomes.poll(10, TimeUnit.SECONDS);
+            assertEquals(Set.of(), outcome, "reloaded without functions");
+            assertEquals(6L, engine.runForResult(0, false, 5L).y(), "successor of 5");
+        }
+    }
+
+    private static StandardEngine load(Path file) {
+        StandardEngine engine = new StandardEngine();
+        engine.loadProgramFromFile(file.toFile());
+        return engine;
+    }
+
+    private static Path copyOf(String sample) throws IOException {
+        Path file = Files.createTempDirectory("programs").resolve(sample);
+        Files.copy(Path.of("resources", sample), file);
+        return file;
+    }
+}
@@ -0,0 +1,150 @@
+package components.engine;
+
+import components.executor.StandardContext;
+import components.variable.StandardVariable;
+import components.variable.Variable;
+import dtos.ExecutionDetails;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertNull;
+import static testing.Assert.assertTrue;
+
+//the final variable values a run keeps: the varint encoding, including negative values and the extremes of a long,
+//and reading them back through getRunResult
+public class RunHistoryStateTest {
+    private static final RunHistory.StateLayout LAYOUT = new RunHistory.StateLayout("program",
+            List.of(StandardVariable.of(StandardVariable.VariableType.INPUT, 1),
+                    StandardVariable.of(StandardVariable.VariableType.INPUT, 2)),
+            List.of(StandardVariable.of(StandardVariable.VariableType.WORK, 1),
+                    StandardVariable.of(StandardVariable.VariableType.WORK, 2),
+                    StandardVariable.of(StandardVariable.VariableType.WORK, 3)));
+
+    public void testExtremeAndNegativeValuesRoundTrip() {
+        long[][] cases = {
+                {0, 0, 0, 0, 0, 0},
+                {-1, 1, -1, 1, -1, 1},
+                {Long.MIN_VALUE, 0, Long.MIN_VALUE, -1, Long.MIN_VALUE, 1},
+                {Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE},
+                {Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE},
+                {-63, 64, -64, 65, Integer.MIN_VALUE, Integer.MAX_VALUE + 1L},
+        };
+        for (long[] values : cases) {
+            assertRoundTrip(values);
+        }
+
+        Random random = new Random(38);
+        for (int i = 0; i < 10_000; i++) {
+            long[] values = new long[6];
+            for (int slot = 0; slot < values.length; slot++) {
+                values[slot] = switch (random.nextInt(4)) {
+                    case 0 -> random.nextLong();
+                    case 1 -> random.nextInt(200) - 100;
+                    case 2 -> random.nextBoolean() ? Long.MIN_VALUE : Long.MAX_VALUE;
+                    default -> -random.nextInt(Integer.MAX_VALUE);
+                };
+            }
+            assertRoundTrip(values);
+        }
+    }
+
+    public void testSmallCloseValuesTakeOneByteEach() {
+        byte[] encoded = RunHistory.encodeState(LAYOUT, context(new long[]{5, 3, 4, 7, 6, 2}));
+        assertEquals(6, encoded.length, "encoded length");
+    }
+
+    public void testKeptStatesAreReadBackAfterSpilling() {
+        RunHistory history = new RunHistory();
+        history.setRetentionLimit(RunHistory.SEGMENT_RUNS);
+        int runs = 2 * RunHistory.SEGMENT_RUNS + 5;
+        for (int run = 0; run < runs; run++) {
+            history.record(0, List.of((long) run, -run - 1L), valuesOf(run)[0], run, LAYOUT, context(valuesOf(run)), -1);
+        }
+        for (int run : new int[]{0, RunHistory.SEGMENT_RUNS - 1, RunHistory.SEGMENT_RUNS, runs - 1}) {
+            ExecutionDetails result = history.getRunResult(run + 1);
+            long[] values = valuesOf(run);
+            for (int slot = 0; slot < values.length; slot++) {
+                assertEquals(values[slot], result.variables().getVariableValue(slotVariable(slot)), "run " + run + " slot " + slot);
+            }
+            assertEquals(run, result.cycles(), "run " + run + " cycles");
+        }
+    }
+
+    public void testStatesOverTheSizeLimitAreNotKept() {
+        RunHistory history = new RunHistory();
+        history.setStateSizeLimit(5);
+        long[] values = {Long.MIN_VALUE, 0, 0, 0, 0, 0};
+        history.record(0, List.of(), values[0], 1, LAYOUT, context(values), -1);
+        assertNull(history.getRunResult(1), "a state over the limit");
+        assertEquals("program", history.getRunProgramName(1), "the program of a run without its state");
+
+        history.setStateSizeLimit(RunHistory.DEFAULT_STATE_SIZE_LIMIT);
+        history.record(0, List.of(), values[0], 1, LAYOUT, context(values), -1);
+        assertTrue(history.getRunResult(2) != null, "a state under the limit");
+    }
+
+    //without its state a run still knows its program, which the engine evaluates again without recording a run
+    public void testARunWithoutItsStateIsEvaluatedAgainWithoutRecording() {
+        StandardEngine engine = new StandardEngine();
+        engine.loadProgramFromFile(new File("resources", "divide.xml"));
+        engine.getRunHistory().setStateSizeLimit(0);
+        engine.setContextProgram("-");
+        engine.runProgram(1, 9L, 4L);
+        engine.setContextProgram("Divide");
+
+        assertNull(engine.getRunResult(1), "the state wasn't kept");
+        assertEquals("Minus", engine.getRunProgramName(1), "the run's program");
+        ExecutionDetails evaluated = engine.evaluate(engine.getRunProgramName(1), 1, 9L, 4L);
+        assertEquals(5L, evaluated.variables().getVariableValue(Variable.OUTPUT), "9 - 4");
+        assertEquals(engine.getStatistics().get(0).cyclesNumber(), evaluated.cycles(), "cycles");
+        assertEquals(1, engine.getStatistics().size(), "no run was added");
+        assertEquals("Divide", engine.getProgramDetails().name(), "the selection didn't change");
+        assertNull(engine.getRunProgramName(2), "a run that doesn't exist");
+    }
+
+    private static void assertRoundTrip(long[] values) {
+        byte[] encoded = RunHistory.encodeState(LAYOUT, context(values));
+        assertTrue(encoded.length <= values.length * 10, "at most ten bytes a slot");
+
+        //decoding from a position inside a larger array, the way states are packed in a segment
+        byte[] packed = new byte[encoded.length + 7];
+        System.arraycopy(encoded, 0, packed, 3, encoded.length);
+        StandardContext decoded = RunHistory.decodeState(LAYOUT, packed, 3);
+        for (int slot = 0; slot < values.length; slot++) {
+            assertEquals(values[slot], decoded.getVariableValue(slotVariable(slot)), "slot " + slot + " of " + List.of(boxed(values)));
+        }
+    }
+
+    private static long[] valuesOf(int run) {
+        return new long[]{run * 7L, run, -run - 1L, Long.MIN_VALUE + run, Long.MAX_VALUE - run, -run * 1_000_000_007L};
+    }
+
+    private static StandardContext context(long[] values) {
+        StandardContext context = new StandardContext();
+        for (int slot = 0; slot < values.length; slot++) {
+            context.updateVariableValue(slotVariable(slot), values[slot]);
+        }
+        return context;
+    }
+
+    //y first, then the inputs and the work variables, the layout's slot order
+    private static Variable slotVariable(int slot) {
+        List<Variable> variables = new ArrayList<>();
+        variables.add(Variable.OUTPUT);
+        variables.addAll(LAYOUT.inputVariables());
+        variables.addAll(LAYOUT.workVariables());
+        return variables.get(slot);
+    }
+
+    private static Long[] boxed(long[] values) {
+        Long[] boxed = new Long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return boxed;
+    }
+}
@@ -0,0 +1,110 @@
+package components.engine;
+
+import dtos.RunHistoryDetails;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertFalse;
+import static testing.Assert.assertThrows;
+import static testing.Assert.assertTrue;
+
+//the columnar run history: segments spilled to disk past the retention limit, read back across segment boundaries,
+//and written and read whole with writeTo/readFrom
+public class RunHistoryTest {
+    private static final int RUNS = 3 * RunHistory.SEGMENT_RUNS + 17;
+
+    public void testSpilledRunsReadBackAcrossSegmentBoundaries() throws IOException {
+        Path spillFile = Files.createTempFile("run-history-test", ".bin");
+        RunHistory history = new RunHistory();
+        history.setSpillFile(spillFile);
+        history.setRetentionLimit(RunHistory.SEGMENT_RUNS);
+        recordRuns(history);
+
+        assertEquals(RUNS, history.size(), "size");
+        assertTrue(Files.size(spillFile) > 0, "old segments were spilled");
+        assertAllRuns(history);
+
+        //a page that starts in one spilled segment and ends in the next, then one from disk into memory
+        int boundary = RunHistory.SEGMENT_RUNS;
+        List<RunHistoryDetails> page = history.getRuns(boundary - 3, 6);
+        for (int i = 0; i < page.size(); i++) {
+            assertEquals(expected(boundary - 3 + i), page.get(i), "page run " + (boundary - 3 + i));
+        }
+        page = history.getRuns(RUNS - 20, 20);
+        for (int i = 0; i < page.size(); i++) {
+            assertEquals(expected(RUNS - 20 + i), page.get(i), "last page run " + (RUNS - 20 + i));
+        }
+
+        //reading back and forth between segments goes through the spilled segment cache
+        for (int index : new int[]{5, 3 * boundary, boundary + 1, 2, 2 * boundary - 1, RUNS - 1, 0}) {
+            assertEquals(expected(index), history.getRun(index), "run " + index);
+        }
+    }
+
+    public void testWriteToAndReadFromRoundTrip() throws IOException {
+        RunHistory history = new RunHistory();
+        history.setRetentionLimit(RunHistory.SEGMENT_RUNS);
+        recordRuns(history);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            history.writeTo(out);
+        }
+        RunHistory read;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = RunHistory.readFrom(in);
+        }
+
+        assertEquals(RUNS, read.size(), "size");
+        assertAllRuns(read);
+        assertEquals(history.getAggregates(), read.getAggregates(), "aggregates");
+        assertTrue(read.hasRecordedRuns(), "has recorded runs");
+        assertEquals(RUNS + 1, read.record(0, List.of(), 0L, 0).runNumber(), "numbering continues");
+    }
+
+    public void testViewsFailAfterClear() {
+        RunHistory history = new RunHistory();
+        recordRuns(history);
+        List<RunHistoryDetails> view = history.getRuns();
+        history.record(1, List.of(1L), 2L, 3);
+        assertEquals(RUNS, view.size(), "a view keeps its size");
+
+        history.clear();
+        assertEquals(0, history.size(), "size after clear");
+        assertFalse(history.hasRecordedRuns(), "has recorded runs after clear");
+        assertThrows(ConcurrentModificationException.class, () -> view.get(0), "reading a view after clear");
+        assertEquals(1, history.record(0, List.of(), 0L, 0).runNumber(), "numbering starts over");
+    }
+
+    private static void recordRuns(RunHistory history) {
+        for (int index = 0; index < RUNS; index++) {
+            RunHistoryDetails run = expected(index);
+            history.record(run.expansionDegree(), run.inputs(), run.yValue(), run.cyclesNumber(), null, null, index);
+        }
+    }
+
+    private static void assertAllRuns(RunHistory history) {
+        for (int index = 0; index < RUNS; index++) {
+            assertEquals(expected(index), history.getRun(index), "run " + index);
+        }
+    }
+
+    //inputs of varying length and sign, a missing y every seventh run and cycles past what an int holds
+    private static RunHistoryDetails expected(int index) {
+        Long[] inputs = new Long[index % 4];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = (i % 2 == 0 ? 1L : -1L) * index * (i + 1);
+        }
+        Long y = index % 7 == 0 ? null : (long) index * 31 - 50_000;
+        return new RunHistoryDetails(index + 1, index % 5, List.of(inputs), y, index * 3_000_000_007L);
+    }
+}
@@ -0,0 +1,122 @@
+package components.engine;
+
+import dtos.RunCacheMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertNull;
+import static testing.Assert.assertSame;
+import static testing.Assert.assertThrows;
+import static testing.Assert.assertTrue;
+
+//weights, least recently used eviction and the metrics of the run result cache
+public class RunResultCacheTest {
+    private static final byte[] PROGRAM = {1, 2, 3};
+    private static final int STRIPES = 16;
+    private static final int ENTRY_OVERHEAD = 160;
+
+    public void testWeightsAddUpAndReplacingAnEntryReplacesItsWeight() {
+        RunResultCache cache = new RunResultCache();
+        long expected = 0;
+        for (int i = 0; i < 100; i++) {
+            cache.put(key(i, 2), result(i % 10));
+            expected += ENTRY_OVERHEAD + 8 * 2 + i % 10;
+        }
+        RunCacheMetrics metrics = cache.getMetrics();
+        assertEquals(100, metrics.entries(), "entries");
+        assertEquals(expected, metrics.weight(), "weight");
+
+        cache.put(key(3, 2), result(50));
+        assertEquals(expected - 3 + 50, cache.getMetrics().weight(), "weight after replacing an entry");
+        assertEquals(100, cache.getMetrics().entries(), "entries after replacing an entry");
+
+        cache.clear();
+        assertEquals(0, cache.getMetrics().entries(), "entries after clear");
+        assertEquals(0, cache.getMetrics().weight(), "weight after clear");
+    }
+
+    //inputs past the program's inputs are ignored and missing ones are 0, a missing value isn't cached
+    public void testKeysFollowTheProgramsInputs() {
+        assertEquals(RunResultCache.key(PROGRAM, 1, new Long[]{3L}, 2), RunResultCache.key(PROGRAM, 1, new Long[]{3L, 0L, 9L}, 2), "[3] and [3, 0, 9]");
+        assertTrue(!RunResultCache.key(PROGRAM, 1, new Long[]{3L}, 2).equals(RunResultCache.key(PROGRAM, 2, new Long[]{3L}, 2)), "degrees differ");
+        assertTrue(!RunResultCache.key(PROGRAM, 1, new Long[]{3L}, 2).equals(RunResultCache.key(new byte[]{9}, 1, new Long[]{3L}, 2)), "programs differ");
+        assertNull(RunResultCache.key(PROGRAM, 1, new Long[]{null, 1L}, 2), "a missing value");
+    }
+
+    public void testTheLeastRecentlyUsedEntryOfAStripeIsEvicted() {
+        List<RunResultCache.Key> sameStripe = keysInTheStripeOf(key(0, 1), 3);
+        RunResultCache.Key first = sameStripe.get(0), second = sameStripe.get(1), third = sameStripe.get(2);
+
+        //room for two entries a stripe
+        RunResultCache cache = new RunResultCache(STRIPES * 2L * weight(0));
+        RunResultCache.Result firstResult = result(0);
+        cache.put(first, firstResult);
+        cache.put(second, result(0));
+        assertSame(firstResult, cache.get(first), "first before the eviction");
+        cache.put(third, result(0));
+
+        assertNull(cache.get(second), "the least recently used entry was evicted");
+        assertSame(firstResult, cache.get(first), "the entry read last is kept");
+        assertTrue(cache.get(third) != null, "the new entry is kept");
+        RunCacheMetrics metrics = cache.getMetrics();
+        assertEquals(1, metrics.evictions(), "evictions");
+        assertEquals(2, metrics.entries(), "entries");
+        assertEquals(2 * weight(0), metrics.weight(), "weight");
+        assertEquals(3, metrics.hits(), "hits");
+        assertEquals(1, metrics.misses(), "misses");
+    }
+
+    public void testTheWeightLimitHolds() {
+        RunResultCache cache = new RunResultCache(STRIPES * 1_000L);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(key(i, 1 + i % 5), result(i % 300));
+            assertTrue(cache.getMetrics().weight() <= STRIPES * 1_000L, "weight after " + i + " puts");
+        }
+        RunCacheMetrics metrics = cache.getMetrics();
+        assertEquals(10_000 - metrics.entries(), metrics.evictions(), "every entry not kept was evicted");
+
+        cache.put(key(-1, 1), result(2_000));
+        assertNull(cache.get(key(-1, 1)), "an entry heavier than a stripe's share isn't kept");
+
+        cache.setMaxWeight(STRIPES * 300L);
+        assertTrue(cache.getMetrics().weight() <= STRIPES * 300L, "a smaller limit evicts right away");
+        cache.setMaxWeight(0);
+        assertEquals(0, cache.getMetrics().entries(), "a limit of 0 keeps nothing");
+        cache.put(key(1, 1), result(0));
+        assertEquals(0, cache.getMetrics().entries(), "nothing is kept with the cache off");
+        assertThrows(IllegalArgumentException.class, () -> cache.setMaxWeight(-1), "a negative limit");
+    }
+
+    //stripes are picked by the key's hash, so keys sharing one are found by seeing which evict each other in a
+    //cache with room for a single entry a stripe
+    private static List<RunResultCache.Key> keysInTheStripeOf(RunResultCache.Key key, int count) {
+        List<RunResultCache.Key> keys = new ArrayList<>(List.of(key));
+        for (int i = 1; keys.size() < count; i++) {
+            RunResultCache probe = new RunResultCache(STRIPES * weight(0));
+            probe.put(key, result(0));
+            probe.put(key(i, 1), result(0));
+            if (probe.getMetrics().evictions() == 1) {
+                keys.add(key(i, 1));
+            }
+        }
+        return keys;
+    }
+
+    private static RunResultCache.Key key(long input, int inputsCount) {
+        Long[] inputs = new Long[inputsCount];
+        for (int i = 0; i < inputsCount; i++) {
+            inputs[i] = input + i;
+        }
+        return RunResultCache.key(PROGRAM, 0, inputs, inputsCount);
+    }
+
+    private static RunResultCache.Result result(int stateLength) {
+        return new RunResultCache.Result(1L, 2, null, new byte[stateLength]);
+    }
+
+    private static long weight(int stateLength) {
+        return ENTRY_OVERHEAD + 8 + stateLength;
+    }
+}
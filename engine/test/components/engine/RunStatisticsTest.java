@@ -0,0 +1,102 @@
+package components.engine;
+
+import dtos.RunAggregate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertNull;
+import static testing.Assert.assertTrue;
+
+//streaming percentiles against the exact percentiles of the same values, sorted. a bucket is at most 1/32 of its
+//values wide, so an estimate is within about 3% of the exact value, and exact below 32
+public class RunStatisticsTest {
+    private static final double[] FRACTIONS = {0.50, 0.95, 0.99};
+
+    public void testPercentilesAreWithinABucketOfTheExactOnes() {
+        Random random = new Random(39);
+        assertPercentiles("small", 5_000, () -> random.nextInt(32));
+        assertPercentiles("uniform", 20_000, () -> 1_000 + random.nextInt(1_000_000));
+        assertPercentiles("long tail", 20_000, () -> (long) Math.exp(random.nextDouble() * 40));
+        assertPercentiles("clustered", 10_000, () -> random.nextBoolean() ? 100 + random.nextInt(3) : 5_000_000 + random.nextInt(100));
+        assertPercentiles("beyond an int", 10_000, () -> 3_000_000_000L + random.nextInt(Integer.MAX_VALUE));
+        assertPercentiles("near the top of a long", 1_000, () -> Long.MAX_VALUE - random.nextInt(1_000));
+        assertPercentiles("one run", 1, () -> 12_345);
+        assertPercentiles("constant", 1_000, () -> 777_777);
+    }
+
+    public void testAggregatesAreKeptPerProgramAndDegree() {
+        RunStatistics statistics = new RunStatistics();
+        statistics.add("b", 1, 10, 2_000_000);
+        statistics.add("a", 2, 20, -1);
+        statistics.add(null, 0, 5, 1_000_000);
+        statistics.add("a", 1, 30, 4_000_000);
+        statistics.add("a", 1, 50, -1);
+
+        List<RunAggregate> aggregates = statistics.getAggregates();
+        assertEquals(4, aggregates.size(), "aggregates");
+        assertNull(aggregates.get(0).programName(), "unnamed runs come first");
+        assertEquals("a", aggregates.get(1).programName(), "then by name");
+        assertEquals(1, aggregates.get(1).expansionDegree(), "then by degree");
+        assertEquals(2, aggregates.get(2).expansionDegree(), "then by degree");
+
+        RunAggregate a1 = aggregates.get(1);
+        assertEquals(2, a1.runsCount(), "a degree 1 runs");
+        assertEquals(30, a1.minCycles(), "a degree 1 min");
+        assertEquals(50, a1.maxCycles(), "a degree 1 max");
+        assertEquals(40.0, a1.meanCycles(), "a degree 1 mean");
+        assertEquals(1, a1.timedRunsCount(), "only runs with a wall time are timed");
+        assertEquals(4.0, a1.meanWallMillis(), "a degree 1 wall time");
+    }
+
+    public void testWriteToAndReadFromRoundTrip() throws IOException {
+        RunStatistics statistics = new RunStatistics();
+        Random random = new Random(7);
+        for (int i = 0; i < 5_000; i++) {
+            statistics.add(i % 3 == 0 ? null : "program" + i % 3, i % 4, (long) Math.exp(random.nextDouble() * 30),
+                    i % 5 == 0 ? -1 : random.nextInt(1_000_000));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            statistics.writeTo(out);
+        }
+        RunStatistics read = new RunStatistics();
+        read.add("replaced", 0, 1, 1);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read.readFrom(in);
+        }
+        assertEquals(statistics.getAggregates(), read.getAggregates(), "aggregates");
+    }
+
+    private static void assertPercentiles(String what, int count, LongSupplier values) {
+        RunStatistics statistics = new RunStatistics();
+        long[] cycles = new long[count];
+        for (int i = 0; i < count; i++) {
+            cycles[i] = values.getAsLong();
+            statistics.add("program", 0, cycles[i], -1);
+        }
+        Arrays.sort(cycles);
+
+        RunAggregate aggregate = statistics.getAggregates().get(0);
+        assertEquals(count, aggregate.runsCount(), what + " count");
+        assertEquals(cycles[0], aggregate.minCycles(), what + " min");
+        assertEquals(cycles[count - 1], aggregate.maxCycles(), what + " max");
+        long[] estimates = {aggregate.p50Cycles(), aggregate.p95Cycles(), aggregate.p99Cycles()};
+        for (int i = 0; i < FRACTIONS.length; i++) {
+            long exact = cycles[(int) Math.max(1, Math.ceil(FRACTIONS[i] * count)) - 1];
+            long error = Math.abs(estimates[i] - exact);
+            assertTrue(error <= exact / 32, what + " p" + Math.round(FRACTIONS[i] * 100) + " is " + estimates[i]
+                    + ", exact " + exact);
+            assertTrue(estimates[i] >= cycles[0] && estimates[i] <= cycles[count - 1], what + " estimate within the values seen");
+        }
+    }
+}
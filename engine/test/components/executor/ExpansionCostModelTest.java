@@ -0,0 +1,122 @@
+package components.executor;
+
+import components.engine.EngineSession;
+import components.engine.StandardEngine;
+import components.variable.Variable;
+import dtos.ExecutionDetails;
+import dtos.RunResult;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertThrows;
+import static testing.Assert.assertTrue;
+
+//synthetic runs (ExpansionCostModel) against running the expanded program, for every sample program, every program
+//and function in it and every degree
+public class ExpansionCostModelTest {
+    private static final String[] SAMPLES = {"composition.xml", "divide.xml", "minus.xml", "quotation.xml",
+            "self-composition.xml", "successor.xml"};
+    private static final long BUDGET = 3_000_000;
+
+    private record Sessions(EngineSession expanded, EngineSession synthetic) {}
+
+    public void testEverySampleProgramAndDegreeMatchesItsExpansion() {
+        int checked = 0;
+        for (String sample : SAMPLES) {
+            StandardEngine engine = load(sample);
+            for (String name : engine.getDisplayableProgramNames()) {
+                Sessions sessions = sessions(engine, name);
+                List<Variable> inputs = sessions.synthetic().expandProgram(0).inputVariables();
+                for (int degree = 0; degree <= sessions.synthetic().getProgramMaxDegree(); degree++) {
+                    Random random = new Random(31L * degree + name.hashCode());
+                    for (int tuple = 0; tuple < 25; tuple++) {
+                        Long[] input = new Long[inputs.size()];
+                        for (int i = 0; i < input.length; i++) {
+                            input[i] = (long) random.nextInt(tuple < 15 ? 4 : 9);
+                        }
+                        compare(sessions, sample + " " + name + " degree " + degree, degree, inputs, input);
+                        checked++;
+                    }
+                }
+            }
+        }
+        assertTrue(checked > 0, "no runs were compared");
+    }
+
+    //minus expands every synthetic instruction into loops over its operands, so its cycles grow linearly with x1.
+    //the slope is taken from expanded runs and the synthetic run must follow it far past what an int holds
+    public void testLargeOperandsFollowTheExpandedCycleGrowth() {
+        StandardEngine engine = load("minus.xml");
+        Sessions sessions = sessions(engine, engine.getDisplayableProgramNames().get(0));
+        List<Variable> inputs = sessions.synthetic().expandProgram(0).inputVariables();
+        for (int degree = 1; degree <= sessions.synthetic().getProgramMaxDegree(); degree++) {
+            long[] small = {20, 40, 60};
+            long[] cycles = new long[small.length];
+            for (int i = 0; i < small.length; i++) {
+                cycles[i] = compare(sessions, "minus degree " + degree, degree, inputs, new Long[]{small[i], 1L});
+            }
+            long slope = (cycles[1] - cycles[0]) / (small[1] - small[0]);
+            assertEquals(cycles[1] + slope * (small[2] - small[1]), cycles[2], "minus degree " + degree + " is linear in x1");
+
+            long large = 3_000_000_000L;
+            sessions.synthetic().setCycleBudget(Long.MAX_VALUE);
+            RunResult result = sessions.synthetic().evaluateForResult(degree, false, large, 1L);
+            sessions.synthetic().setCycleBudget(BUDGET);
+            assertEquals(large - 1, result.y(), "minus degree " + degree + " y");
+            assertEquals(cycles[0] + slope * (large - small[0]), result.cycles(), "minus degree " + degree + " cycles");
+        }
+    }
+
+    public void testCostsBeyondALongFailTheRun() {
+        StandardEngine engine = load("minus.xml");
+        EngineSession synthetic = engine.newSession();
+        synthetic.setSyntheticExecution(true);
+        int degree = synthetic.getProgramMaxDegree();
+        assertThrows(CycleBudgetExceededException.class,
+                () -> synthetic.evaluateForResult(degree, false, 4_000_000_000_000_000_000L, 1L),
+                "a cost over Long.MAX_VALUE");
+    }
+
+    //returns the cycles, or -1 when both runs went over the budget
+    private static long compare(Sessions sessions, String what, int degree, List<Variable> inputs, Long[] input) {
+        ExecutionDetails expanded;
+        try {
+            expanded = sessions.expanded().evaluate(degree, false, input);
+        } catch (CycleBudgetExceededException e) {
+            assertThrows(CycleBudgetExceededException.class, () -> sessions.synthetic().evaluate(degree, false, input),
+                    what + " synthetic run of an expansion over the budget");
+            return -1;
+        }
+        ExecutionDetails synthetic = sessions.synthetic().evaluate(degree, false, input);
+        String tuple = what + " inputs " + List.of(input);
+        assertEquals(expanded.cycles(), synthetic.cycles(), tuple + " cycles");
+        List<Variable> compared = new ArrayList<>(inputs);
+        compared.add(Variable.OUTPUT);
+        for (Variable variable : compared) {
+            assertEquals(expanded.variables().getVariableValue(variable), synthetic.variables().getVariableValue(variable),
+                    tuple + " " + variable.getStringVariable());
+        }
+        return expanded.cycles();
+    }
+
+    private static StandardEngine load(String sample) {
+        StandardEngine engine = new StandardEngine();
+        engine.loadProgramFromFile(new File("resources", sample));
+        return engine;
+    }
+
+    private static Sessions sessions(StandardEngine engine, String programName) {
+        EngineSession expanded = engine.newSession();
+        EngineSession synthetic = engine.newSession();
+        for (EngineSession session : List.of(expanded, synthetic)) {
+            session.setContextProgram(programName);
+            session.setCycleBudget(BUDGET);
+        }
+        synthetic.setSyntheticExecution(true);
+        return new Sessions(expanded, synthetic);
+    }
+}
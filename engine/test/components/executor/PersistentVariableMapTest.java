@@ -0,0 +1,143 @@
+package components.executor;
+
+import components.variable.StandardVariable;
+import components.variable.Variable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertNull;
+import static testing.Assert.assertSame;
+import static testing.Assert.assertTrue;
+
+//the trie against a HashMap, with hashes chosen to share slots at every level, to differ only in the last bits a
+//level looks at, and to be equal outright
+public class PersistentVariableMapTest {
+    //a variable whose hash is given, two of them are equal when their ids are
+    private record TestVariable(int id, int hash) implements Variable {
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TestVariable variable && variable.id == id;
+        }
+
+        @Override
+        public String getStringVariable() {
+            return "t" + id;
+        }
+
+        @Override
+        public StandardVariable.VariableType getVariableType() {
+            return StandardVariable.VariableType.WORK;
+        }
+
+        @Override
+        public int getSerialNumber() {
+            return id;
+        }
+    }
+
+    public void testVariablesWithEqualHashesShareACollisionNode() {
+        List<Variable> variables = new ArrayList<>();
+        for (int id = 0; id < 40; id++) {
+            variables.add(new TestVariable(id, id % 2 == 0 ? 42 : -42));
+        }
+        assertMatchesAHashMap(variables, 5_000, 1);
+    }
+
+    //hashes equal in their low 30 bits, the top level only tells them apart by the last 2 bits
+    public void testHashesThatDifferOnlyInTheLastLevel() {
+        List<Variable> variables = new ArrayList<>();
+        for (int id = 0; id < 12; id++) {
+            variables.add(new TestVariable(id, 0x1234567 | (id % 4) << 30));
+        }
+        assertMatchesAHashMap(variables, 5_000, 2);
+    }
+
+    //a few hashes shared by many variables, plus neighbours one bit away at each level
+    public void testMixedCollisionsAndNegativeHashes() {
+        List<Variable> variables = new ArrayList<>();
+        Random random = new Random(49);
+        int id = 0;
+        for (int base : new int[]{0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, random.nextInt()}) {
+            for (int copy = 0; copy < 4; copy++) {
+                variables.add(new TestVariable(id++, base));
+            }
+            for (int bit = 0; bit < Integer.SIZE; bit++) {
+                variables.add(new TestVariable(id++, base ^ (1 << bit)));
+            }
+        }
+        assertMatchesAHashMap(variables, 50_000, 3);
+    }
+
+    public void testStandardVariables() {
+        List<Variable> variables = new ArrayList<>();
+        variables.add(Variable.OUTPUT);
+        for (int serial = 1; serial <= 300; serial++) {
+            variables.add(StandardVariable.of(StandardVariable.VariableType.INPUT, serial));
+            variables.add(StandardVariable.of(StandardVariable.VariableType.WORK, serial));
+        }
+        assertMatchesAHashMap(variables, 20_000, 4);
+    }
+
+    public void testSettingTheSameValueKeepsTheMap() {
+        Variable first = new TestVariable(1, 7);
+        Variable second = new TestVariable(2, 7);
+        PersistentVariableMap map = PersistentVariableMap.EMPTY.with(first, 3).with(second, 4);
+        assertSame(map, map.with(first, 3), "same value in a collision node");
+        assertSame(map, map.with(second, 4), "same value in a collision node");
+
+        PersistentVariableMap single = PersistentVariableMap.EMPTY.with(first, 3);
+        assertSame(single, single.with(first, 3), "same value in an entry");
+        assertNull(single.get(second), "a variable with the same hash that isn't there");
+        assertNull(single.get("t1"), "a key that isn't a variable");
+    }
+
+    //applies random with() calls to the trie and to a HashMap side by side, and keeps earlier versions to check that
+    //later changes didn't reach them
+    private static void assertMatchesAHashMap(List<Variable> variables, int steps, long seed) {
+        Random random = new Random(seed);
+        PersistentVariableMap map = PersistentVariableMap.EMPTY;
+        Map<Variable, Long> expected = new HashMap<>();
+        List<PersistentVariableMap> versions = new ArrayList<>();
+        List<Map<Variable, Long>> expectedVersions = new ArrayList<>();
+
+        for (int step = 0; step < steps; step++) {
+            Variable variable = variables.get(random.nextInt(variables.size()));
+            long value = switch (random.nextInt(4)) {
+                case 0 -> 0;
+                case 1 -> random.nextLong();
+                case 2 -> expected.getOrDefault(variable, 0L);
+                default -> random.nextInt(10) - 5;
+            };
+            map = map.with(variable, value);
+            expected.put(variable, value);
+
+            assertEquals(expected.size(), map.size(), "size at step " + step);
+            assertEquals((Long) value, map.get(variable), "value at step " + step);
+            if (step % 97 == 0) {
+                versions.add(map);
+                expectedVersions.add(new HashMap<>(expected));
+            }
+        }
+
+        assertEquals(expected, map, "final map");
+        assertEquals(expected.entrySet(), map.entrySet(), "final entries");
+        for (Variable variable : variables) {
+            assertEquals(expected.get(variable), map.get(variable), "final value of " + variable.getStringVariable());
+            assertEquals(expected.containsKey(variable), map.containsKey(variable), "contains " + variable.getStringVariable());
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(expectedVersions.get(i), versions.get(i), "version " + i);
+        }
+        assertTrue(!versions.isEmpty(), "versions were kept");
+    }
+}
@@ -0,0 +1,107 @@
+package components.program;
+
+import components.engine.StandardEngine;
+import dtos.RunResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertFalse;
+import static testing.Assert.assertThrows;
+import static testing.Assert.assertTrue;
+
+//programs that call functions they don't define, with the definitions taken from a library directory
+public class FunctionLibraryTest {
+    public void testMissingFunctionsComeFromTheLibrary() throws IOException {
+        Path library = libraryOf("composition.xml", "divide.xml");
+        assertEquals(Set.of("Const7", "Minus", "Successor", "AND", "Bigger_Equal_Than", "CONST0", "EQUAL", "NOT",
+                "Smaller_Equal_Than", "Smaller_Than"), library(library).getFunctionNames(), "indexed functions");
+
+        for (String sample : new String[]{"composition.xml", "divide.xml"}) {
+            StandardEngine expected = new StandardEngine();
+            expected.loadProgramFromFile(Path.of("resources", sample).toFile());
+
+            StandardEngine engine = new StandardEngine();
+            engine.setFunctionLibrary(library(library));
+            engine.loadProgramFromFile(withoutFunctions(sample).toFile());
+
+            for (int degree = 0; degree <= expected.getProgramMaxDegree(); degree++) {
+                for (long x = 0; x < 6; x++) {
+                    RunResult result = expected.runForResult(degree, false, x + 3, x);
+                    assertEquals(result, engine.runForResult(degree, false, x + 3, x), sample + " degree " + degree + " x " + x);
+                }
+            }
+        }
+    }
+
+    public void testAProgramWithoutTheLibraryFailsValidation() throws IOException {
+        StandardEngine engine = new StandardEngine();
+        Path program = withoutFunctions("composition.xml");
+        assertThrows(RuntimeException.class, () -> engine.loadProgramFromFile(program.toFile()), "undefined functions");
+    }
+
+    //every load gets its own Programs, a load analyzes them and binds their call sites
+    public void testLoadsDontShareLibraryPrograms() throws IOException {
+        FunctionLibrary library = library(libraryOf("divide.xml"));
+        FunctionRegistry.FunctionDefinition first = library.getFunction("Bigger_Equal_Than");
+        FunctionRegistry.FunctionDefinition second = library.getFunction("Bigger_Equal_Than");
+        assertTrue(first.program() != second.program(), "a new Program per call");
+
+        ProgramDocument document = new JaxbProgramLoader().load(withoutFunctions("divide.xml").toFile());
+        ProgramDocument firstLoad = library.addMissingFunctions(document);
+        ProgramDocument secondLoad = library.addMissingFunctions(document);
+        assertEquals(firstLoad.functions().size(), secondLoad.functions().size(), "same functions");
+        for (int i = 0; i < firstLoad.functions().size(); i++) {
+            assertEquals(firstLoad.functions().get(i).name(), secondLoad.functions().get(i).name(), "function " + i);
+            assertFalse(firstLoad.functions().get(i).program() == secondLoad.functions().get(i).program(),
+                    firstLoad.functions().get(i).name() + " is shared");
+        }
+    }
+
+    //the edit keeps the file's size and modification time, only its content tells the image is stale
+    public void testAnEditedLibraryFileIsPickedUpByTheNextLoad() throws IOException {
+        Path library = libraryOf("composition.xml");
+        Path program = withoutFunctions("composition.xml");
+        StandardEngine engine = new StandardEngine();
+        engine.setFunctionLibrary(library(library));
+        engine.setProgramImageDirectory(Files.createTempDirectory("images"));
+
+        engine.loadProgramFromFile(program.toFile());
+        assertEquals(5L, engine.runForResult(0, false, 1L).y(), "7 - (1 + 1)");
+
+        Path file = library.resolve("composition.xml");
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.writeString(file, Files.readString(file).replace("name=\"constantValue\" value=\"7\"",
+                "name=\"constantValue\" value=\"9\""));
+        Files.setLastModifiedTime(file, modified);
+
+        engine.loadProgramFromFile(program.toFile());
+        assertEquals(7L, engine.runForResult(0, false, 1L).y(), "9 - (1 + 1)");
+    }
+
+    private static FunctionLibrary library(Path directory) {
+        return new FunctionLibrary(directory, new JaxbProgramLoader());
+    }
+
+    private static Path libraryOf(String... samples) throws IOException {
+        Path directory = Files.createTempDirectory("function-library");
+        for (String sample : samples) {
+            Files.copy(Path.of("resources", sample), directory.resolve(sample));
+        }
+        return directory;
+    }
+
+    //the sample with its S-Functions element removed, so every function it calls has to come from elsewhere
+    private static Path withoutFunctions(String sample) throws IOException {
+        String xml = Files.readString(Path.of("resources", sample));
+        int start = xml.indexOf("<S-Functions>");
+        int end = xml.indexOf("</S-Functions>") + "</S-Functions>".length();
+        Path program = Files.createTempDirectory("programs").resolve(sample);
+        Files.writeString(program, xml.substring(0, start) + xml.substring(end));
+        return program;
+    }
+}
@@ -0,0 +1,141 @@
+package components.program;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertTrue;
+
+//every error of a program set is reported in one list, in document order: labels nobody defines, calls to undefined
+//functions also inside other calls' arguments, calls with too few arguments, and recursive functions
+public class ProgramValidatorTest {
+    private static final String MAIN = "validator-test";
+
+    public void testEveryErrorIsReported() throws IOException {
+        List<String> errors = validate(program(
+                jumpNotZero("x1", "L9")
+                        + quote("y", "Plus", "x1,x2"),
+                function("Broken", "B",
+                        increase("y")
+                                + gotoLabel("L5"))));
+
+        assertEquals(List.of(
+                "'" + MAIN + "' instruction #1: Can't jump to label L9",
+                "'" + MAIN + "' instruction #2: Function 'Plus' is not defined.",
+                "'Broken' instruction #2: Can't jump to label L5"), errors, "errors");
+    }
+
+    public void testUndefinedFunctionsInsideArgumentsAreReported() throws IOException {
+        List<String> errors = validate(program(
+                quote("y", "Successor", "(Missing,x1)")
+                        + quote("y", "Successor", "(Successor,(Other,x2,(Third)))"),
+                successor()));
+
+        assertEquals(List.of(
+                "'" + MAIN + "' instruction #1: Function 'Missing' is not defined.",
+                "'" + MAIN + "' instruction #2: Function 'Other' is not defined.",
+                "'" + MAIN + "' instruction #2: Function 'Third' is not defined."), errors, "errors");
+    }
+
+    public void testACallNeedsAnArgumentForEveryInput() throws IOException {
+        String plus = function("Plus", "+",
+                assignment("y", "x1")
+                        + assignment("z1", "x2"));
+        List<String> errors = validate(program(
+                quote("y", "Plus", "x1")
+                        + quote("y", "Plus", "x1,x2")
+                        + quote("y", "Successor", "(Plus,x1)"),
+                plus + successor()));
+
+        assertEquals(List.of(
+                "'" + MAIN + "' instruction #1: Function 'Plus' expects 2 arguments but got 1.",
+                "'" + MAIN + "' instruction #3: Function 'Plus' expects 2 arguments but got 1."), errors, "errors");
+    }
+
+    public void testRecursiveFunctionsAreRejected() throws IOException {
+        List<String> errors = validate(program(
+                quote("y", "Ping", "x1")
+                        + quote("y", "Self", "x1"),
+                function("Ping", "ping", quote("y", "Pong", "x1"))
+                        + function("Pong", "pong", quote("y", "Ping", "x1"))
+                        + function("Self", "self", quote("y", "Self", "x1"))
+                        + successor()));
+
+        assertEquals(2, errors.size(), "one error per recursive component: " + errors);
+        assertTrue(errors.contains("Recursive functions are not supported: Self."), "self recursion: " + errors);
+        assertTrue(errors.contains("Recursive functions are not supported: Ping, Pong.")
+                || errors.contains("Recursive functions are not supported: Pong, Ping."), "mutual recursion: " + errors);
+    }
+
+    public void testAValidProgramHasNoErrors() throws IOException {
+        assertEquals(List.of(), validate(program(quote("y", "Successor", "(Successor,x1)"), successor())), "errors");
+        for (String sample : new String[]{"composition.xml", "divide.xml", "quotation.xml", "self-composition.xml"}) {
+            assertEquals(List.of(), validate(Path.of("resources", sample)), sample);
+        }
+    }
+
+    private static List<String> validate(String xml) throws IOException {
+        Path file = Files.createTempFile("validator-test", ".xml");
+        Files.writeString(file, xml);
+        return validate(file);
+    }
+
+    private static List<String> validate(Path file) {
+        ProgramDocument document = new JaxbProgramLoader().load(file.toFile());
+        FunctionRegistry functions = new FunctionRegistry(document.functions());
+        return new ProgramValidator(functions).validate(document.mainProgram());
+    }
+
+    private static String program(String instructions, String functions) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<S-Program name=\"" + MAIN + "\">\n"
+                + "<S-Instructions>\n" + instructions + "</S-Instructions>\n"
+                + "<S-Functions>\n" + functions + "</S-Functions>\n"
+                + "</S-Program>\n";
+    }
+
+    private static String function(String name, String userString, String instructions) {
+        return "<S-Function name=\"" + name + "\" user-string=\"" + userString + "\">\n"
+                + "<S-Instructions>\n" + instructions + "</S-Instructions>\n"
+                + "</S-Function>\n";
+    }
+
+    private static String successor() {
+        return function("Successor", "S", assignment("y", "x1") + increase("y"));
+    }
+
+    private static String increase(String variable) {
+        return "<S-Instruction type=\"basic\" name=\"INCREASE\"><S-Variable>" + variable + "</S-Variable></S-Instruction>\n";
+    }
+
+    private static String jumpNotZero(String variable, String label) {
+        return "<S-Instruction type=\"basic\" name=\"JUMP_NOT_ZERO\"><S-Variable>" + variable + "</S-Variable>"
+                + arguments("JNZLabel", label) + "</S-Instruction>\n";
+    }
+
+    private static String gotoLabel(String label) {
+        return "<S-Instruction type=\"synthetic\" name=\"GOTO_LABEL\"><S-Variable></S-Variable>"
+                + arguments("gotoLabel", label) + "</S-Instruction>\n";
+    }
+
+    private static String assignment(String variable, String assigned) {
+        return "<S-Instruction type=\"synthetic\" name=\"ASSIGNMENT\"><S-Variable>" + variable + "</S-Variable>"
+                + arguments("assignedVariable", assigned) + "</S-Instruction>\n";
+    }
+
+    private static String quote(String variable, String functionName, String functionArguments) {
+        return "<S-Instruction type=\"synthetic\" name=\"QUOTE\"><S-Variable>" + variable + "</S-Variable>"
+                + arguments("functionName", functionName, "functionArguments", functionArguments) + "</S-Instruction>\n";
+    }
+
+    private static String arguments(String... namesAndValues) {
+        StringBuilder arguments = new StringBuilder("<S-Instruction-Arguments>");
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            arguments.append("<S-Instruction-Argument name=\"").append(namesAndValues[i])
+                    .append("\" value=\"").append(namesAndValues[i + 1]).append("\"/>");
+        }
+        return arguments.append("</S-Instruction-Arguments>").toString();
+    }
+}
@@ -0,0 +1,70 @@
+package components.program;
+
+import components.engine.StandardEngine;
+import components.instruction.Instruction;
+import dtos.ProgramDetails;
+import dtos.RunResult;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertThrows;
+
+//the StAX loader must build the same programs as the JAXB one, for every sample program, function and degree
+public class StaxProgramLoaderTest {
+    private static final String[] SAMPLES = {"composition.xml", "divide.xml", "minus.xml", "quotation.xml",
+            "self-composition.xml", "successor.xml"};
+
+    public void testEverySampleLoadsTheSameAsWithJaxb() {
+        for (String sample : SAMPLES) {
+            StandardEngine jaxb = load(new JaxbProgramLoader(), sample);
+            StandardEngine stax = load(new StaxProgramLoader(), sample);
+            assertEquals(jaxb.getDisplayableProgramNames(), stax.getDisplayableProgramNames(), sample + " program names");
+
+            for (String name : jaxb.getDisplayableProgramNames()) {
+                jaxb.setContextProgram(name);
+                stax.setContextProgram(name);
+                assertEquals(jaxb.getProgramMaxDegree(), stax.getProgramMaxDegree(), sample + " " + name + " max degree");
+                for (int degree = 0; degree <= jaxb.getProgramMaxDegree(); degree++) {
+                    String what = sample + " " + name + " degree " + degree;
+                    ProgramDetails expected = jaxb.expandProgram(degree);
+                    ProgramDetails actual = stax.expandProgram(degree);
+                    assertEquals(expected.inputVariables(), actual.inputVariables(), what + " inputs");
+                    assertEquals(expected.workVariables(), actual.workVariables(), what + " work variables");
+                    assertEquals(expected.labels(), actual.labels(), what + " labels");
+                    assertEquals(instructionTexts(expected), instructionTexts(actual), what + " instructions");
+
+                    Long[] input = new Long[expected.inputVariables().size()];
+                    for (int i = 0; i < input.length; i++) {
+                        input[i] = (long) (i + 2);
+                    }
+                    RunResult expectedResult = jaxb.runForResult(degree, false, input);
+                    RunResult actualResult = stax.runForResult(degree, false, input);
+                    assertEquals(expectedResult, actualResult, what + " run");
+                }
+            }
+        }
+    }
+
+    public void testAnInvalidProgramFailsWithBothLoaders() {
+        assertThrows(RuntimeException.class, () -> load(new JaxbProgramLoader(), "error-1.xml"), "JAXB error-1.xml");
+        assertThrows(RuntimeException.class, () -> load(new StaxProgramLoader(), "error-1.xml"), "StAX error-1.xml");
+    }
+
+    private static List<String> instructionTexts(ProgramDetails details) {
+        List<String> texts = new ArrayList<>(details.instructions().size());
+        for (Instruction instruction : details.instructions()) {
+            texts.add(instruction.getStringInstruction());
+        }
+        return texts;
+    }
+
+    private static StandardEngine load(ProgramLoader loader, String sample) {
+        StandardEngine engine = new StandardEngine();
+        engine.setProgramLoader(loader);
+        engine.loadProgramFromFile(new File("resources", sample));
+        return engine;
+    }
+}
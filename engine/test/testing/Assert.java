@@ -0,0 +1,60 @@
+package testing;
+
+import java.util.Objects;
+
+//the checks tests make, a failed one throws an AssertionError with what was expected
+public final class Assert {
+    @FunctionalInterface
+    public interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+
+    private Assert() {
+    }
+
+    public static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    public static void assertFalse(boolean condition, String message) {
+        assertTrue(!condition, message);
+    }
+
+    public static void assertEquals(long expected, long actual, String message) {
+        if (expected != actual) {
+            throw new AssertionError(message + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    public static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    public static void assertSame(Object expected, Object actual, String message) {
+        if (expected != actual) {
+            throw new AssertionError(message + ": expected the same instance as " + expected + " but was " + actual);
+        }
+    }
+
+    public static void assertNull(Object actual, String message) {
+        if (actual != null) {
+            throw new AssertionError(message + ": expected null but was " + actual);
+        }
+    }
+
+    public static <T extends Throwable> T assertThrows(Class<T> expected, ThrowingRunnable code, String message) {
+        try {
+            code.run();
+        } catch (Throwable thrown) {
+            if (expected.isInstance(thrown)) {
+                return expected.cast(thrown);
+            }
+            throw new AssertionError(message + ": expected " + expected.getSimpleName() + " but got " + thrown, thrown);
+        }
+        throw new AssertionError(message + ": expected " + expected.getSimpleName() + " but nothing was thrown");
+    }
+}
@@ -0,0 +1,71 @@
+package testing;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+//runs the tests without a test framework: every public void no-argument method whose name starts with "test", each
+//on a new instance of its class. with no arguments every class named *Test in a class path directory is run (the
+//engine's tests and those of modules that depend on it), otherwise the named classes. tests run from the project directory, so they find the sample programs under resources/.
+//exits with 1 when a test failed
+public final class TestRunner {
+    private TestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> classNames = args.length > 0 ? Arrays.asList(args) : findTestClasses();
+        int passed = 0;
+        List<String> failures = new ArrayList<>();
+        for (String className : classNames) {
+            Class<?> testClass = Class.forName(className);
+            Method[] methods = testClass.getMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                if (!method.getName().startsWith("test") || method.getParameterCount() != 0
+                        || method.getReturnType() != void.class || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String name = testClass.getName() + "." + method.getName();
+                try {
+                    method.invoke(testClass.getDeclaredConstructor().newInstance());
+                    passed++;
+                } catch (InvocationTargetException e) {
+                    failures.add(name);
+                    System.out.println("FAILED " + name);
+                    e.getCause().printStackTrace(System.out);
+                }
+            }
+        }
+        System.out.println(passed + " passed, " + failures.size() + " failed");
+        if (!failures.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    private static List<String> findTestClasses() throws IOException {
+        List<String> classNames = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            Path root = Path.of(entry);
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(root)) {
+                files.map(root::relativize)
+                        .map(Path::toString)
+                        .filter(path -> path.endsWith("Test.class"))
+                        .map(path -> path.substring(0, path.length() - ".class".length()).replace(root.getFileSystem().getSeparator(), "."))
+                        .forEach(classNames::add);
+            }
+        }
+        return classNames.stream().sorted().distinct().toList();
+    }
+}
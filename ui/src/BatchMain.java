@@ -0,0 +1,335 @@
+import components.engine.EngineSession;
+import components.engine.StandardEngine;
+import components.program.FunctionLibrary;
+import components.program.JaxbProgramLoader;
+import components.program.ProgramLoader;
+import components.program.StaxProgramLoader;
+import components.variable.Variable;
+import dtos.ExecutionDetails;
+import dtos.ProgramDetails;
+import dtos.RunResult;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+
+//headless runs: loads a program, reads one comma separated input tuple per line and writes one CSV row per tuple.
+//at most a fixed number of tuples are in flight, so memory doesn't grow with the input.
+//rows come out in input order unless --unordered is given, then as soon as their run finishes
+public class BatchMain {
+    private static final String USAGE = """
+            usage: BatchMain <program.xml> [options]
+              --degree N        expansion degree to run at (default 0)
+              --program NAME    run this function (by its user string) instead of the main program
+              --input FILE      input tuples, one per line, '-' for stdin (default)
+              --output FILE     results CSV, '-' for stdout (default)
+              --threads N       parallel runs (default: number of processors)
+              --unordered       write rows as runs finish instead of in input order
+              --variables       add the final value of every variable to each row
+              --no-cache        run every tuple, even ones that repeat earlier inputs
+              --synthetic       run the program unexpanded, charging each instruction its expansion's cycles
+              --verify          run every tuple both expanded and with --synthetic, fail lines that differ
+              --stax            read the program with the streaming loader, for very large generated files
+              --image-dir DIR   keep a binary image of the program in DIR and load it instead of the unchanged XML
+              --library DIR     take the functions the program calls but doesn't define from the programs in DIR""";
+
+    //tuples waiting or running per thread, bounds how many results are held at once
+    private static final int IN_FLIGHT_PER_THREAD = 64;
+
+    private record Row(long lineNumber, String text, boolean failed) {}
+
+    public static void main(String[] args) {
+        String programFile = null;
+        int degree = 0;
+        String programName = null;
+        String inputFile = "-";
+        String outputFile = "-";
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean ordered = true;
+        boolean allVariables = false;
+        boolean useCache = true;
+        boolean synthetic = false;
+        boolean verify = false;
+        boolean stax = false;
+        String imageDirectory = null;
+        String libraryDirectory = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--degree" -> degree = Integer.parseInt(args[++i]);
+                    case "--program" -> programName = args[++i];
+                    case "--input" -> inputFile = args[++i];
+                    case "--output" -> outputFile = args[++i];
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--unordered" -> ordered = false;
+                    case "--variables" -> allVariables = true;
+                    case "--no-cache" -> useCache = false;
+                    case "--synthetic" -> synthetic = true;
+                    case "--verify" -> verify = true;
+                    case "--stax" -> stax = true;
+                    case "--image-dir" -> imageDirectory = args[++i];
+                    case "--library" -> libraryDirectory = args[++i];
+                    default -> {
+                        if (args[i].startsWith("--") || programFile != null) {
+                            throw new IllegalArgumentException("Unknown argument " + args[i]);
+                        }
+                        programFile = args[i];
+                    }
+                }
+            }
+            if (programFile == null || degree < 0 || threads < 1) {
+                throw new IllegalArgumentException("A program file, a degree of 0 or more and at least one thread are needed.");
+            }
+            //a synthetic run has the unexpanded program's variables, the columns are the expanded one's
+            if (synthetic && (verify || allVariables)) {
+                throw new IllegalArgumentException("--synthetic can't be used with --verify or --variables.");
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println(e.getMessage() == null ? "Missing option value." : e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        StandardEngine engine = new StandardEngine();
+        ProgramLoader loader = stax ? new StaxProgramLoader() : new JaxbProgramLoader();
+        engine.setProgramLoader(loader);
+        if (imageDirectory != null) {
+            engine.setProgramImageDirectory(Path.of(imageDirectory));
+        }
+        if (libraryDirectory != null) {
+            try {
+                engine.setFunctionLibrary(new FunctionLibrary(Path.of(libraryDirectory), loader));
+            } catch (RuntimeException e) {
+                System.err.println("Can't read the function library " + libraryDirectory + ": " + e.getMessage());
+                System.exit(2);
+                return;
+            }
+        }
+        try {
+            engine.loadProgramFromFile(new File(programFile));
+        } catch (RuntimeException e) {
+            Throwable reason = e.getCause() != null ? e.getCause() : e;
+            System.err.println(reason.getMessage() + ", file was not loaded.");
+            System.exit(2);
+            return;
+        }
+        if (programName != null) {
+            if (!engine.getDisplayableProgramNames().contains(programName)) {
+                System.err.println("There is no program or function named '" + programName + "'.");
+                System.exit(2);
+                return;
+            }
+            engine.setContextProgram(programName);
+        }
+        int maxDegree = engine.getProgramMaxDegree();
+        if (degree > maxDegree) {
+            System.err.println("Degree " + degree + " is above the program's maximal degree " + maxDegree + ".");
+            System.exit(2);
+            return;
+        }
+
+        int failed;
+        try (BufferedReader reader = openInput(inputFile); BufferedWriter writer = openOutput(outputFile)) {
+            failed = new BatchMain(engine, programName, degree, allVariables, useCache, synthetic, verify).run(reader, writer, threads, ordered);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        if (failed > 0) {
+            System.err.println(failed + " input lines could not be run.");
+            System.exit(1);
+        }
+    }
+
+    private static BufferedReader openInput(String inputFile) throws IOException {
+        InputStream in = inputFile.equals("-") ? System.in : new FileInputStream(inputFile);
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    private static BufferedWriter openOutput(String outputFile) throws IOException {
+        OutputStream out = outputFile.equals("-") ? new FileOutputStream(FileDescriptor.out) : new FileOutputStream(outputFile);
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private final StandardEngine engine;
+    private final String programName;
+    private final int degree;
+    private final boolean useCache;
+    private final List<Variable> variables;
+    //sessions are for one thread at a time, so every worker gets its own
+    private final ThreadLocal<EngineSession> sessions;
+    //with --verify, the synthetic runs every tuple is checked against
+    private final ThreadLocal<EngineSession> syntheticSessions;
+
+    private BatchMain(StandardEngine engine, String programName, int degree, boolean allVariables, boolean useCache,
+                      boolean synthetic, boolean verify) {
+        this.engine = engine;
+        this.programName = programName;
+        this.degree = degree;
+        this.useCache = useCache;
+        this.sessions = ThreadLocal.withInitial(() -> newSession(synthetic));
+        this.syntheticSessions = verify ? ThreadLocal.withInitial(() -> newSession(true)) : null;
+
+        this.variables = new ArrayList<>();
+        if (allVariables) {
+            ProgramDetails details = engine.expandProgram(degree);
+            variables.addAll(details.inputVariables());
+            variables.addAll(details.workVariables());
+        }
+    }
+
+    private EngineSession newSession(boolean synthetic) {
+        EngineSession session = engine.newSession();
+        session.setContextProgram(programName);
+        session.setSyntheticExecution(synthetic);
+        return session;
+    }
+
+    //returns how many lines failed
+    private int run(BufferedReader reader, BufferedWriter writer, int threads, boolean ordered) throws IOException {
+        writeHeader(writer);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-run");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<Row> completionService = new ExecutorCompletionService<>(pool);
+        //in ordered mode rows are taken from the head in submission order, otherwise as they finish
+        Deque<Future<Row>> inFlight = new ArrayDeque<>();
+        int maxInFlight = threads * IN_FLIGHT_PER_THREAD;
+        int failed = 0;
+
+        try {
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                long number = lineNumber;
+                String tuple = line;
+                Callable<Row> task = () -> runLine(number, tuple);
+                //the completion service queues every finished run, so ordered mode doesn't go through it
+                inFlight.add(ordered ? pool.submit(task) : completionService.submit(task));
+
+                if (inFlight.size() >= maxInFlight) {
+                    failed += writeRow(writer, next(inFlight, completionService, ordered));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                failed += writeRow(writer, next(inFlight, completionService, ordered));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return failed;
+    }
+
+    private static Row next(Deque<Future<Row>> inFlight, CompletionService<Row> completionService, boolean ordered) throws IOException {
+        try {
+            Future<Row> future;
+            if (ordered) {
+                future = inFlight.poll();
+            } else {
+                future = completionService.take();
+                inFlight.remove(future);
+            }
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for runs.");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private int writeRow(BufferedWriter writer, Row row) throws IOException {
+        if (row.failed()) {
+            System.err.println("line " + row.lineNumber() + ": " + row.text());
+            return 1;
+        }
+        writer.write(row.text());
+        writer.newLine();
+        return 0;
+    }
+
+    private void writeHeader(BufferedWriter writer) throws IOException {
+        StringBuilder header = new StringBuilder("line,y,cycles");
+        for (Variable variable : variables) {
+            header.append(',').append(variable.getStringVariable());
+        }
+        writer.write(header.toString());
+        writer.newLine();
+    }
+
+    private Row runLine(long lineNumber, String line) {
+        String[] parts = line.split(",");
+        Long[] inputs = new Long[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                inputs[i] = Long.parseLong(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            return new Row(lineNumber, "Invalid inputs, expected numbers separated by a comma.", true);
+        }
+
+        //y and the cycles don't need the program's details or the final variables
+        if (variables.isEmpty() && syntheticSessions == null) {
+            try {
+                RunResult result = sessions.get().evaluateForResult(degree, useCache, inputs);
+                return new Row(lineNumber, lineNumber + "," + result.y() + "," + result.cycles(), false);
+            } catch (RuntimeException e) {
+                return new Row(lineNumber, String.valueOf(e.getMessage()), true);
+            }
+        }
+
+        ExecutionDetails result;
+        try {
+            result = sessions.get().evaluate(degree, useCache, inputs);
+            if (syntheticSessions != null) {
+                String difference = differenceFromSynthetic(result, syntheticSessions.get().evaluate(degree, inputs));
+                if (difference != null) {
+                    return new Row(lineNumber, "Synthetic run differs: " + difference, true);
+                }
+            }
+        } catch (RuntimeException e) {
+            return new Row(lineNumber, String.valueOf(e.getMessage()), true);
+        }
+
+        StringBuilder row = new StringBuilder();
+        row.append(lineNumber).append(',')
+                .append(result.variables().getVariableValue(Variable.OUTPUT)).append(',')
+                .append(result.cycles());
+        for (Variable variable : variables) {
+            row.append(',').append(result.variables().getVariableValue(variable));
+        }
+        return new Row(lineNumber, row.toString(), false);
+    }
+
+    //the runs have different work variables, so y, the cycles and the inputs are what can be compared
+    private static String differenceFromSynthetic(ExecutionDetails expanded, ExecutionDetails synthetic) {
+        if (expanded.cycles() != synthetic.cycles()) {
+            return "cycles " + expanded.cycles() + " and " + synthetic.cycles();
+        }
+        List<Variable> compared = new ArrayList<>(expanded.programDetails().inputVariables());
+        compared.add(Variable.OUTPUT);
+        for (Variable variable : compared) {
+            long expandedValue = expanded.variables().getVariableValue(variable);
+            long syntheticValue = synthetic.variables().getVariableValue(variable);
+            if (expandedValue != syntheticValue) {
+                return variable.getStringVariable() + " " + expandedValue + " and " + syntheticValue;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,139 @@
+import components.engine.ProgramReloader;
+import components.engine.StandardEngine;
+import components.program.FunctionLibrary;
+import components.program.JaxbProgramLoader;
+import components.program.ProgramLoader;
+import components.program.StaxProgramLoader;
+import server.EmulatorServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Set;
+
+//starts the HTTP/JSON server, see EmulatorServer for the endpoints. it listens on the loopback address only
+public class ServerMain {
+    private static final String USAGE = """
+            usage: ServerMain [program.xml] [options]
+              --port N            port to listen on (default 8080)
+              --max-requests N    requests handled at once, more get 503 (default 512)
+              --max-body N        largest request body in bytes (default 1048576)
+              --max-batch N       most runs in one batch request (default 10000)
+              --max-cycles N      largest cycle budget a run may ask for (default 10000000)
+              --stax              read programs with the streaming loader, for very large generated files
+              --image-dir DIR     keep binary images of loaded programs in DIR and load them instead of unchanged XML
+              --library DIR       take the functions a program calls but doesn't define from the programs in DIR
+              --watch             reload the program file whenever it changes, keeping the run history""";
+
+    public static void main(String[] args) {
+        String programFile = null;
+        int port = 8080;
+        EmulatorServer.Limits defaults = EmulatorServer.Limits.DEFAULT;
+        int maxRequests = defaults.maxConcurrentRequests();
+        int maxBody = defaults.maxBodyBytes();
+        int maxBatch = defaults.maxBatchSize();
+        long maxCycles = defaults.maxCycleBudget();
+        boolean stax = false;
+        String imageDirectory = null;
+        String libraryDirectory = null;
+        boolean watch = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port" -> port = Integer.parseInt(args[++i]);
+                    case "--max-requests" -> maxRequests = Integer.parseInt(args[++i]);
+                    case "--max-body" -> maxBody = Integer.parseInt(args[++i]);
+                    case "--max-batch" -> maxBatch = Integer.parseInt(args[++i]);
+                    case "--max-cycles" -> maxCycles = Long.parseLong(args[++i]);
+                    case "--stax" -> stax = true;
+                    case "--image-dir" -> imageDirectory = args[++i];
+                    case "--library" -> libraryDirectory = args[++i];
+                    case "--watch" -> watch = true;
+                    default -> {
+                        if (args[i].startsWith("--") || programFile != null) {
+                            throw new IllegalArgumentException("Unknown argument " + args[i]);
+                        }
+                        programFile = args[i];
+                    }
+                }
+            }
+            if (maxRequests < 1 || maxBody < 1 || maxBatch < 1 || maxCycles < 1) {
+                throw new IllegalArgumentException("Limits must be positive.");
+            }
+            if (watch && programFile == null) {
+                throw new IllegalArgumentException("--watch needs a program file.");
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println(e.getMessage() == null ? "Missing option value." : e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        StandardEngine engine = new StandardEngine();
+        ProgramLoader loader = stax ? new StaxProgramLoader() : new JaxbProgramLoader();
+        engine.setProgramLoader(loader);
+        if (imageDirectory != null) {
+            engine.setProgramImageDirectory(Path.of(imageDirectory));
+        }
+        if (libraryDirectory != null) {
+            try {
+                engine.setFunctionLibrary(new FunctionLibrary(Path.of(libraryDirectory), loader));
+            } catch (RuntimeException e) {
+                System.err.println("Can't read the function library " + libraryDirectory + ": " + e.getMessage());
+                System.exit(2);
+                return;
+            }
+        }
+        if (programFile != null) {
+            try {
+                engine.loadProgramFromFile(new File(programFile));
+            } catch (RuntimeException e) {
+                System.err.println(describe(e) + ", file was not loaded.");
+                System.exit(2);
+                return;
+            }
+            if (watch) {
+                watch(engine, new File(programFile));
+            }
+        }
+
+        try {
+            EmulatorServer server = new EmulatorServer(engine,
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                    new EmulatorServer.Limits(maxRequests, maxBody, maxBatch, maxCycles));
+            server.start();
+            System.out.println("Listening on http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    //the reloader's thread is a daemon, the server's threads keep the process alive
+    private static void watch(StandardEngine engine, File programFile) {
+        new ProgramReloader(engine, programFile, new ProgramReloader.Listener() {
+            @Override
+            public void reloaded(Set<String> rebuiltFunctions) {
+                System.out.println("Reloaded " + programFile.getName() + ", rebuilt functions: " + rebuiltFunctions);
+            }
+
+            @Override
+            public void failed(RuntimeException exception) {
+                System.err.println(describe(exception) + ", the previous version stays loaded.");
+            }
+        }).start();
+    }
+
+    //the cause's message when it has one, parsers often throw without a message of their own
+    private static String describe(RuntimeException exception) {
+        Throwable reason = exception.getCause() != null ? exception.getCause() : exception;
+        if (reason.getMessage() != null) {
+            return reason.getMessage();
+        }
+        return exception.getMessage() != null ? exception.getMessage() : reason.getClass().getSimpleName();
+    }
+}
@@ -1,26 +1,28 @@
 package fxml;
 
-import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleStringProperty;
+import components.instruction.Instruction;
 
+//a table row over an instruction of the displayed program, its text is made the first time a cell asks for it
 public class InstructionRow {
-    private final SimpleIntegerProperty number;
-    private final SimpleStringProperty type;
-    private final SimpleStringProperty label;
-    private final SimpleStringProperty instructionText;
-    private final SimpleIntegerProperty cycles;
+    private final int number;
+    private final Instruction instruction;
+    private String instructionText;
 
-    public InstructionRow(int number, String type, String label, String instructionText, int cycles) {
-        this.number = new SimpleIntegerProperty(number);
-        this.type = new SimpleStringProperty(type);
-        this.label = new SimpleStringProperty(label);
-        this.instructionText = new SimpleStringProperty(instructionText);
-        this.cycles = new SimpleIntegerProperty(cycles);
+    public InstructionRow(int number, Instruction instruction) {
+        this.number = number;
+        this.instruction = instruction;
     }
 
-    public int getNumber() { return number.get(); }
-    public String getType() { return type.get(); }
-    public String getLabel() { return label.get(); }
-    public String getInstructionText() { return instructionText.get(); }
-    public int getCycles() { return cycles.get(); }
-}
\ No newline at end of file
+    public int getNumber() { return number; }
+    public Instruction getInstruction() { return instruction; }
+    public String getType() { return String.valueOf(instruction.getInstructionTypeChar()); }
+    public String getLabel() { return instruction.getLabel().getStringLabel(); }
+    public int getCycles() { return instruction.getCyclesNumber(); }
+
+    public String getInstructionText() {
+        if (instructionText == null) {
+            instructionText = instruction.getCommandText();
+        }
+        return instructionText;
+    }
+}
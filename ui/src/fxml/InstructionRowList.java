@@ -0,0 +1,35 @@
+package fxml;
+
+import components.instruction.Instruction;
+import javafx.collections.ObservableListBase;
+
+import java.util.List;
+
+//the rows of a program's instructions, made when the table asks for them. a table only asks for the rows it shows,
+//so a program of a million instructions costs a million references until it is scrolled through.
+//the list never changes, a new program gets a new list
+public class InstructionRowList extends ObservableListBase<InstructionRow> {
+    private final List<Instruction> instructions;
+    //a row is kept once made, so the table's selection sees the same row again
+    private final InstructionRow[] rows;
+
+    public InstructionRowList(List<Instruction> instructions) {
+        this.instructions = instructions;
+        this.rows = new InstructionRow[instructions.size()];
+    }
+
+    @Override
+    public InstructionRow get(int index) {
+        InstructionRow row = rows[index];
+        if (row == null) {
+            row = new InstructionRow(index + 1, instructions.get(index));
+            rows[index] = row;
+        }
+        return row;
+    }
+
+    @Override
+    public int size() {
+        return rows.length;
+    }
+}
@@ -22,6 +22,15 @@ public class VariableOutputRow {
         return value.get();
     }
 
+    public void setValue(String value) {
+        this.value.set(value);
+    }
+
+    //the table's cells follow the value, so a row changed in place shows its new value
+    public SimpleStringProperty valueProperty() {
+        return value;
+    }
+
 
     public boolean isChanged() { return changed.get(); }
     public void setChanged(boolean changed) { this.changed.set(changed); }
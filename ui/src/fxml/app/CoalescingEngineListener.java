@@ -0,0 +1,152 @@
+package fxml.app;
+
+import components.engine.EngineListener;
+import components.variable.Variable;
+import dtos.DebugStepDetails;
+import dtos.ProgramDetails;
+import dtos.RunHistoryDetails;
+import dtos.VariableChange;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//hands engine events to a listener on the FX thread, at most once a frame. events that come faster are merged: runs
+//added meanwhile are delivered together, steps become one step with each variable's first old and last new value,
+//and only the last expansion of each program and degree is kept. a load drops whatever came before it, and so does
+//the start of a debug session for the steps of the session before it
+public class CoalescingEngineListener implements EngineListener {
+    private static final long FRAME_NANOS = 16_666_667;
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "engine-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private record Expansion(String programName, int degree, ProgramDetails details) {}
+
+    private final EngineListener delegate;
+
+    //what came since the last delivery, guarded by the listener
+    private boolean loaded;
+    private ProgramDetails loadedProgram;
+    private final Map<String, Expansion> expansions = new LinkedHashMap<>();
+    private final List<RunHistoryDetails> runs = new ArrayList<>();
+    private DebugStepDetails step;
+    private boolean stepsStarted;
+    private final Map<Variable, VariableChange> changes = new LinkedHashMap<>();
+    private boolean scheduled;
+    private long lastDeliveryNanos;
+
+    public CoalescingEngineListener(EngineListener delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized void programLoaded(ProgramDetails selectedProgram) {
+        expansions.clear();
+        runs.clear();
+        step = null;
+        stepsStarted = false;
+        changes.clear();
+        loaded = true;
+        loadedProgram = selectedProgram;
+        schedule();
+    }
+
+    @Override
+    public synchronized void runAppended(RunHistoryDetails run) {
+        runs.add(run);
+        schedule();
+    }
+
+    @Override
+    public synchronized void runsAppended(List<RunHistoryDetails> appended) {
+        runs.addAll(appended);
+        schedule();
+    }
+
+    @Override
+    public synchronized void stepExecuted(DebugStepDetails step) {
+        //a stop and a new start within one frame: the old session's changes aren't the new one's
+        if (step.isStart()) {
+            changes.clear();
+            stepsStarted = true;
+        }
+        this.step = step;
+        for (VariableChange change : step.changes()) {
+            changes.merge(change.variable(), change,
+                    (first, later) -> new VariableChange(first.variable(), first.oldValue(), later.newValue()));
+        }
+        schedule();
+    }
+
+    @Override
+    public synchronized void expansionReady(String programName, int degree, ProgramDetails expansion) {
+        expansions.put(programName + "/" + degree, new Expansion(programName, degree, expansion));
+        schedule();
+    }
+
+    //the next delivery is a frame after the last one, or right away when that is already past
+    private void schedule() {
+        if (scheduled) {
+            return;
+        }
+        scheduled = true;
+        long wait = lastDeliveryNanos + FRAME_NANOS - System.nanoTime();
+        if (wait <= 0) {
+            Platform.runLater(this::deliver);
+        } else {
+            TIMER.schedule(() -> Platform.runLater(this::deliver), wait, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    //runs on the FX thread, the delegate is called outside the lock so engine threads don't wait for the UI
+    private void deliver() {
+        boolean wasLoaded;
+        ProgramDetails program;
+        List<Expansion> readyExpansions;
+        List<RunHistoryDetails> appended;
+        DebugStepDetails lastStep;
+        boolean started;
+        List<VariableChange> stepChanges;
+        synchronized (this) {
+            wasLoaded = loaded;
+            program = loadedProgram;
+            readyExpansions = new ArrayList<>(expansions.values());
+            appended = new ArrayList<>(runs);
+            lastStep = step;
+            started = stepsStarted;
+            stepChanges = new ArrayList<>(changes.values());
+
+            loaded = false;
+            loadedProgram = null;
+            expansions.clear();
+            runs.clear();
+            step = null;
+            stepsStarted = false;
+            changes.clear();
+            scheduled = false;
+            lastDeliveryNanos = System.nanoTime();
+        }
+
+        if (wasLoaded) {
+            delegate.programLoaded(program);
+        }
+        for (Expansion expansion : readyExpansions) {
+            delegate.expansionReady(expansion.programName(), expansion.degree(), expansion.details());
+        }
+        if (!appended.isEmpty()) {
+            delegate.runsAppended(appended);
+        }
+        if (lastStep != null) {
+            delegate.stepExecuted(new DebugStepDetails(lastStep.snapshot(), stepChanges,
+                    lastStep.nextInstructionNumber(), lastStep.isFinished(), started));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package fxml.app;
+
+import components.engine.Engine;
+import dtos.ProgramDetails;
+import javafx.application.Platform;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+//expands the shown program off the FX thread. a request replaces the one before it: if that one hasn't started it is
+//cancelled, if it is running its result is dropped. once a degree is shown, the degrees next to it are expanded in
+//the background as well, so the next expand or collapse click finds them ready. the engine keeps every expansion it
+//made, so a degree above is only prefetched when it is likely to stay within the instruction budget
+class ExpansionService {
+    //the most instructions a prefetched degree is expected to have
+    static final long PREFETCH_INSTRUCTION_BUDGET = 2_000_000;
+
+    //the load is part of the key: a task that was running when its load was invalidated still puts its result, and a
+    //new load may have a program of the same name
+    private record Key(long load, String programName, int degree) {}
+
+    private final Engine engine;
+    //one thread, so a prefetch never competes with the expansion the user is waiting for
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "expansion");
+        thread.setDaemon(true);
+        return thread;
+    });
+    //expansions made for the current load, filled by the expansion thread and read on the FX thread
+    private final Map<Key, ProgramDetails> ready = new ConcurrentHashMap<>();
+
+    //counts invalidate() calls, read by the expansion thread for the keys it is given
+    private volatile long load;
+
+    //the rest is only used on the FX thread
+    private long generation;
+    private Future<?> request;
+    private Future<?> prefetchAbove;
+    private Future<?> prefetchBelow;
+
+    ExpansionService(Engine engine) {
+        this.engine = engine;
+    }
+
+    //onReady gets the expansion on the FX thread, right away when it is ready. a request replaced before it finished
+    //calls neither callback
+    void expand(String programName, int degree, int maxDegree, Consumer<ProgramDetails> onReady, Consumer<Throwable> onFailed) {
+        long requestGeneration = ++generation;
+        cancelPending();
+
+        Key key = new Key(load, programName, degree);
+        ProgramDetails details = ready.get(key);
+        if (details != null) {
+            onReady.accept(details);
+            prefetchAround(programName, degree, maxDegree, details);
+            return;
+        }
+
+        request = executor.submit(() -> {
+            try {
+                ProgramDetails expanded = engine.expandProgram(programName, degree);
+                keep(key, expanded);
+                Platform.runLater(() -> {
+                    if (requestGeneration == generation) {
+                        onReady.accept(expanded);
+                        prefetchAround(programName, degree, maxDegree, expanded);
+                    }
+                });
+            } catch (RuntimeException e) {
+                Platform.runLater(() -> {
+                    if (requestGeneration == generation) {
+                        onFailed.accept(e);
+                    }
+                });
+            }
+        });
+    }
+
+    //drops everything made for the previous load or program selection
+    void invalidate() {
+        load++;
+        generation++;
+        cancelPending();
+        ready.clear();
+    }
+
+    private void prefetchAround(String programName, int degree, int maxDegree, ProgramDetails shown) {
+        if (degree > 0) {
+            prefetchBelow = prefetch(new Key(load, programName, degree - 1));
+        }
+        if (degree < maxDegree && expectedSizeAbove(programName, degree, shown) <= PREFETCH_INSTRUCTION_BUDGET) {
+            prefetchAbove = prefetch(new Key(load, programName, degree + 1));
+        }
+    }
+
+    private Future<?> prefetch(Key key) {
+        if (ready.containsKey(key)) {
+            return null;
+        }
+        return executor.submit(() -> {
+            try {
+                keep(key, engine.expandProgram(key.programName(), key.degree()));
+            } catch (RuntimeException ignored) {
+                //a real request for this degree will report it
+            }
+        });
+    }
+
+    //a result of an invalidated load is dropped again, so it doesn't stay around until the next invalidate
+    private void keep(Key key, ProgramDetails details) {
+        ready.put(key, details);
+        if (key.load() != load) {
+            ready.remove(key);
+        }
+    }
+
+    //the growth from the degree below repeated, or a doubling when it isn't known
+    private long expectedSizeAbove(String programName, int degree, ProgramDetails shown) {
+        long size = shown.instructions().size();
+        ProgramDetails below = ready.get(new Key(load, programName, degree - 1));
+        if (below == null || below.instructions().isEmpty()) {
+            return 2 * size;
+        }
+        double growth = Math.max(1.0, (double) size / below.instructions().size());
+        return (long) (size * growth);
+    }
+
+    private void cancelPending() {
+        for (Future<?> pending : new Future<?>[]{request, prefetchAbove, prefetchBelow}) {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+        request = null;
+        prefetchAbove = null;
+        prefetchBelow = null;
+    }
+}
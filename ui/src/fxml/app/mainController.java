@@ -1,7 +1,9 @@
 package fxml.app;
 
 import components.engine.Engine;
+import components.engine.EngineListener;
 import components.engine.StandardEngine;
+import dtos.DebugStepDetails;
 import dtos.ProgramDetails;
 import dtos.RunHistoryDetails;
 import fxml.debugger.DebuggerPanelController;
@@ -23,6 +25,7 @@ import java.util.List;
 
 public class mainController {
     private Engine engine = new StandardEngine();
+    private final ExpansionService expansionService = new ExpansionService(engine);
 
     @FXML private Button loadButton;
     @FXML private Label loadedFileLabel;
@@ -40,6 +43,8 @@ public class mainController {
 
     private int currentDegree = 0;
     private int maxDegree = 0;
+    //set while the debugger runs, an expansion finishing in the background mustn't enable the buttons again
+    private boolean expansionControlsDisabled = false;
 
     @FXML
     public void initialize() {
@@ -57,6 +62,31 @@ public class mainController {
             }
         }
 
+        //the statistics and the debugger's variables follow the engine's changes instead of reading them again.
+        //a load may keep the history (a reload) or restore one (a saved state), so the table is rebuilt from the engine
+        engine.addListener(new CoalescingEngineListener(new EngineListener() {
+            @Override
+            public void programLoaded(ProgramDetails selectedProgram) {
+                if (statisticsController != null) {
+                    statisticsController.reloadHistory();
+                }
+            }
+
+            @Override
+            public void runsAppended(List<RunHistoryDetails> runs) {
+                if (statisticsController != null) {
+                    statisticsController.showNewRuns();
+                }
+            }
+
+            @Override
+            public void stepExecuted(DebugStepDetails step) {
+                if (debuggerController != null) {
+                    debuggerController.applyDebugStep(step);
+                }
+            }
+        }));
+
         //connect instruction table controller with history controller
         if (instructionsTableController != null && instructionHistoryController != null) {
             instructionsTableController.setHistoryController(instructionHistoryController);
@@ -119,9 +149,6 @@ public class mainController {
 
         loadTask.setOnSucceeded(e -> {
             loadedFileLabel.setText("Loaded: " + file.getName());
-            if (statisticsController != null) {
-                statisticsController.clearHistory();
-            }
 
             //set up the program selector
             programSelectorComboBox.setItems(FXCollections.observableArrayList(engine.getDisplayableProgramNames()));
@@ -132,10 +159,15 @@ public class mainController {
             setupExpansionForNewProgram();
         });
 
+        //a file that fails to load leaves the previous program loaded, its selector stays usable
         loadTask.setOnFailed(e -> {
-            loadedFileLabel.setText("Failed to load file.");
-            programSelectorComboBox.getItems().clear();
-            programSelectorComboBox.setDisable(true);
+            if (engine.isProgramLoaded()) {
+                loadedFileLabel.setText("Failed to load " + file.getName() + ", the previous program stays loaded.");
+            } else {
+                loadedFileLabel.setText("Failed to load file.");
+                programSelectorComboBox.getItems().clear();
+                programSelectorComboBox.setDisable(true);
+            }
             showAlert(Alert.AlertType.ERROR, "File Load Error", "Could not load file.", loadTask.getException().getMessage());
         });
 
@@ -156,13 +188,6 @@ public class mainController {
         updateProgramViewToCurrentDegree();
     }
 
-    public void onProgramRunFinished() {
-        if (engine.isProgramLoaded() && statisticsController != null) {
-            List<RunHistoryDetails> history = engine.getStatistics();
-            statisticsController.loadStatistics(history);
-        }
-    }
-
     public void highlightInstruction(int instructionNumber) {
         if (instructionsTableController != null) {
             instructionsTableController.highlightInstruction(instructionNumber);
@@ -176,6 +201,7 @@ public class mainController {
     }
 
     public void setExpansionControlsDisabled(boolean disabled) {
+        expansionControlsDisabled = disabled;
         expandButton.setDisable(disabled);
         collapseButton.setDisable(disabled);
         programSelectorComboBox.setDisable(disabled);
@@ -187,20 +213,34 @@ public class mainController {
 
     private void setupExpansionForNewProgram() {
         if (!engine.isProgramLoaded()) return;
+        expansionService.invalidate();
         currentDegree = 0;
         maxDegree = engine.getProgramMaxDegree();
         updateProgramViewToCurrentDegree();
     }
 
+    //the expansion is made in the background, clicking again before it is ready replaces it with the new degree
     private void updateProgramViewToCurrentDegree() {
-        //get the details for the currently selected context program at the desired degree
-        ProgramDetails programDetails = engine.expandProgram(currentDegree);
+        String programName = programSelectorComboBox.getValue() != null
+                ? programSelectorComboBox.getValue()
+                : engine.getDisplayableProgramNames().get(0);
+        int degree = currentDegree;
+        degreeLabel.setText(String.format("Degree: %d / %d (expanding...)", degree, maxDegree));
+        updateButtonStates();
+        expansionService.expand(programName, degree, maxDegree,
+                programDetails -> showProgramDetails(programDetails, degree),
+                error -> {
+                    updateDegreeLabel();
+                    showAlert(Alert.AlertType.ERROR, "Expansion Error", "Could not expand the program.", error.getMessage());
+                });
+    }
 
+    private void showProgramDetails(ProgramDetails programDetails, int degree) {
         if (instructionsTableController != null) {
             instructionsTableController.loadProgramData(programDetails);
         }
         if (debuggerController != null) {
-            debuggerController.setupForNewProgram(programDetails, currentDegree);
+            debuggerController.setupForNewProgram(programDetails, degree);
         }
         if (instructionHistoryController != null) {
             instructionHistoryController.clearHistory();
@@ -221,8 +261,8 @@ public class mainController {
 
     private void updateButtonStates() {
         boolean isLoaded = engine.isProgramLoaded();
-        collapseButton.setDisable(!isLoaded || currentDegree <= 0);
-        expandButton.setDisable(!isLoaded || currentDegree >= maxDegree);
+        collapseButton.setDisable(expansionControlsDisabled || !isLoaded || currentDegree <= 0);
+        expandButton.setDisable(expansionControlsDisabled || !isLoaded || currentDegree >= maxDegree);
     }
 
     private void populateHighlightComboBox(ProgramDetails programDetails) {
@@ -6,7 +6,7 @@ import dtos.ExecutionDetails;
 import dtos.ProgramDetails;
 import dtos.DebugStepDetails;
 import components.variable.Variable;
-import dtos.RunHistoryDetails;
+import dtos.VariableChange;
 import fxml.VariableOutputRow;
 import fxml.app.mainController;
 
@@ -31,6 +31,9 @@ public class DebuggerPanelController {
 
     private boolean isInDebugMode = false;
     private Map<String, Long> previousVariableState = new HashMap<>();
+    //the debug session's rows by variable, steps change them in place
+    private final Map<Variable, VariableOutputRow> debugRows = new HashMap<>();
+    private final List<VariableOutputRow> changedDebugRows = new ArrayList<>();
     private final Map<String, TextField> variableInputFields = new LinkedHashMap<>();
 
     @FXML private Button startRunButton, startDebugButton, stopButton, resumeButton, stepOverButton, clearInputsButton;
@@ -83,7 +86,6 @@ public class DebuggerPanelController {
         try {
             ExecutionDetails executionDetails = engine.runProgram(currentProgramDegree, buildInputsArray());
             displayExecutionResults(executionDetails);
-            if (mainController != null) mainController.onProgramRunFinished();
         } catch (Exception e) {
             showAlert(Alert.AlertType.ERROR, "Execution Error", "Program encountered an error.", e.getMessage());
         }
@@ -93,10 +95,11 @@ public class DebuggerPanelController {
         if (engine == null) return;
         try {
             Long[] inputs = buildInputsArray();
-            DebugStepDetails initialStep = engine.startDebugging(currentProgramDegree, inputs);
+            //the variables come with the engine's step events, see applyDebugStep
+            clearVariableRows();
+            engine.startDebugging(currentProgramDegree, inputs);
             isInDebugMode = true;
             updateComponentStates();
-            displayDebugStepResults(initialStep);
             if (mainController != null) mainController.highlightInstruction(1);
         } catch (Exception e) {
             showAlert(Alert.AlertType.ERROR, "Debug Error", "Could not start debug session.", e.getMessage());
@@ -108,7 +111,6 @@ public class DebuggerPanelController {
         if (!isInDebugMode || engine == null) return;
         try {
             DebugStepDetails nextStep = engine.stepOver();
-            displayDebugStepResults(nextStep);
 
             if (mainController != null) {
                 mainController.highlightInstruction(nextStep.nextInstructionNumber());
@@ -117,23 +119,7 @@ public class DebuggerPanelController {
             if (nextStep.isFinished()) {
                 showAlert(Alert.AlertType.INFORMATION, "Debug Finished", "The program has finished execution.", null);
 
-                //create the history record from the final state
-                Context finalContext = nextStep.context();
-                if (finalContext != null) {
-                    Long yValue = finalContext.getVariableValue(Variable.OUTPUT);
-                    Long[] inputs = buildInputsArray();
-
-                    //use the engine's run number counter
-                    int runNum = engine.getStatistics().size() + 1;
-
-                    RunHistoryDetails finalRun = new RunHistoryDetails(runNum, currentProgramDegree, Arrays.asList(inputs), yValue, finalContext.getTotalCycles());
-
-                    //add the completed run to the engine's history
-                    engine.addRunToHistory(finalRun);
-                }
-
-                //now stop the debug session. The subsequent call to onProgramRunFinished()
-                //will fetch the history list that now includes our new entry
+                //the engine recorded the run with the step that finished it, the statistics hear of it from the engine
                 stopDebugging();
             }
         } catch (Exception e) {
@@ -158,7 +144,7 @@ public class DebuggerPanelController {
 
     @FXML private void handleClearInputs() {
         variableInputFields.values().forEach(TextField::clear);
-        variablesTableView.getItems().clear();
+        clearVariableRows();
         cyclesLabel.setText("Total Cycles: N/A");
     }
 
@@ -218,7 +204,6 @@ public class DebuggerPanelController {
         updateComponentStates(); // Reset UI to normal "program loaded" state
         if (mainController != null) {
             mainController.clearInstructionHighlight();
-            mainController.onProgramRunFinished(); // Update stats after debug run
         }
     }
 
@@ -238,7 +223,7 @@ public class DebuggerPanelController {
     private void resetInputsAndOutputs() {
         inputsContainer.getChildren().clear();
         variableInputFields.clear();
-        variablesTableView.getItems().clear();
+        clearVariableRows();
         cyclesLabel.setText("Total Cycles: N/A");
     }
 
@@ -268,14 +253,43 @@ public class DebuggerPanelController {
         cyclesLabel.setText("Total Cycles: " + executionDetails.cycles());
     }
 
-    private void displayDebugStepResults(DebugStepDetails stepDetails) {
-        if (stepDetails == null) return;
-        displayContext(stepDetails.context());
-        cyclesLabel.setText("Total Cycles: " + stepDetails.context().getTotalCycles());
+    //updates the rows of the variables the step changed, the rest of the table stays as it is. steps that came
+    //within one frame arrive as one, with every change they made. a session's first step replaces the rows of the one before
+    public void applyDebugStep(DebugStepDetails step) {
+        if (step.isStart()) {
+            clearVariableRows();
+        }
+        changedDebugRows.forEach(row -> row.setChanged(false));
+        changedDebugRows.clear();
+        for (VariableChange change : step.changes()) {
+            VariableOutputRow row = debugRows.get(change.variable());
+            if (row == null) {
+                row = new VariableOutputRow(change.variable().getStringVariable(), String.valueOf(change.newValue()));
+                debugRows.put(change.variable(), row);
+                variablesTableView.getItems().add(row);
+            } else {
+                row.setValue(String.valueOf(change.newValue()));
+            }
+            if (change.oldValue() != change.newValue()) {
+                row.setChanged(true);
+                changedDebugRows.add(row);
+            }
+        }
+        cyclesLabel.setText("Total Cycles: " + step.snapshot().getTotalCycles());
+        //the values follow their rows, the highlight is drawn by the row factory
+        variablesTableView.refresh();
+    }
+
+    private void clearVariableRows() {
+        debugRows.clear();
+        changedDebugRows.clear();
+        variablesTableView.setItems(FXCollections.observableArrayList());
     }
 
     private void displayContext(Context context) {
         if (context == null || context.getVariables() == null) return;
+        debugRows.clear();
+        changedDebugRows.clear();
         Map<String, Long> currentVariableState = new HashMap<>();
         context.getVariables().forEach((var, val) -> currentVariableState.put(var.getStringVariable(), val));
         ObservableList<VariableOutputRow> variableRows = FXCollections.observableArrayList();
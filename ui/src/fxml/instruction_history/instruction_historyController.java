@@ -12,8 +12,6 @@ import javafx.scene.control.cell.PropertyValueFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class instruction_historyController {
 
@@ -64,17 +62,7 @@ public class instruction_historyController {
         //since we built the list from current to ancient, it's already in the right order
         int rowNumber = 1;
         for (Instruction inst : instructionChain) {
-            String fullDisplayString = inst.getStringInstruction();
-            String commandText = InstructionParser.getCommandFromDisplayString(fullDisplayString);
-
-            InstructionRow row = new InstructionRow(
-                    rowNumber++,
-                    String.valueOf(inst.getInstructionTypeChar()),
-                    inst.getLabel().getStringLabel(),
-                    commandText,
-                    inst.getCyclesNumber()
-            );
-            historyRows.add(row);
+            historyRows.add(new InstructionRow(rowNumber++, inst));
         }
 
         //update the table with the history
@@ -90,19 +78,4 @@ public class instruction_historyController {
         historyTableView.getItems().clear();
         historyTableView.setPlaceholder(new Label("Select an instruction to view its expansion history"));
     }
-
-
-    public static class InstructionParser {
-        private static final Pattern INSTRUCTION_PATTERN = Pattern.compile(
-                "^#\\d+\\s+\\(\\w\\)\\s+\\[.*?\\]\\s+(.+?)\\s+\\(\\d+\\)$"
-        );
-
-        public static String getCommandFromDisplayString(String fullInstructionString) {
-            Matcher matcher = INSTRUCTION_PATTERN.matcher(fullInstructionString);
-            if (matcher.find()) {
-                return matcher.group(1).trim();
-            }
-            return fullInstructionString;
-        }
-    }
 }
\ No newline at end of file
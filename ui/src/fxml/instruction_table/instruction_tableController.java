@@ -1,18 +1,13 @@
 package fxml.instruction_table;
 
-import components.instruction.Instruction;
 import dtos.ProgramDetails;
 import fxml.instruction_history.instruction_historyController;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 
 import fxml.InstructionRow;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import fxml.InstructionRowList;
 
 
 public class instruction_tableController {
@@ -27,9 +22,6 @@ public class instruction_tableController {
 
     private String highlightedTerm = "";
 
-    //store the current program details and instructions for history tracking
-    private ProgramDetails currentProgramDetails;
-
     //reference to the instruction history controller
     private instruction_historyController historyController;
 
@@ -74,15 +66,7 @@ public class instruction_tableController {
         instructionsTableView.getSelectionModel().selectedItemProperty().addListener(
                 (obs, oldSelection, newSelection) -> {
                     if (newSelection != null && historyController != null) {
-                        //get the actual instruction object based on the selected row
-                        int instructionIndex = newSelection.getNumber() - 1; //convert 1-based to 0-based
-                        if (currentProgramDetails != null &&
-                                instructionIndex >= 0 &&
-                                instructionIndex < currentProgramDetails.instructions().size()) {
-
-                            Instruction selectedInstruction = currentProgramDetails.instructions().get(instructionIndex);
-                            historyController.showInstructionHistory(selectedInstruction);
-                        }
+                        historyController.showInstructionHistory(newSelection.getInstruction());
                     }
                 }
         );
@@ -114,70 +98,19 @@ public class instruction_tableController {
         }
     }
 
-    //InstructionParser used to break down from instruction.getStringInstruction() only the command part
-    public static class InstructionParser {
-
-        //this pattern matches your formatted string and captures the command part
-        private static final Pattern INSTRUCTION_PATTERN = Pattern.compile(
-                // Matches: #1 (B) [ L1  ] DECREASE x1 (1)
-                "^#\\d+\\s+\\(\\w\\)\\s+\\[.*?\\]\\s+(.+?)\\s+\\(\\d+\\)$"
-        );
-
-
-        public static String getCommandFromDisplayString(String fullInstructionString) {
-            Matcher matcher = INSTRUCTION_PATTERN.matcher(fullInstructionString);
-            if (matcher.find()) {
-                //group 1 is the part of the pattern inside the first parentheses: (.+?)
-                return matcher.group(1).trim();
-            }
-            //if the pattern doesn't match for some reason, return the original string
-            return fullInstructionString;
-        }
-    }
-
     public void loadProgramData(ProgramDetails programDetails) {
-        //store the current program details for history tracking
-        this.currentProgramDetails = programDetails;
-
-        //clear any old data from the table
-        instructionsTableView.getItems().clear();
-
         //clear the history table when loading new program data
         if (historyController != null) {
             historyController.clearHistory();
         }
 
-        //create a list that the TableView can observe for changes
-        ObservableList<InstructionRow> instructionRows = FXCollections.observableArrayList();
-
-        int instructionCounter = 1;
-        for (Instruction instruction : programDetails.instructions()) {
-            String fullDisplayString = instruction.getStringInstruction();
-            String commandText = InstructionParser.getCommandFromDisplayString(fullDisplayString);
-            InstructionRow row = new InstructionRow(
-                    instructionCounter++,
-                    String.valueOf(instruction.getInstructionTypeChar()),
-                    instruction.getLabel().getStringLabel(),
-                    commandText,
-                    instruction.getCyclesNumber()
-            );
-            instructionRows.add(row);
-        }
+        //rows are made and formatted only when the table shows them
+        instructionsTableView.setItems(new InstructionRowList(programDetails.instructions()));
 
-        //put new data in table
-        instructionsTableView.setItems(instructionRows);
-
-        //update the summary line with instruction counts
-        int basicCount = 0;
-        int syntheticCount = 0;
-        for (Instruction inst : programDetails.instructions()) {
-            if (inst.getInstructionTypeChar() == 'B') {
-                basicCount++;
-            } else {
-                syntheticCount++;
-            }
-        }
+        //update the summary line with instruction counts, the basic count was taken with the program's analysis
+        int basicCount = programDetails.basicInstructionCount();
+        int total = programDetails.instructions().size();
         summaryLabel.setText(String.format("Total: %d instructions (Basic: %d, Synthetic: %d)",
-                programDetails.instructions().size(), basicCount, syntheticCount));
+                total, basicCount, total - basicCount));
     }
 }
\ No newline at end of file
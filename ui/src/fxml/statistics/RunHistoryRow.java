@@ -9,19 +9,19 @@ public class RunHistoryRow {
     private final SimpleIntegerProperty degree;
     private final SimpleStringProperty inputs;
     private final SimpleLongProperty outputY;
-    private final SimpleIntegerProperty cycles;
+    private final SimpleLongProperty cycles;
 
-    public RunHistoryRow(int runNumber, int degree, String inputs, long outputY, int cycles) {
+    public RunHistoryRow(int runNumber, int degree, String inputs, long outputY, long cycles) {
         this.runNumber = new SimpleIntegerProperty(runNumber);
         this.degree = new SimpleIntegerProperty(degree);
         this.inputs = new SimpleStringProperty(inputs);
         this.outputY = new SimpleLongProperty(outputY);
-        this.cycles = new SimpleIntegerProperty(cycles);
+        this.cycles = new SimpleLongProperty(cycles);
     }
 
     public int getRunNumber() { return runNumber.get(); }
     public int getDegree() { return degree.get(); }
     public String getInputs() { return inputs.get(); }
     public long getOutputY() { return outputY.get(); }
-    public int getCycles() { return cycles.get(); }
+    public long getCycles() { return cycles.get(); }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package fxml.statistics;
+
+import components.engine.Engine;
+import dtos.RunHistoryDetails;
+import javafx.collections.ObservableListBase;
+
+import java.util.List;
+
+//the rows of the engine's run history, made when the table asks for them, so only the visible runs are read and the
+//history isn't copied. the list reads a view of the history as it was at the last refresh
+public class RunHistoryRowList extends ObservableListBase<RunHistoryRow> {
+    private final Engine engine;
+    private List<RunHistoryDetails> runs;
+
+    public RunHistoryRowList(Engine engine) {
+        this.engine = engine;
+        this.runs = engine.getStatistics();
+    }
+
+    @Override
+    public RunHistoryRow get(int index) {
+        RunHistoryDetails details = runs.get(index);
+        return new RunHistoryRow(
+                details.runNumber(),
+                details.expansionDegree(),
+                StatisticsController.formatInputs(details.inputs()),
+                details.yValue(),
+                details.cyclesNumber()
+        );
+    }
+
+    @Override
+    public int size() {
+        return runs.size();
+    }
+
+    public RunHistoryDetails getRun(int index) {
+        return runs.get(index);
+    }
+
+    //takes in the runs added since the last refresh and tells the table about them as one change. false when the
+    //history got shorter (it was cleared or replaced), the list can't follow that and a new one is needed
+    public boolean refresh() {
+        List<RunHistoryDetails> latest = engine.getStatistics();
+        int before = runs.size();
+        if (latest.size() < before) {
+            return false;
+        }
+        runs = latest;
+        if (latest.size() > before) {
+            beginChange();
+            nextAdd(before, latest.size());
+            endChange();
+        }
+        return true;
+    }
+}
@@ -2,8 +2,10 @@ package fxml.statistics;
 
 import components.engine.Engine;
 import dtos.ExecutionDetails;
+import dtos.RunAggregate;
 import dtos.RunHistoryDetails;
 import fxml.debugger.DebuggerPanelController;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -12,6 +14,7 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class StatisticsController {
@@ -21,11 +24,13 @@ public class StatisticsController {
     @FXML private TableColumn<RunHistoryRow, Integer> degreeColumn;
     @FXML private TableColumn<RunHistoryRow, String> inputsColumn;
     @FXML private TableColumn<RunHistoryRow, Long> outputYColumn;
-    @FXML private TableColumn<RunHistoryRow, Integer> cyclesColumn;
+    @FXML private TableColumn<RunHistoryRow, Long> cyclesColumn;
     @FXML private Button showButton;
     @FXML private Button rerunButton;
+    @FXML private Button summaryButton;
 
-    private List<RunHistoryDetails> currentRunHistory;
+    //null until the engine has runs to show
+    private RunHistoryRowList historyRows;
     private Engine engine;
     private DebuggerPanelController debuggerController;
 
@@ -53,6 +58,7 @@ public class StatisticsController {
         //add button actions
         showButton.setOnAction(e -> showFullResults());
         rerunButton.setOnAction(e -> rerunWithInputs());
+        summaryButton.setOnAction(e -> showSummary());
     }
 
     public void setEngine(Engine engine) {
@@ -63,27 +69,29 @@ public class StatisticsController {
         this.debuggerController = debuggerController;
     }
 
-    public void loadStatistics(List<RunHistoryDetails> runHistory) {
-        this.currentRunHistory = runHistory;
-        statisticsTableView.getItems().clear();
-        if (runHistory == null || runHistory.isEmpty()) {
+    //the engine added runs: the table is told how many, the rows already shown stay as they are
+    public void showNewRuns() {
+        if (engine == null) {
             return;
         }
+        if (historyRows == null || !historyRows.refresh()) {
+            reloadHistory();
+        }
+    }
 
-        ObservableList<RunHistoryRow> historyRows = FXCollections.observableArrayList();
-        for (RunHistoryDetails details : runHistory) {
-            historyRows.add(new RunHistoryRow(
-                    details.runNumber(),
-                    details.expansionDegree(),
-                    formatInputs(details.inputs()),
-                    details.yValue(),
-                    details.cyclesNumber()
-            ));
+    //shows the engine's whole history again, after a load replaced or restored it
+    public void reloadHistory() {
+        if (engine == null) {
+            clearHistory();
+            return;
         }
+        historyRows = new RunHistoryRowList(engine);
         statisticsTableView.setItems(historyRows);
+        showButton.setDisable(true);
+        rerunButton.setDisable(true);
     }
 
-    private String formatInputs(List<Long> inputs) {
+    static String formatInputs(List<Long> inputs) {
         if (inputs == null || inputs.isEmpty()) {
             return "None";
         }
@@ -94,8 +102,8 @@ public class StatisticsController {
 
     public void clearHistory() {
         if (statisticsTableView != null) {
-            statisticsTableView.getItems().clear();
-            currentRunHistory = null;
+            statisticsTableView.setItems(FXCollections.observableArrayList());
+            historyRows = null;
         }
         showButton.setDisable(true);
         rerunButton.setDisable(true);
@@ -103,26 +111,25 @@ public class StatisticsController {
 
 
     private void showFullResults() {
-        RunHistoryRow selectedRow = statisticsTableView.getSelectionModel().getSelectedItem();
-        if (selectedRow == null || engine == null || currentRunHistory == null) {
-            return;
-        }
-
-        //find the corresponding RunHistoryDetails
-        RunHistoryDetails selectedRun = currentRunHistory.stream()
-                .filter(r -> r.runNumber() == selectedRow.getRunNumber())
-                .findFirst()
-                .orElse(null);
-
-        if (selectedRun == null) {
+        RunHistoryDetails selectedRun = selectedRun();
+        if (selectedRun == null || engine == null) {
             return;
         }
 
-        //re-run the program with the same parameters to get full results
-        //this is necessary because we don't store the full context in history
+        //the engine keeps the final variables of each run. when they weren't kept the run's own program is evaluated
+        //again, which doesn't add a run to the history
         try {
-            Long[] inputs = selectedRun.inputs().toArray(new Long[0]);
-            ExecutionDetails results = engine.runProgram(selectedRun.expansionDegree(), inputs);
+            ExecutionDetails results = engine.getRunResult(selectedRun.runNumber());
+            if (results == null) {
+                String programName = engine.getRunProgramName(selectedRun.runNumber());
+                if (programName == null) {
+                    showAlert(Alert.AlertType.INFORMATION, "Run #" + selectedRun.runNumber(), "No final state",
+                            "The final variables of this run weren't kept.");
+                    return;
+                }
+                Long[] inputs = selectedRun.inputs().toArray(new Long[0]);
+                results = engine.evaluate(programName, selectedRun.expansionDegree(), inputs);
+            }
 
             //create and show dialog with full results
             showResultsDialog(selectedRun, results);
@@ -200,6 +207,54 @@ public class StatisticsController {
         dialog.showAndWait();
     }
 
+    //aggregates per program and degree, kept by the engine as runs finish so this doesn't go over the history
+    private void showSummary() {
+        if (engine == null || !engine.isProgramLoaded()) {
+            return;
+        }
+        List<RunAggregate> aggregates = engine.getRunAggregates();
+        if (aggregates.isEmpty()) {
+            showAlert(Alert.AlertType.INFORMATION, "Summary", "No runs yet", "Run the program to see its statistics.");
+            return;
+        }
+
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle("Run Summary");
+        dialog.setHeaderText("Runs per program and degree");
+
+        TableView<RunAggregate> summaryTable = new TableView<>();
+        summaryTable.setPrefSize(760, 300);
+        summaryTable.getColumns().addAll(List.of(
+                summaryColumn("Program", 110, a -> a.programName() == null ? "(unknown)" : a.programName()),
+                summaryColumn("Degree", 60, RunAggregate::expansionDegree),
+                summaryColumn("Runs", 60, RunAggregate::runsCount),
+                summaryColumn("Min", 60, RunAggregate::minCycles),
+                summaryColumn("Max", 60, RunAggregate::maxCycles),
+                summaryColumn("Mean", 70, a -> String.format("%.1f", a.meanCycles())),
+                summaryColumn("p50", 60, RunAggregate::p50Cycles),
+                summaryColumn("p95", 60, RunAggregate::p95Cycles),
+                summaryColumn("p99", 60, RunAggregate::p99Cycles),
+                summaryColumn("Mean ms", 80, a -> a.timedRunsCount() == 0 ? "-" : String.format("%.3f", a.meanWallMillis())),
+                summaryColumn("Max ms", 80, a -> a.timedRunsCount() == 0 ? "-" : String.format("%.3f", a.maxWallMillis()))
+        ));
+        summaryTable.setItems(FXCollections.observableArrayList(aggregates));
+
+        VBox content = new VBox(10, new Label("Cycle percentiles are approximate (within about 3%)."), summaryTable);
+        content.setPadding(new Insets(10));
+
+        DialogPane dialogPane = dialog.getDialogPane();
+        dialogPane.setContent(content);
+        dialogPane.getButtonTypes().add(ButtonType.CLOSE);
+        dialog.showAndWait();
+    }
+
+    private static TableColumn<RunAggregate, Object> summaryColumn(String title, double width, Function<RunAggregate, Object> value) {
+        TableColumn<RunAggregate, Object> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new SimpleObjectProperty<>(value.apply(cell.getValue())));
+        column.setPrefWidth(width);
+        return column;
+    }
+
     private void rerunWithInputs() {
         if (debuggerController == null) {
             showAlert(Alert.AlertType.WARNING, "Warning",
@@ -207,16 +262,7 @@ public class StatisticsController {
             return;
         }
 
-        RunHistoryRow selectedRow = statisticsTableView.getSelectionModel().getSelectedItem();
-        if (selectedRow == null || currentRunHistory == null) {
-            return;
-        }
-
-        RunHistoryDetails selectedRun = currentRunHistory.stream()
-                .filter(r -> r.runNumber() == selectedRow.getRunNumber())
-                .findFirst()
-                .orElse(null);
-
+        RunHistoryDetails selectedRun = selectedRun();
         if (selectedRun == null) {
             return;
         }
@@ -228,6 +274,15 @@ public class StatisticsController {
                 "Click 'Start Normal Run' or 'Start Debug Run' to execute with these inputs.");
     }
 
+    //the run of the selected row, read by its index in the history
+    private RunHistoryDetails selectedRun() {
+        int index = statisticsTableView.getSelectionModel().getSelectedIndex();
+        if (historyRows == null || index < 0 || index >= historyRows.size()) {
+            return null;
+        }
+        return historyRows.getRun(index);
+    }
+
     private void showAlert(Alert.AlertType type, String title, String header, String content) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
@@ -25,7 +25,8 @@ public class LogicManager implements Runnable {
                         engine.loadProgramFromFile(file);
                         System.out.println("File " + file.getName() + " was successfully loaded." + System.lineSeparator());
                     } catch (RuntimeException e) {
-                        System.out.println(e.getCause().getMessage() + ", file was not loaded." + System.lineSeparator());
+                        Throwable reason = e.getCause() != null ? e.getCause() : e;
+                        System.out.println(reason.getMessage() + ", file was not loaded." + System.lineSeparator());
                     }
                 }
                 case SHOW_PROGRAM -> {
@@ -85,8 +86,8 @@ public class LogicManager implements Runnable {
                     }
                     else {
                         String fileName = ConsoleManager.getFileName();
-                        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(fileName))) {
-                            out.writeObject(engine);
+                        try {
+                            engine.saveState(new File(fileName));
                             System.out.println("State saved successfully to " + fileName + System.lineSeparator());
                         } catch (IOException e) {
                             System.out.println("Error saving state: " + e.getMessage() + System.lineSeparator());
@@ -95,10 +96,10 @@ public class LogicManager implements Runnable {
                 }
                 case LOAD_STATE_FROM_FILE -> {
                     String filePath = ConsoleManager.getStateFilePath();
-                    try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filePath))) {
-                        engine = (Engine) in.readObject();
+                    try {
+                        engine.loadState(new File(filePath));
                         System.out.println("State file " + filePath + " was successfully loaded." + System.lineSeparator());
-                    } catch (IOException | ClassNotFoundException e) {
+                    } catch (IOException e) {
                         System.out.println("Error: Failed to load state. " + e.getMessage() + System.lineSeparator());
                     }
                 }
@@ -0,0 +1,413 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import components.engine.EngineSession;
+import components.engine.StandardEngine;
+import components.executor.CycleBudgetExceededException;
+import components.instruction.Instruction;
+import components.label.Label;
+import components.label.LabelFactory;
+import components.variable.Variable;
+import components.variable.VariableFactory;
+import dtos.ExecutionDetails;
+import dtos.InstructionFilter;
+import dtos.ProgramDetails;
+import dtos.ProgramPage;
+import dtos.RunAggregate;
+import dtos.RunCacheMetrics;
+import dtos.RunResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+//the engine over HTTP/JSON for other processes on the same host. every request runs on its own virtual thread with its
+//own EngineSession over the shared loaded program, so runs don't wait for each other and expansions are built once.
+//  POST /load       {"path"}                                          loads an XML program
+//  GET  /program    ?program=&degree=                                  the program (or a function) at a degree
+//                   &offset=&limit=&type=&variable=&label=             with any of these only a page of its instructions:
+//                                                                      the ones of that type (B or S) or using that
+//                                                                      variable or label, limit defaults to 100
+//  POST /run        {"inputs", "degree", "program", "maxCycles", "cache"}  one run, recorded in the history
+//  POST /batch      {"inputs": [[..], ..], "degree", "program", "maxCycles", "cache"}  many runs, not recorded
+//  GET  /statistics                                                    run count, aggregates per program and degree
+//                                                                      and the result cache's metrics
+//runs with inputs the program already ran with come from the engine's result cache unless "cache" is false
+public class EmulatorServer implements AutoCloseable {
+    //requests above maxConcurrentRequests are turned away with 503 instead of queueing
+    public record Limits(int maxConcurrentRequests, int maxBodyBytes, int maxBatchSize, long maxCycleBudget) {
+        public static final Limits DEFAULT = new Limits(512, 1 << 20, 10_000, 10_000_000L);
+    }
+
+    private static final class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface Endpoint {
+        Object handle(Map<String, Object> request) throws IOException;
+    }
+
+    static {
+        //the JDK server writes the headers and the body of a response separately, with Nagle's algorithm on every
+        //kept-alive request waits for the client's delayed ACK. it is read once, before the first server is created
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private static final List<String> PAGE_PARAMETERS = List.of("offset", "limit", "type", "variable", "label");
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+
+    private final StandardEngine engine;
+    private final Limits limits;
+    private final Semaphore permits;
+    private final HttpServer httpServer;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public EmulatorServer(StandardEngine engine, InetSocketAddress address, Limits limits) throws IOException {
+        this.engine = engine;
+        this.limits = limits;
+        this.permits = new Semaphore(limits.maxConcurrentRequests());
+        this.httpServer = HttpServer.create(address, 0);
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/load", exchange -> handle(exchange, "POST", this::load));
+        httpServer.createContext("/program", exchange -> handle(exchange, "GET", this::program));
+        httpServer.createContext("/run", exchange -> handle(exchange, "POST", this::run));
+        httpServer.createContext("/batch", exchange -> handle(exchange, "POST", this::batch));
+        httpServer.createContext("/statistics", exchange -> handle(exchange, "GET", request -> statistics()));
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return httpServer.getAddress();
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange, String method, Endpoint endpoint) throws IOException {
+        if (!permits.tryAcquire()) {
+            respond(exchange, 503, Map.of("error", "Too many requests."));
+            return;
+        }
+        try {
+            if (!exchange.getRequestMethod().equals(method)) {
+                throw new RequestException(405, "Use " + method + ".");
+            }
+            respond(exchange, 200, endpoint.handle(readRequest(exchange)));
+        } catch (RequestException e) {
+            respond(exchange, e.status, Map.of("error", e.getMessage()));
+        } catch (CycleBudgetExceededException e) {
+            respond(exchange, 422, Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, Map.of("error", describe(e)));
+        } catch (IllegalStateException e) {
+            respond(exchange, 409, Map.of("error", describe(e)));
+        } catch (RuntimeException e) {
+            respond(exchange, 500, Map.of("error", describe(e)));
+        } finally {
+            permits.release();
+            exchange.close();
+        }
+    }
+
+    //the cause's message when it has one, else the exception's own message or, failing both, the exception's name
+    private static String describe(RuntimeException exception) {
+        Throwable reason = exception.getCause() != null ? exception.getCause() : exception;
+        if (reason.getMessage() != null) {
+            return reason.getMessage();
+        }
+        return exception.getMessage() != null ? exception.getMessage() : reason.getClass().getName();
+    }
+
+    //the JSON body of a POST or the query parameters of a GET
+    private Map<String, Object> readRequest(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = new LinkedHashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals > 0) {
+                    request.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+                            URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readNBytes(limits.maxBodyBytes() + 1);
+            if (bytes.length > limits.maxBodyBytes()) {
+                throw new RequestException(413, "Request body is over " + limits.maxBodyBytes() + " bytes.");
+            }
+            if (bytes.length > 0) {
+                if (!(Json.parse(new String(bytes, StandardCharsets.UTF_8)) instanceof Map<?, ?> json)) {
+                    throw new IllegalArgumentException("The request body must be a JSON object.");
+                }
+                json.forEach((name, value) -> request.put((String) name, value));
+            }
+        }
+        return request;
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    //loads replace the shared program as a whole, runs already in progress finish on the program they started with.
+    //a load that fails leaves the previous program loaded for every client
+    private Object load(Map<String, Object> request) {
+        String path = required(request, "path").toString();
+        synchronized (engine) {
+            engine.loadProgramFromFile(new File(path));
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("program", engine.getProgramDetails().name());
+            response.put("maxDegree", engine.getProgramMaxDegree());
+            response.put("programs", engine.getDisplayableProgramNames());
+            return response;
+        }
+    }
+
+    private Object program(Map<String, Object> request) {
+        EngineSession session = openSession(request);
+        int degree = degreeOf(request, session);
+        if (PAGE_PARAMETERS.stream().anyMatch(request::containsKey)) {
+            return programPage(request, session, degree);
+        }
+        ProgramDetails details = session.expandProgram(degree);
+
+        List<String> instructions = new ArrayList<>(details.instructions().size());
+        for (Instruction instruction : details.instructions()) {
+            instructions.add(instruction.getStringInstruction());
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("name", details.name());
+        response.put("degree", degree);
+        response.put("maxDegree", session.getProgramMaxDegree());
+        response.put("inputVariables", details.inputVariables().stream().map(Variable::getStringVariable).toList());
+        response.put("workVariables", details.workVariables().stream().map(Variable::getStringVariable).toList());
+        response.put("labels", details.labels().stream().map(Label::getStringLabel).toList());
+        response.put("instructions", instructions);
+        return response;
+    }
+
+    private Object programPage(Map<String, Object> request, EngineSession session, int degree) {
+        long offset = request.get("offset") == null ? 0 : longOf(request.get("offset"), "offset");
+        long limit = request.get("limit") == null ? DEFAULT_PAGE_LIMIT : longOf(request.get("limit"), "limit");
+        if (offset < 0 || offset > Integer.MAX_VALUE || limit < 0 || limit > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("'offset' and 'limit' must be between 0 and " + Integer.MAX_VALUE + ".");
+        }
+        ProgramPage page = session.getProgramPage(degree, filterOf(request), (int) offset, (int) limit);
+
+        List<Object> instructions = new ArrayList<>(page.instructions().size());
+        for (ProgramPage.Entry entry : page.instructions()) {
+            Map<String, Object> instruction = new LinkedHashMap<>();
+            instruction.put("number", entry.number());
+            instruction.put("text", entry.instruction().getStringInstruction());
+            instructions.add(instruction);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("name", page.name());
+        response.put("degree", degree);
+        response.put("maxDegree", session.getProgramMaxDegree());
+        response.put("totalInstructions", page.totalInstructions());
+        response.put("matchingInstructions", page.matchingInstructions());
+        response.put("offset", page.offset());
+        response.put("instructions", instructions);
+        return response;
+    }
+
+    private static InstructionFilter filterOf(Map<String, Object> request) {
+        Character type = null;
+        if (request.get("type") != null) {
+            String value = request.get("type").toString().trim().toUpperCase();
+            if (!value.equals("B") && !value.equals("S")) {
+                throw new IllegalArgumentException("'type' must be B or S.");
+            }
+            type = value.charAt(0);
+        }
+        Variable variable = request.get("variable") == null ? null
+                : VariableFactory.createVariableFromString(request.get("variable").toString().trim());
+        Label label = request.get("label") == null ? null
+                : LabelFactory.createLabelFromString(request.get("label").toString());
+        return new InstructionFilter(type, variable, label);
+    }
+
+    private Object run(Map<String, Object> request) {
+        EngineSession session = openSession(request);
+        int degree = degreeOf(request, session);
+        Long[] inputs = inputsOf(required(request, "inputs"));
+
+        ExecutionDetails result = session.runProgram(degree, useCacheOf(request), inputs);
+        Map<String, Object> response = resultOf(result.variables().getVariableValue(Variable.OUTPUT), result.cycles());
+        Map<String, Object> variables = new LinkedHashMap<>();
+        for (Variable variable : result.programDetails().inputVariables()) {
+            variables.put(variable.getStringVariable(), result.variables().getVariableValue(variable));
+        }
+        for (Variable variable : result.programDetails().workVariables()) {
+            variables.put(variable.getStringVariable(), result.variables().getVariableValue(variable));
+        }
+        response.put("variables", variables);
+        return response;
+    }
+
+    //each tuple gets its own budget, a tuple that goes over it gets an error entry and the rest still run
+    private Object batch(Map<String, Object> request) {
+        EngineSession session = openSession(request);
+        int degree = degreeOf(request, session);
+        if (!(required(request, "inputs") instanceof List<?> tuples)) {
+            throw new IllegalArgumentException("'inputs' must be an array of input arrays.");
+        }
+        if (tuples.size() > limits.maxBatchSize()) {
+            throw new RequestException(413, "A batch can have at most " + limits.maxBatchSize() + " runs.");
+        }
+
+        boolean useCache = useCacheOf(request);
+        List<Object> results = new ArrayList<>(tuples.size());
+        for (Object tuple : tuples) {
+            Long[] inputs = inputsOf(tuple);
+            try {
+                RunResult result = session.evaluateForResult(degree, useCache, inputs);
+                results.add(resultOf(result.y(), result.cycles()));
+            } catch (CycleBudgetExceededException e) {
+                results.add(Map.of("error", e.getMessage()));
+            }
+        }
+        return Map.of("results", results);
+    }
+
+    private Object statistics() {
+        List<Object> aggregates = new ArrayList<>();
+        for (RunAggregate aggregate : engine.getRunAggregates()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("program", aggregate.programName());
+            entry.put("degree", aggregate.expansionDegree());
+            entry.put("runs", aggregate.runsCount());
+            entry.put("minCycles", aggregate.minCycles());
+            entry.put("maxCycles", aggregate.maxCycles());
+            entry.put("meanCycles", aggregate.meanCycles());
+            entry.put("p50Cycles", aggregate.p50Cycles());
+            entry.put("p95Cycles", aggregate.p95Cycles());
+            entry.put("p99Cycles", aggregate.p99Cycles());
+            entry.put("meanWallMillis", aggregate.meanWallMillis());
+            entry.put("maxWallMillis", aggregate.maxWallMillis());
+            aggregates.add(entry);
+        }
+        RunCacheMetrics metrics = engine.getRunCacheMetrics();
+        Map<String, Object> cache = new LinkedHashMap<>();
+        cache.put("hits", metrics.hits());
+        cache.put("misses", metrics.misses());
+        cache.put("hitRate", metrics.hitRate());
+        cache.put("evictions", metrics.evictions());
+        cache.put("entries", metrics.entries());
+        cache.put("weightBytes", metrics.weight());
+        cache.put("maxWeightBytes", metrics.maxWeight());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("runs", engine.getRunHistory().size());
+        response.put("aggregates", aggregates);
+        response.put("cache", cache);
+        return response;
+    }
+
+    //a session on the current program with the requested program selected and the request's cycle budget
+    private EngineSession openSession(Map<String, Object> request) {
+        EngineSession session = engine.newSession();
+        Object program = request.get("program");
+        if (program != null) {
+            if (session.getLoadedProgram().findProgram(program.toString()) == null) {
+                throw new RequestException(404, "There is no program or function named '" + program + "'.");
+            }
+            session.setContextProgram(program.toString());
+        }
+        long budget = limits.maxCycleBudget();
+        if (request.get("maxCycles") != null) {
+            budget = Math.min(budget, longOf(request.get("maxCycles"), "maxCycles"));
+        }
+        session.setCycleBudget(budget);
+        return session;
+    }
+
+    private static int degreeOf(Map<String, Object> request, EngineSession session) {
+        long degree = request.get("degree") == null ? 0 : longOf(request.get("degree"), "degree");
+        int maxDegree = session.getProgramMaxDegree();
+        if (degree < 0 || degree > maxDegree) {
+            throw new IllegalArgumentException("Degree must be between 0 and " + maxDegree + ".");
+        }
+        return (int) degree;
+    }
+
+    private static boolean useCacheOf(Map<String, Object> request) {
+        Object cache = request.get("cache");
+        if (cache != null && !(cache instanceof Boolean)) {
+            throw new IllegalArgumentException("'cache' must be true or false.");
+        }
+        return cache == null || (Boolean) cache;
+    }
+
+    private static Long[] inputsOf(Object value) {
+        if (!(value instanceof List<?> list)) {
+            throw new IllegalArgumentException("Inputs must be an array of numbers.");
+        }
+        Long[] inputs = new Long[list.size()];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = longOf(list.get(i), "inputs");
+        }
+        return inputs;
+    }
+
+    private static long longOf(Object value, String name) {
+        return switch (value) {
+            case Long number -> number;
+            case String string -> {
+                try {
+                    yield Long.parseLong(string);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("'" + name + "' must be a whole number.");
+                }
+            }
+            default -> throw new IllegalArgumentException("'" + name + "' must be a whole number.");
+        };
+    }
+
+    private static Object required(Map<String, Object> request, String name) {
+        Object value = request.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("'" + name + "' is missing.");
+        }
+        return value;
+    }
+
+    private static Map<String, Object> resultOf(long y, long cycles) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("y", y);
+        response.put("cycles", cycles);
+        return response;
+    }
+}
@@ -0,0 +1,99 @@
+package server;
+
+import components.engine.StandardEngine;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertTrue;
+
+//what a client gets back for requests the server refuses: 400 for malformed requests, 413 for bodies and batches over
+//the limits, 422 for runs over their cycle budget and 503 when no request slot is free
+public class EmulatorServerTest {
+    private static final EmulatorServer.Limits LIMITS = new EmulatorServer.Limits(8, 4096, 5, 1_000_000L);
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    public void testARunIsAnswered() throws Exception {
+        try (EmulatorServer server = start(LIMITS)) {
+            Response response = post(server, "/run", "{\"inputs\": [5, 2]}");
+            assertEquals(200, response.status(), response.body());
+            assertEquals(3L, ((Map<?, ?>) response.json()).get("y"), response.body());
+        }
+    }
+
+    public void testMalformedRequestsGet400() throws Exception {
+        try (EmulatorServer server = start(LIMITS)) {
+            for (String body : new String[]{"{", "[1, 2]", "{\"inputs\": [1, \"a\"]}", "{\"inputs\": 3}",
+                    "{\"inputs\": [1], \"degree\": 99}", "{\"inputs\": [1], \"cache\": \"yes\"}", "{}",
+                    "[".repeat(2000)}) {
+                Response response = post(server, "/run", body);
+                assertEquals(400, response.status(), body + ": " + response.body());
+                assertTrue(((Map<?, ?>) response.json()).get("error") instanceof String, body + " has an error message");
+            }
+        }
+    }
+
+    public void testLimitsGet413() throws Exception {
+        try (EmulatorServer server = start(LIMITS)) {
+            Response response = post(server, "/run", "{\"inputs\": [1], \"pad\": \"" + "x".repeat(5000) + "\"}");
+            assertEquals(413, response.status(), response.body());
+
+            response = post(server, "/batch", "{\"inputs\": [[1], [2], [3], [4], [5], [6]]}");
+            assertEquals(413, response.status(), response.body());
+
+            response = post(server, "/batch", "{\"inputs\": [[1], [2], [3], [4], [5]]}");
+            assertEquals(200, response.status(), "a batch at the limit: " + response.body());
+        }
+    }
+
+    public void testARunOverItsBudgetGets422() throws Exception {
+        try (EmulatorServer server = start(LIMITS)) {
+            Response response = post(server, "/run", "{\"inputs\": [100, 1], \"maxCycles\": 10}");
+            assertEquals(422, response.status(), response.body());
+
+            //in a batch the run gets an error entry and the request still succeeds
+            response = post(server, "/batch", "{\"inputs\": [[100, 1], [1, 1]], \"maxCycles\": 10}");
+            assertEquals(200, response.status(), response.body());
+            List<?> results = (List<?>) ((Map<?, ?>) response.json()).get("results");
+            assertTrue(((Map<?, ?>) results.get(0)).containsKey("error"), "first run is over its budget");
+        }
+    }
+
+    public void testNoFreeRequestSlotGets503() throws Exception {
+        try (EmulatorServer server = start(new EmulatorServer.Limits(0, 4096, 5, 1_000_000L))) {
+            Response response = post(server, "/run", "{\"inputs\": [1]}");
+            assertEquals(503, response.status(), response.body());
+        }
+    }
+
+    private record Response(int status, String body) {
+        Object json() {
+            return Json.parse(body);
+        }
+    }
+
+    private static EmulatorServer start(EmulatorServer.Limits limits) throws IOException {
+        StandardEngine engine = new StandardEngine();
+        engine.loadProgramFromFile(Path.of("resources", "minus.xml").toFile());
+        EmulatorServer server = new EmulatorServer(engine, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), limits);
+        server.start();
+        return server;
+    }
+
+    private static Response post(EmulatorServer server, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+        return new Response(response.statusCode(), response.body());
+    }
+}
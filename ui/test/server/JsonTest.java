@@ -0,0 +1,61 @@
+package server;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static testing.Assert.assertEquals;
+import static testing.Assert.assertThrows;
+
+//values read back the way the server expects them, and malformed or too deeply nested input refused with an
+//IllegalArgumentException, which the server answers with 400
+public class JsonTest {
+    public void testValuesRoundTrip() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("inputs", List.of(List.of(1L, 2L), List.of()));
+        value.put("degree", 3L);
+        value.put("rate", 0.5);
+        value.put("cache", false);
+        value.put("program", "Minus \"-\"\n\t\\ \u0001");
+        value.put("missing", null);
+
+        String text = Json.write(value);
+        assertEquals(value, Json.parse(text), text);
+        assertEquals(value, Json.parse(" \n" + text.replace(",", " , ").replace(":", " : ") + "\t"), "with whitespace");
+    }
+
+    public void testEscapesAreRead() {
+        assertEquals("a\"b\\c/d\b\f\n\r\tAé", Json.parse("\"a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\\u0041\\u00e9\""), "escapes");
+    }
+
+    public void testMalformedInputIsRefused() {
+        for (String text : new String[]{"", "{", "[1,", "{\"a\" 1}", "{\"a\":1,}", "{1:2}", "[1 2]", "\"open",
+                "\"\\x\"", "\"\\u12\"", "tru", "nul", "1.2.3", "-", "{} {}", "[1]]", "@"}) {
+            assertThrows(IllegalArgumentException.class, () -> Json.parse(text), "'" + text + "'");
+        }
+    }
+
+    public void testNestingIsLimited() {
+        assertEquals(1L, unwrap(Json.parse(nested(64)), 64), "64 levels");
+        assertThrows(IllegalArgumentException.class, () -> Json.parse(nested(65)), "65 levels");
+
+        //a body of nothing but brackets is refused before it runs out of stack
+        char[] brackets = new char[1 << 20];
+        Arrays.fill(brackets, '[');
+        assertThrows(IllegalArgumentException.class, () -> Json.parse(new String(brackets)), "a megabyte of '['");
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\":".repeat(100) + "1" + "}".repeat(100)),
+                "nested objects");
+    }
+
+    private static String nested(int depth) {
+        return "[".repeat(depth) + "1" + "]".repeat(depth);
+    }
+
+    private static Object unwrap(Object value, int depth) {
+        for (int i = 0; i < depth; i++) {
+            value = ((List<?>) value).get(0);
+        }
+        return value;
+    }
+}